@@ -2,6 +2,7 @@
 
 SCRIPT_DIR="$( cd -P "$( dirname "$(realpath "${BASH_SOURCE[0]}")" )" && pwd )"
 UBER_JAR="${SCRIPT_DIR}/target/abstract-state-mutator-1.0-SNAPSHOT-jar-with-dependencies.jar"
+CDS_ARCHIVE="${SCRIPT_DIR}/target/msav.jsa"
 
 # POM_XML="${SCRIPT_DIR}/pom.xml"
 # mvn -f "${POM_XML}" exec:java -Dexec.mainClass="org.mutation_testing.App" -Dexec.args="$*"
@@ -11,4 +12,30 @@ if [ ! -f "${UBER_JAR}" ]; then
     mvn -f "${SCRIPT_DIR}/pom.xml" clean package shade:shade
 fi
 
-java -cp "${UBER_JAR}" org.mutation_testing.App "$@"
\ No newline at end of file
+# Map the classes recorded by package.sh instead of loading them from the
+# jar. The JVM quietly ignores an archive that no longer matches the jar. If
+# there is no archive yet, record one as this run exits; dynamic archives
+# need Java 13 or later.
+JAVA_MAJOR="$(java -version 2>&1 | sed -n 's/.*version "\([0-9]*\).*/\1/p' | head -n 1)"
+CDS_OPTS=()
+if [ -f "${CDS_ARCHIVE}" ]; then
+    CDS_OPTS=(-XX:SharedArchiveFile="${CDS_ARCHIVE}" -Xlog:cds=off -Xlog:cds+dynamic=off)
+elif [ "${JAVA_MAJOR:-0}" -ge 13 ] && [ -w "$(dirname "${CDS_ARCHIVE}")" ]; then
+    CDS_OPTS=(-XX:ArchiveClassesAtExit="${CDS_ARCHIVE}" -Xlog:cds=off -Xlog:cds+dynamic=off)
+fi
+
+# The jar is also a Java agent, which `run --exec hotswap` needs to redefine
+# mutated classes in place. Forked workers install it themselves, so only
+# load it for that mode.
+AGENT_OPTS=()
+if [ "$1" = "run" ]; then
+    PREVIOUS=""
+    for ARG in "$@"; do
+        if [ "${PREVIOUS}" = "--exec" ] && [ "${ARG}" = "hotswap" ]; then
+            AGENT_OPTS=(-javaagent:"${UBER_JAR}")
+        fi
+        PREVIOUS="${ARG}"
+    done
+fi
+
+java "${CDS_OPTS[@]}" "${AGENT_OPTS[@]}" -cp "${UBER_JAR}" org.mutation_testing.App "$@"
@@ -5,4 +5,37 @@ SCRIPT_DIR="$( cd -P "$( dirname "$(realpath "${BASH_SOURCE[0]}")" )" && pwd )"
 mvn package shade:shade
 
 UBER_JAR="${SCRIPT_DIR}/target/abstract-state-mutator-1.0-SNAPSHOT-jar-with-dependencies.jar"
-zip msav.zip msav.sh "${UBER_JAR}"
\ No newline at end of file
+CDS_ARCHIVE="${SCRIPT_DIR}/target/msav.jsa"
+
+# Mutate a small file once and record every class the run loads in a class
+# data sharing archive, which msav.sh maps at startup. Dynamic archives need
+# Java 13 or later.
+TRAINING_DIR="$(mktemp -d)"
+cat > "${TRAINING_DIR}/Training.java" <<'JAVA'
+public class Training {
+    int f(int x, int y, String s) {
+        if (x > 10 && y < 3 || s.equals("msav")) {
+            return x + 1;
+        }
+        return x == 3 ? 1 : 2;
+    }
+}
+JAVA
+rm -f "${CDS_ARCHIVE}"
+if ! java -XX:ArchiveClassesAtExit="${CDS_ARCHIVE}" -cp "${UBER_JAR}" \
+        org.mutation_testing.App --outdir "${TRAINING_DIR}/out" --log "${TRAINING_DIR}/mutants.msav.log" \
+        "${TRAINING_DIR}/Training.java" > /dev/null; then
+    echo "Could not create a CDS archive; msav will start without one"
+    rm -f "${CDS_ARCHIVE}"
+fi
+rm -rf "${TRAINING_DIR}"
+
+# Ship the archive next to the jar it was made from. The JVM ignores it if
+# it does not match the installed jar or JVM, and msav.sh records a new one
+# on the first run if it is missing.
+cd "${SCRIPT_DIR}"
+ZIP_FILES=(msav.sh "target/$(basename "${UBER_JAR}")")
+if [ -f "${CDS_ARCHIVE}" ]; then
+    ZIP_FILES+=("target/$(basename "${CDS_ARCHIVE}")")
+fi
+zip msav.zip "${ZIP_FILES[@]}"
@@ -6,16 +6,31 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import org.mutation_testing.mutate.Mutant;
-import org.mutation_testing.mutate.Mutator;
-
-import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import org.mutation_testing.compile.Baseline;
+import org.mutation_testing.compile.CompilingMutantWriter;
+import org.mutation_testing.compile.MutantCompiler;
+import org.mutation_testing.mutate.CoverageFilter;
+import org.mutation_testing.mutate.MutantBudget;
+import org.mutation_testing.mutate.MutationPlanner;
+import org.mutation_testing.mutate.MutationSession;
+import org.mutation_testing.output.MutantDirectoryWriter;
+import org.mutation_testing.output.MutantLogWriter;
+import org.mutation_testing.output.MutantWriter;
+import org.mutation_testing.output.PatchMaterializer;
+import org.mutation_testing.output.PatchMutantWriter;
+import org.mutation_testing.output.ProbeMutantWriter;
+import org.mutation_testing.output.SchemataMutantWriter;
+import org.mutation_testing.output.SubsumptionWriter;
+import org.mutation_testing.run.RunCommand;
+import org.mutation_testing.solver.ConditionPruner;
+import org.mutation_testing.solver.SolverService;
 
 /**
  * Hello world!
@@ -26,45 +41,303 @@ public class App {
     List<String> sourceRoots = new ArrayList<>();
     String outdir = "msav_out";
     String mutantsLog = "mutants.msav.log";
-    Mutator mutator = new Mutator();
+    int threads = 1;
+
+    /**
+     * How to write mutants: "files" writes a full copy of the mutated source
+     * per mutant, "patch" writes each source once plus a patch per mutant,
+     * and "schemata" writes one metamutant per source
+     */
+    String outputMode = "files";
+
+    /**
+     * Compile each mutant in memory and write its class files
+     */
+    boolean compile = false;
+
+    /**
+     * Compile the original project once, and compile each mutant's file
+     * alone against it. Implies {@link #compile}.
+     */
+    boolean baseline = false;
+
+    /**
+     * Also write a probed copy of each source that records which mutants
+     * each test infects, for {@code run --matrix}
+     */
+    boolean probes = false;
+
+    /**
+     * Only count the mutants each file and method would produce, and
+     * estimate the size of their output, without generating them
+     */
+    boolean plan = false;
+
+    /**
+     * A JaCoCo XML report or line-hit file; sites on lines it shows as not
+     * executed are not mutated
+     */
+    String coverageReport = null;
+
+    CoverageFilter coverage = null;
+
+    /**
+     * Drop product conditions that Z3 shows to be unsatisfiable. Off by
+     * default, so that runs without it do not load Z3's native library.
+     */
+    boolean prune = false;
+
+    ConditionPruner pruner = null;
+
+    /**
+     * Link each mutant to the minimal mutants of its method whose conditions
+     * imply its own, and write them for {@code run} to combine with kill
+     * data. Like pruning, this loads Z3.
+     */
+    boolean subsume = false;
+
+    SolverService subsumptionSolver = null;
+
+    /**
+     * t for t-way covering products of abstract values, or 0 for full
+     * products
+     */
+    int productStrength = 0;
+
+    /**
+     * The most mutants per site, method and file
+     */
+    int siteBudget = MutantBudget.UNLIMITED;
+    int methodBudget = MutantBudget.UNLIMITED;
+    int fileBudget = MutantBudget.UNLIMITED;
+
+    MutantBudget budget = null;
 
-    JavaSymbolSolver symbolSolver;
+    /**
+     * Classpath entries that mutants are compiled against
+     */
+    List<String> classpath = new ArrayList<>();
+
+    /**
+     * Mutant ids to materialize from a previous patch run
+     */
+    List<Integer> materializeMids = new ArrayList<>();
 
     public static void main(String[] args) {
+        if (args.length > 0 && "run".equals(args[0])) {
+            RunCommand.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         App app = new App();
         app.parseArgs(args);
-        app.initializeSymbolResolver();
         app.run();
     }
 
     void run() {
+        if (!materializeMids.isEmpty()) {
+            materialize();
+            return;
+        }
         if (filenames.isEmpty()) {
             System.err.println("No files to mutate");
             return;
         }
-        final List<Mutant> mutants = mutateFilenames();
-        Mutant.writeMutantsLog(mutantsLog, mutants);
-        writeMutantsToDisk(mutants);
-        System.out.println("Generated " + mutants.size() + " mutants in " + mutantsDir());
+        try {
+            if (coverageReport != null) {
+                coverage = CoverageFilter.read(Paths.get(coverageReport));
+            }
+            if (siteBudget != MutantBudget.UNLIMITED || methodBudget != MutantBudget.UNLIMITED
+                    || fileBudget != MutantBudget.UNLIMITED) {
+                budget = new MutantBudget(siteBudget, methodBudget, fileBudget);
+            }
+            if (plan) {
+                plan();
+                return;
+            }
+            if (prune) {
+                pruner = new ConditionPruner();
+            }
+            if (subsume) {
+                subsumptionSolver = pruner != null ? pruner.getService() : new SolverService();
+            }
+            List<MutantWriter> writers = new ArrayList<>();
+            writers.add(new MutantLogWriter(mutantsLog));
+            Path dest;
+            switch (outputMode) {
+                case "patch":
+                    dest = patchesDir();
+                    writers.add(new PatchMutantWriter(dest));
+                    break;
+                case "schemata":
+                    dest = schemataDir();
+                    writers.add(new SchemataMutantWriter(dest));
+                    break;
+                default:
+                    dest = mutantsDir();
+                    writers.add(new MutantDirectoryWriter(dest));
+            }
+            if (probes) {
+                writers.add(new ProbeMutantWriter(probesDir()));
+            }
+            SubsumptionWriter subsumptionWriter = null;
+            if (subsume) {
+                subsumptionWriter = new SubsumptionWriter(subsumptionPath());
+                writers.add(subsumptionWriter);
+            } else {
+                // run reads whichever subsumption file is in outdir, so an
+                // earlier generation's must not outlive these mutants
+                Files.deleteIfExists(subsumptionPath());
+            }
+            if (baseline) {
+                Baseline original = Baseline.compile(sourceRoots, filenames, classpath, baselineDir());
+                List<String> mutantClasspath = new ArrayList<>();
+                mutantClasspath.add(original.getClassesDir().toString());
+                mutantClasspath.addAll(classpath);
+                writers.add(new CompilingMutantWriter(classesDir(),
+                        new MutantCompiler(mutantClasspath, new ArrayList<>()), original));
+            } else if (compile) {
+                writers.add(new CompilingMutantWriter(classesDir(), new MutantCompiler(classpath, sourceRoots)));
+            }
+            int numMutants = new MutationPipeline(this::newSession, threads, writers).run(filenames);
+            System.out.println("Generated " + numMutants + " mutants in " + dest);
+            if (coverage != null) {
+                System.out.println("Skipped " + coverage.getNumSkipped()
+                        + " mutation sites on lines that no test executes");
+            }
+            if (budget != null) {
+                System.out.println("Dropped " + budget.getNumDropped()
+                        + " product conditions over budget, keeping the highest priority ones");
+            }
+            if (subsumptionWriter != null) {
+                System.out.println(subsumptionWriter.getNumSubsumed() + " mutants are subsumed by the minimal "
+                        + "mutants of their methods; subsumers in " + subsumptionWriter.getFile());
+            }
+            if (pruner != null) {
+                System.out.println("Pruned " + pruner.getNumPruned() + " of " + pruner.getNumChecked()
+                        + " product conditions as unsatisfiable (" + pruner.getNumPrunedByPath()
+                        + " on the paths to their sites)");
+                System.out.println("Solved " + pruner.getService().getNumSolved() + " conditions in "
+                        + pruner.getService().getSolverMillis() + "ms; " + pruner.getService().getNumCached()
+                        + " were answered from earlier sites");
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing mutants to " + outdir);
+            e.printStackTrace();
+        } finally {
+            if (pruner != null) {
+                pruner.close();
+            } else if (subsumptionSolver != null) {
+                subsumptionSolver.close();
+            }
+        }
     }
 
-    List<Mutant> mutateFilenames() {
-        List<Mutant> mutants = new ArrayList<>();
+    /**
+     * Print how many mutants each method and file would produce, and about
+     * how many bytes they would be written in, without generating any.
+     * Files are planned on the generator threads, and reported in order.
+     */
+    void plan() {
+        long start = System.currentTimeMillis();
+        ThreadLocal<MutationSession> sessions = ThreadLocal.withInitial(this::newSession);
+        ExecutorService planners = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<MutationPlanner.FilePlan>> plans = new ArrayList<>();
         for (String filename : filenames) {
-            try {
-                mutants.addAll(mutator.mutateFile(filename));
-            } catch (IOException e) {
-                System.err.println("Error mutating file " + filename);
-                e.printStackTrace();
+            plans.add(planners.submit(() -> new MutationPlanner(sessions.get()).planFile(filename)));
+        }
+        long numMutants = 0;
+        long numDropped = 0;
+        long numBytes = 0;
+        int numFiles = 0;
+        try {
+            for (int i = 0; i < filenames.size(); i++) {
+                MutationPlanner.FilePlan filePlan;
+                try {
+                    filePlan = plans.get(i).get();
+                } catch (ExecutionException e) {
+                    System.err.println("Error planning file " + filenames.get(i));
+                    e.getCause().printStackTrace();
+                    continue;
+                }
+                System.out.println("Planning file " + filePlan.getFilename());
+                for (MutationPlanner.MethodPlan method : filePlan.getMethods()) {
+                    System.out.println("    " + method.getNumMutants() + " mutants for method " + method.getName()
+                            + (method.getNumDropped() > 0 ? " (dropped " + method.getNumDropped() + " over budget)"
+                                    : ""));
+                }
+                long bytes = filePlan.estimateBytes(outputMode);
+                System.out.println("  " + filePlan.getNumMutants() + " mutants at " + filePlan.getNumSites()
+                        + " sites, about " + bytes + " bytes");
+                numFiles += 1;
+                numMutants = MutationPlanner.add(numMutants, filePlan.getNumMutants());
+                numDropped = MutationPlanner.add(numDropped, filePlan.getNumDropped());
+                numBytes = MutationPlanner.add(numBytes, bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while planning");
+        } finally {
+            planners.shutdownNow();
+        }
+        System.out.println("Planned " + numMutants + " mutants in " + numFiles + " files, about " + numBytes
+                + " bytes of " + outputMode + " output, in " + (System.currentTimeMillis() - start) + "ms");
+        if (budget != null) {
+            System.out.println("Would drop " + numDropped + " product conditions over budget");
+        }
+        if (prune) {
+            System.out.println("Counts are before pruning unsatisfiable conditions");
+        }
+        if (coverage != null) {
+            System.out.println("Skipped " + coverage.getNumSkipped()
+                    + " mutation sites on lines that no test executes");
+        }
+    }
+
+    /**
+     * Recreate the requested mutants' source files from the patches of a
+     * previous run, in the same layout as the "files" output mode
+     */
+    void materialize() {
+        try {
+            PatchMaterializer materializer = new PatchMaterializer(patchesDir());
+            for (int mid : materializeMids) {
+                Path file = materializer.materialize(mid, mutantsDir().resolve(mid + ""));
+                System.out.println("Materialized mutant " + mid + " at " + file);
             }
+        } catch (IOException e) {
+            System.err.println("Error materializing mutants from " + patchesDir());
+            e.printStackTrace();
         }
-        return mutants;
     }
 
     Path mutantsDir() {
         return Paths.get(outdir).resolve("mutants");
     }
 
+    Path patchesDir() {
+        return Paths.get(outdir).resolve("patches");
+    }
+
+    Path schemataDir() {
+        return Paths.get(outdir).resolve("schemata");
+    }
+
+    Path probesDir() {
+        return Paths.get(outdir).resolve("probes");
+    }
+
+    Path classesDir() {
+        return Paths.get(outdir).resolve("classes");
+    }
+
+    Path baselineDir() {
+        return Paths.get(outdir).resolve("baseline");
+    }
+
+    Path subsumptionPath() {
+        return Paths.get(outdir).resolve(SubsumptionWriter.FILENAME);
+    }
+
     Path mutantsLogPath() {
         return Paths.get(outdir).resolve(mutantsLog);
     }
@@ -93,6 +366,92 @@ public class App {
                     System.exit(1);
                 }
                 sourceRoots.add(args[argIndex]);
+            } else if ("--threads".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --threads");
+                    System.exit(1);
+                }
+                try {
+                    threads = Integer.parseInt(args[argIndex]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid argument for --threads: " + args[argIndex]);
+                    System.exit(1);
+                }
+                if (threads < 1) {
+                    threads = Runtime.getRuntime().availableProcessors();
+                }
+            } else if ("--output".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --output");
+                    System.exit(1);
+                }
+                outputMode = args[argIndex];
+                if (!"files".equals(outputMode) && !"patch".equals(outputMode)
+                        && !"schemata".equals(outputMode)) {
+                    System.err.println("Unknown output mode: " + outputMode);
+                    System.exit(1);
+                }
+            } else if ("--compile".equals(args[argIndex])) {
+                compile = true;
+            } else if ("--baseline".equals(args[argIndex])) {
+                compile = true;
+                baseline = true;
+            } else if ("--coverage".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --coverage");
+                    System.exit(1);
+                }
+                coverageReport = args[argIndex];
+            } else if ("--site-budget".equals(args[argIndex])) {
+                argIndex += 1;
+                siteBudget = parseBudget(args, argIndex, "--site-budget");
+            } else if ("--method-budget".equals(args[argIndex])) {
+                argIndex += 1;
+                methodBudget = parseBudget(args, argIndex, "--method-budget");
+            } else if ("--file-budget".equals(args[argIndex])) {
+                argIndex += 1;
+                fileBudget = parseBudget(args, argIndex, "--file-budget");
+            } else if ("--product".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --product");
+                    System.exit(1);
+                }
+                productStrength = parseProduct(args[argIndex]);
+            } else if ("--prune".equals(args[argIndex])) {
+                prune = true;
+            } else if ("--subsume".equals(args[argIndex])) {
+                subsume = true;
+            } else if ("--probes".equals(args[argIndex])) {
+                probes = true;
+            } else if ("--plan".equals(args[argIndex])) {
+                plan = true;
+            } else if ("--classpath".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --classpath");
+                    System.exit(1);
+                }
+                for (String entry : args[argIndex].split(File.pathSeparator)) {
+                    if (!entry.isEmpty()) {
+                        classpath.add(entry);
+                    }
+                }
+            } else if ("--materialize".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --materialize");
+                    System.exit(1);
+                }
+                try {
+                    materializeMids.add(Integer.parseInt(args[argIndex]));
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid argument for --materialize: " + args[argIndex]);
+                    System.exit(1);
+                }
             } else {
                 filenames.add(args[argIndex]);
             }
@@ -100,70 +459,61 @@ public class App {
         }
     }
 
-    private void initializeSymbolResolver() {
-        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
-        typeSolver.add(new ReflectionTypeSolver());
-        for (String sourceRoot : sourceRoots) {
-            typeSolver.add(new JavaParserTypeSolver(sourceRoot));
-        }
-        StaticJavaParser.getParserConfiguration().setSymbolResolver(new JavaSymbolSolver(typeSolver));
+    MutationSession newSession() {
+        MutationSession session = new MutationSession(sourceRoots);
+        session.setCoverage(coverage);
+        session.setPruner(pruner);
+        session.setProductStrength(productStrength);
+        session.setBudget(budget);
+        session.setSubsumptionSolver(subsumptionSolver);
+        return session;
     }
 
-    Path makeMutantsDir() {
-        Path outdirPath = Paths.get(outdir);
-        Path mutantsDir = outdirPath.resolve("mutants");
-        if (!Files.exists(outdirPath)) {
-            try {
-                Files.createDirectories(outdirPath);
-                Files.createDirectories(mutantsDir);
-            } catch (IOException e) {
-                System.err.println("Error creating directory " + outdir);
-                e.printStackTrace();
-                return null;
-            }
+    /**
+     * @return the budget given for an option, which must be positive
+     */
+    static int parseBudget(String[] args, int argIndex, String option) {
+        if (argIndex >= args.length) {
+            System.err.println("Missing argument for " + option);
+            System.exit(1);
         }
-        return mutantsDir;
-    }
-
-    void writeMutantsToDisk(List<Mutant> mutants) {
-
-        Path mutantsDir = makeMutantsDir();
-
-        for (Mutant mutant : mutants) {
-            Path d = mutantsDir.resolve(mutant.getMid() + "");
-            if (Files.exists(d)) {
-                delete(d.toFile());
-            }
-            try {
-                Files.createDirectories(d);
-            } catch (IOException e) {
-                System.err.println("Error creating directory " + d);
-                e.printStackTrace();
-                return;
-            }
-            String mutantFileContents = mutant.asFileString();
-            Path mutantFilename = Paths.get(mutant.getSource().getFilename()).getFileName();
-            // Create a new file for the mutant
-            Path mutantFilePath = d.resolve(mutantFilename);
-            try {
-                Files.write(mutantFilePath, mutantFileContents.getBytes());
-            } catch (IOException e) {
-                System.err.println("Error writing file " + mutantFilePath);
-                e.printStackTrace();
-                return;
+        try {
+            int budget = Integer.parseInt(args[argIndex]);
+            if (budget > 0) {
+                return budget;
             }
+        } catch (NumberFormatException e) {
+            // Reported below
         }
-
+        System.err.println("Invalid argument for " + option + ": " + args[argIndex]);
+        System.exit(1);
+        return MutantBudget.UNLIMITED;
     }
 
-    private void delete(File f) {
-        if (f.isDirectory()) {
-            for (File c : f.listFiles()) {
-                delete(c);
-            }
+    /**
+     * @param mode "full", "t-way" for pairwise, or a strength such as
+     *             "3-way"
+     * @return the product strength, 0 for the full product
+     */
+    static int parseProduct(String mode) {
+        if ("full".equals(mode)) {
+            return 0;
+        }
+        if ("t-way".equals(mode) || "pairwise".equals(mode)) {
+            return 2;
         }
-        if (!f.delete()) {
-            System.out.println("Failed to delete file: " + f);
+        if (mode.endsWith("-way")) {
+            try {
+                int strength = Integer.parseInt(mode.substring(0, mode.length() - "-way".length()));
+                if (strength >= 1) {
+                    return strength;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
         }
+        System.err.println("Unknown product mode: " + mode);
+        System.exit(1);
+        return 0;
     }
 }
@@ -0,0 +1,232 @@
+package org.mutation_testing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.mutation_testing.mutate.CompactMutant;
+import org.mutation_testing.mutate.Mutant;
+import org.mutation_testing.mutate.MutationSession;
+import org.mutation_testing.output.MutantWriter;
+
+/**
+ * A streaming parse/mutate/write pipeline.
+ *
+ * <p>
+ * Files are parsed and mutated on a pool of generator threads, each with its
+ * own {@link MutationSession}. Generated files are handed to the writers in
+ * file order through a bounded queue, and every writer runs on its own thread
+ * behind its own bounded queue. Mutants are compacted on the generator
+ * thread, so a file's AST is unreachable as soon as the file is mutated, and
+ * the number of files in memory at once depends on the number of threads and
+ * not on the number of files.
+ */
+public class MutationPipeline {
+    private static final Future<List<CompactMutant>> END_OF_FILES = CompletableFuture.completedFuture(null);
+    private static final List<CompactMutant> END_OF_BATCHES = new ArrayList<>(0);
+
+    private final Supplier<MutationSession> sessionFactory;
+    private final int threads;
+    private final List<MutantWriter> writers;
+
+    /**
+     * How many files may wait in each queue
+     */
+    private final int queueCapacity;
+
+    public MutationPipeline(Supplier<MutationSession> sessionFactory, int threads, List<MutantWriter> writers) {
+        this.sessionFactory = sessionFactory;
+        this.threads = Math.max(1, threads);
+        this.writers = writers;
+        this.queueCapacity = 2 * this.threads;
+    }
+
+    /**
+     * Mutate every file and stream the mutants to the writers. Writers are
+     * closed when this returns.
+     *
+     * @param filenames the files to mutate
+     * @return the number of mutants generated
+     * @throws IOException if a writer fails
+     */
+    public int run(List<String> filenames) throws IOException {
+        ThreadLocal<MutationSession> session = ThreadLocal.withInitial(sessionFactory);
+        ExecutorService generators = Executors.newFixedThreadPool(threads);
+        BlockingQueue<Future<List<CompactMutant>>> generated = new ArrayBlockingQueue<>(queueCapacity);
+
+        List<WriterStage> stages = new ArrayList<>();
+        for (MutantWriter writer : writers) {
+            WriterStage stage = new WriterStage(writer, queueCapacity);
+            stages.add(stage);
+            stage.thread.start();
+        }
+
+        // Only submit a file once there is room in the queue, so that at most
+        // queueCapacity files are being generated or waiting to be written
+        Thread submitter = new Thread(() -> {
+            try {
+                for (String filename : filenames) {
+                    generated.put(generators.submit(() -> mutateFile(session.get(), filename)));
+                }
+                generated.put(END_OF_FILES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "msav-submitter");
+        submitter.setDaemon(true);
+        submitter.start();
+
+        int numMutants = 0;
+        try {
+            // Mutant ids are assigned here, in file order, so the output does
+            // not depend on scheduling
+            int mid = 1;
+            Future<List<CompactMutant>> next;
+            while ((next = generated.take()) != END_OF_FILES) {
+                List<CompactMutant> mutants = next.get();
+                for (CompactMutant mutant : mutants) {
+                    mutant.setMid(mid++);
+                }
+                numMutants += mutants.size();
+                for (WriterStage stage : stages) {
+                    stage.checkFailure();
+                    stage.queue.put(mutants);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while mutating files", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error mutating files", e.getCause());
+        } finally {
+            submitter.interrupt();
+            generators.shutdownNow();
+            finish(stages);
+        }
+
+        for (WriterStage stage : stages) {
+            stage.checkFailure();
+        }
+        return numMutants;
+    }
+
+    /**
+     * Mutate a file and compact its mutants before they leave the generator
+     * thread, so the file's AST can be collected as soon as it is mutated
+     */
+    private List<CompactMutant> mutateFile(MutationSession session, String filename) {
+        try {
+            List<Mutant> mutants = session.mutateFile(filename);
+            List<CompactMutant> compacted = new ArrayList<>(mutants.size());
+            Map<Mutant, CompactMutant> compactOf = new IdentityHashMap<>();
+            for (Mutant mutant : mutants) {
+                CompactMutant compact = mutant.compact();
+                compacted.add(compact);
+                compactOf.put(mutant, compact);
+            }
+            for (Mutant mutant : mutants) {
+                for (Mutant subsumer : mutant.getSubsumers()) {
+                    compactOf.get(mutant).addSubsumer(compactOf.get(subsumer));
+                }
+            }
+            return compacted;
+        } catch (IOException e) {
+            System.err.println("Error mutating file " + filename);
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Signal the end of input to every writer stage and wait for them to
+     * drain their queues and close their writers
+     */
+    private void finish(List<WriterStage> stages) {
+        boolean interrupted = false;
+        for (WriterStage stage : stages) {
+            while (true) {
+                try {
+                    stage.queue.put(END_OF_BATCHES);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (WriterStage stage : stages) {
+            while (true) {
+                try {
+                    stage.thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class WriterStage implements Runnable {
+        final MutantWriter writer;
+        final BlockingQueue<List<CompactMutant>> queue;
+        final Thread thread;
+        volatile Throwable failure;
+
+        WriterStage(MutantWriter writer, int capacity) {
+            this.writer = writer;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "msav-writer-" + writer.getClass().getSimpleName());
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<CompactMutant> batch;
+                while ((batch = queue.take()) != END_OF_BATCHES) {
+                    // Keep draining after a failure so that the producer never
+                    // blocks on a full queue
+                    if (failure == null) {
+                        try {
+                            writer.write(batch);
+                        } catch (Throwable t) {
+                            failure = t;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    writer.close();
+                } catch (Throwable t) {
+                    if (failure == null) {
+                        failure = t;
+                    }
+                }
+            }
+        }
+
+        void checkFailure() throws IOException {
+            Throwable t = failure;
+            if (t == null) {
+                return;
+            }
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            }
+            throw new IOException("Error writing mutants", t);
+        }
+    }
+}
@@ -1,17 +1,30 @@
 package org.mutation_testing;
 
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
 /**
- * A source file and accompanying data
+ * A source file and accompanying data.
+ *
+ * <p>
+ * The contents are kept in a single backing string together with an index
+ * of line start offsets. Slices of the contents are read-only views over the
+ * backing string, so splicing a mutant into the file never copies the
+ * unchanged text.
  */
 public class Source {
     String filename;
-    String contents;
-    private final String[] lines;
+    private final String contents;
+
+    /**
+     * The character offset at which each line starts
+     */
+    private final int[] lineStarts;
 
     public Source(String filename, String contents) {
         this.filename = filename;
         this.contents = contents;
-        this.lines = contents.split("\n");
+        this.lineStarts = computeLineStarts(contents);
     }
 
     public String getFilename() {
@@ -22,8 +35,94 @@ public class Source {
         return contents;
     }
 
+    /**
+     * @return the contents split at each "\n", computed on every call since
+     *         offsets are looked up in the line start index instead
+     */
     public String[] getLines() {
-        return lines;
+        return contents.split("\n");
+    }
+
+    /**
+     * @return the number of characters in the contents
+     */
+    public int length() {
+        return contents.length();
+    }
+
+    /**
+     * @return the number of lines in the contents
+     */
+    public int numLines() {
+        return lineStarts.length;
+    }
+
+    /**
+     * A read-only view of the characters between two offsets
+     *
+     * @param begin inclusive begin offset
+     * @param end   exclusive end offset
+     * @return a view over the backing string
+     */
+    public CharBuffer slice(int begin, int end) {
+        if (begin < 0 || end > contents.length() || begin > end) {
+            throw new IndexOutOfBoundsException("[" + begin + ", " + end + ") is not in " + filename);
+        }
+        return CharBuffer.wrap(contents, begin, end).slice();
     }
 
+    /**
+     * Convert a 1-based line and column, as reported by JavaParser, to a
+     * character offset into the contents
+     *
+     * @param line   1-based line number
+     * @param column 1-based column number
+     * @return the 0-based character offset
+     */
+    public int offsetOf(int line, int column) {
+        if (line < 1 || line > lineStarts.length) {
+            throw new IndexOutOfBoundsException("Line " + line + " is not in " + filename);
+        }
+        return lineStarts[line - 1] + column - 1;
+    }
+
+    /**
+     * @param offset a 0-based character offset
+     * @return the 1-based line containing the offset
+     */
+    public int lineOf(int offset) {
+        int i = Arrays.binarySearch(lineStarts, offset);
+        // A miss returns -(insertion point) - 1, and the offset belongs to
+        // the line before the insertion point
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * @param offset a 0-based character offset
+     * @return the 1-based column of the offset within its line
+     */
+    public int columnOf(int offset) {
+        return offset - lineStarts[lineOf(offset) - 1] + 1;
+    }
+
+    /**
+     * Lines end at "\n", "\r\n" or a lone "\r", as they do for JavaParser
+     */
+    private static int[] computeLineStarts(String contents) {
+        int[] starts = new int[16];
+        int numLines = 1;
+        for (int i = 0; i < contents.length(); i++) {
+            char c = contents.charAt(i);
+            if (c == '\r' && i + 1 < contents.length() && contents.charAt(i + 1) == '\n') {
+                continue;
+            }
+            if (c == '\n' || c == '\r') {
+                if (numLines == starts.length) {
+                    starts = Arrays.copyOf(starts, 2 * starts.length);
+                }
+                starts[numLines++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(starts, numLines);
+    }
 }
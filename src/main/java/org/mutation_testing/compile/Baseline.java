@@ -0,0 +1,86 @@
+package org.mutation_testing.compile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The original project, compiled once. Mutants are then compiled one file at
+ * a time against the baseline's class directory, and each mutant's output is
+ * reduced to an overlay of the class files that differ from the baseline.
+ */
+public class Baseline {
+    private final Path classesDir;
+
+    private Baseline(Path classesDir) {
+        this.classesDir = classesDir;
+    }
+
+    public Path getClassesDir() {
+        return classesDir;
+    }
+
+    /**
+     * Compile every source under the source roots, plus any other given
+     * files, into a class directory
+     *
+     * @param sourceRoots directories to compile every Java file under
+     * @param files       additional source files to compile
+     * @param classpath   library classpath
+     * @param classesDir  where to write the baseline's class files
+     * @return the compiled baseline
+     * @throws IOException if the original sources do not compile
+     */
+    public static Baseline compile(List<String> sourceRoots, List<String> files, List<String> classpath,
+            Path classesDir) throws IOException {
+        Set<Path> sources = new LinkedHashSet<>();
+        for (String root : sourceRoots) {
+            try (Stream<Path> walk = Files.walk(Paths.get(root))) {
+                sources.addAll(walk.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+                        .map(p -> p.toAbsolutePath().normalize())
+                        .collect(Collectors.toList()));
+            }
+        }
+        for (String file : files) {
+            sources.add(Paths.get(file).toAbsolutePath().normalize());
+        }
+
+        List<File> sourceFiles = new ArrayList<>();
+        for (Path source : sources) {
+            sourceFiles.add(source.toFile());
+        }
+
+        System.out.println("Compiling baseline of " + sourceFiles.size() + " files into " + classesDir);
+        MutantCompiler.Result result;
+        try (MutantCompiler compiler = new MutantCompiler(classpath, new ArrayList<>())) {
+            result = compiler.compileFiles(sourceFiles);
+        }
+        if (!result.isSuccess()) {
+            throw new IOException("The original sources do not compile:\n" + result.getDiagnostics());
+        }
+        CompilingMutantWriter.writeClasses(classesDir, result.getClasses());
+        return new Baseline(classesDir);
+    }
+
+    /**
+     * @param className a binary class name
+     * @param bytes     class file bytes
+     * @return true if the baseline has a byte-identical class file
+     */
+    public boolean isUnchanged(String className, byte[] bytes) throws IOException {
+        Path classFile = classesDir.resolve(className.replace('.', '/') + ".class");
+        if (!Files.isRegularFile(classFile) || Files.size(classFile) != bytes.length) {
+            return false;
+        }
+        return Arrays.equals(Files.readAllBytes(classFile), bytes);
+    }
+}
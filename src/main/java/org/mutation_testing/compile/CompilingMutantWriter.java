@@ -0,0 +1,118 @@
+package org.mutation_testing.compile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mutation_testing.mutate.CompactMutant;
+import org.mutation_testing.output.MutantWriter;
+
+/**
+ * Compile every mutant in memory and write its class files to
+ * {@code classes/MID/}. Mutants that do not compile are listed, with the
+ * compiler's first error, in {@code classes/failed.msav}.
+ *
+ * <p>
+ * With a {@link Baseline}, class files that are byte-identical to the
+ * baseline's are dropped, so {@code classes/MID/} is an overlay holding only
+ * the classes the mutant changed, to be put ahead of the baseline on the
+ * classpath.
+ */
+public class CompilingMutantWriter implements MutantWriter {
+    public static final String FAILED = "failed.msav";
+
+    private final Path classesDir;
+    private final MutantCompiler compiler;
+    private final Baseline baseline;
+    private final BufferedWriter failed;
+
+    private int numCompiled = 0;
+    private int numFailed = 0;
+
+    public CompilingMutantWriter(Path classesDir, MutantCompiler compiler) throws IOException {
+        this(classesDir, compiler, null);
+    }
+
+    /**
+     * @param classesDir where to write each mutant's classes
+     * @param compiler   the compiler to compile mutants with
+     * @param baseline   the compiled original project, or null to keep every
+     *                   class a mutant's file defines
+     */
+    public CompilingMutantWriter(Path classesDir, MutantCompiler compiler, Baseline baseline) throws IOException {
+        this.classesDir = classesDir;
+        this.compiler = compiler;
+        this.baseline = baseline;
+        Files.createDirectories(classesDir);
+        this.failed = Files.newBufferedWriter(classesDir.resolve(FAILED), Charset.defaultCharset());
+    }
+
+    @Override
+    public void write(List<CompactMutant> mutants) throws IOException {
+        for (CompactMutant mutant : mutants) {
+            StringBuilder contents = new StringBuilder(mutant.getSource().length() + 256);
+            mutant.appendFile(contents);
+            MutantCompiler.Result result = compiler.compile(mutant.getSource().getFilename(), contents);
+
+            if (!result.isSuccess()) {
+                numFailed += 1;
+                String diagnostics = result.getDiagnostics();
+                int newline = diagnostics.indexOf('\n');
+                failed.write(mutant.getMid() + "\t" + (newline < 0 ? diagnostics : diagnostics.substring(0, newline)));
+                failed.newLine();
+                continue;
+            }
+            numCompiled += 1;
+            Map<String, byte[]> classes = result.getClasses();
+            if (baseline != null) {
+                classes = new LinkedHashMap<>(classes);
+                for (Iterator<Map.Entry<String, byte[]>> it = classes.entrySet().iterator(); it.hasNext();) {
+                    Map.Entry<String, byte[]> e = it.next();
+                    if (baseline.isUnchanged(e.getKey(), e.getValue())) {
+                        it.remove();
+                    }
+                }
+            }
+            writeClasses(classesDir.resolve(mutant.getMid() + ""), classes);
+        }
+    }
+
+    /**
+     * Write class files under a directory, laid out by package
+     *
+     * @param dir     the output root
+     * @param classes class file bytes keyed by binary class name
+     */
+    public static void writeClasses(Path dir, Map<String, byte[]> classes) throws IOException {
+        for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+            Path classFile = dir.resolve(e.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, e.getValue());
+        }
+    }
+
+    public int getNumCompiled() {
+        return numCompiled;
+    }
+
+    public int getNumFailed() {
+        return numFailed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            failed.close();
+        } finally {
+            compiler.close();
+        }
+        System.out.println("Compiled " + numCompiled + " mutants into " + classesDir
+                + (numFailed > 0 ? " (" + numFailed + " failed to compile)" : ""));
+    }
+}
@@ -0,0 +1,227 @@
+package org.mutation_testing.compile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Compile mutated sources in memory with the system Java compiler.
+ *
+ * <p>
+ * A compiler keeps one {@link StandardJavaFileManager} for its whole
+ * lifetime, so the compiler is loaded and the classpath is opened and
+ * indexed once, no matter how many mutants are compiled. Sources are read
+ * from memory and class files are captured in memory; nothing touches the
+ * disk. Mutants of the same file define the same classes, so each mutant is
+ * still compiled in its own compilation task.
+ *
+ * <p>
+ * A compiler is not thread safe.
+ */
+public class MutantCompiler implements Closeable {
+
+    /**
+     * The outcome of compiling one source
+     */
+    public static class Result {
+        final boolean success;
+        final Map<String, byte[]> classes;
+        final String diagnostics;
+
+        Result(boolean success, Map<String, byte[]> classes, String diagnostics) {
+            this.success = success;
+            this.classes = classes;
+            this.diagnostics = diagnostics;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * @return class file bytes, keyed by binary class name
+         */
+        public Map<String, byte[]> getClasses() {
+            return classes;
+        }
+
+        public String getDiagnostics() {
+            return diagnostics;
+        }
+    }
+
+    private final JavaCompiler javac;
+    private final StandardJavaFileManager standardFileManager;
+    private final List<String> options = new ArrayList<>();
+
+    /**
+     * @param classpath  classpath entries the mutated sources compile
+     *                   against
+     * @param sourcepath source roots for types that are not on the
+     *                   classpath. Classes compiled from the source path are
+     *                   not part of the output.
+     */
+    public MutantCompiler(List<String> classpath, List<String> sourcepath) {
+        this.javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            throw new IllegalStateException("No system Java compiler; msav must run on a JDK to compile mutants");
+        }
+        this.standardFileManager = javac.getStandardFileManager(null, Locale.ROOT, Charset.defaultCharset());
+
+        options.add("-proc:none");
+        options.add("-implicit:none");
+        options.add("-nowarn");
+        if (!classpath.isEmpty()) {
+            options.add("-classpath");
+            options.add(String.join(File.pathSeparator, classpath));
+        }
+        if (!sourcepath.isEmpty()) {
+            options.add("-sourcepath");
+            options.add(String.join(File.pathSeparator, sourcepath));
+        }
+    }
+
+    /**
+     * Compile a single source file
+     *
+     * @param filename the source's file name; its last path element must
+     *                 match the name of any public class it declares
+     * @param contents the source text
+     * @return the compiled classes, or the diagnostics on failure
+     */
+    public Result compile(String filename, CharSequence contents) {
+        SourceObject source = new SourceObject(filename, contents);
+        ClassCapture capture = new ClassCapture(standardFileManager);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        boolean success = javac.getTask(null, capture, diagnostics, options, null,
+                Collections.singletonList(source)).call();
+        return new Result(success, capture.classes(), errors(diagnostics));
+    }
+
+    /**
+     * Compile a set of source files from disk together, capturing the
+     * classes in memory
+     *
+     * @param files the source files to compile
+     * @return the compiled classes, or the diagnostics on failure
+     */
+    public Result compileFiles(List<File> files) {
+        ClassCapture capture = new ClassCapture(standardFileManager);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Iterable<? extends JavaFileObject> sources = standardFileManager.getJavaFileObjectsFromFiles(files);
+
+        boolean success = javac.getTask(null, capture, diagnostics, options, null, sources).call();
+        return new Result(success, capture.classes(), errors(diagnostics));
+    }
+
+    private static String errors(DiagnosticCollector<JavaFileObject> diagnostics) {
+        StringBuilder messages = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR) {
+                String filename = d.getSource() == null ? "" : new File(d.getSource().getName()).getName();
+                messages.append(filename).append(':').append(d.getLineNumber()).append(": ")
+                        .append(d.getMessage(Locale.ROOT)).append('\n');
+            }
+        }
+        return messages.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        standardFileManager.close();
+    }
+
+    /**
+     * A source file held in memory
+     */
+    static class SourceObject extends SimpleJavaFileObject {
+        private final CharSequence contents;
+
+        SourceObject(String filename, CharSequence contents) {
+            super(URI.create("string:///" + new File(filename).getName()), Kind.SOURCE);
+            this.contents = contents;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return contents;
+        }
+    }
+
+    /**
+     * A class file held in memory
+     */
+    static class ClassObject extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassObject(String className) {
+            super(URI.create("mem:///" + className.replace('.', '/') + ".class"), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Route class output to memory, and read everything else through the
+     * shared standard file manager
+     */
+    static class ClassCapture extends ForwardingJavaFileManager<JavaFileManager> {
+        private final Map<String, ClassObject> outputs = new LinkedHashMap<>();
+
+        ClassCapture(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                FileObject sibling) throws IOException {
+            if (location == StandardLocation.CLASS_OUTPUT && kind == JavaFileObject.Kind.CLASS) {
+                ClassObject output = new ClassObject(className);
+                outputs.put(className, output);
+                return output;
+            }
+            return super.getJavaFileForOutput(location, className, kind, sibling);
+        }
+
+        /**
+         * The capture must not close the shared file manager
+         */
+        @Override
+        public void close() {
+        }
+
+        Map<String, byte[]> classes() {
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            for (Map.Entry<String, ClassObject> e : outputs.entrySet()) {
+                classes.put(e.getKey(), e.getValue().bytes.toByteArray());
+            }
+            return classes;
+        }
+    }
+}
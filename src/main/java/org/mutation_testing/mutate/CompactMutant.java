@@ -0,0 +1,244 @@
+package org.mutation_testing.mutate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import org.mutation_testing.Source;
+
+/**
+ * A mutant that does not retain any AST nodes. A {@link Mutant} keeps its
+ * original node alive, and through the node's parents the whole compilation
+ * unit and the resolver caches attached to it; a compact mutant keeps only
+ * character offsets and rendered text, so it can be held for as long as
+ * reporting needs it.
+ *
+ * <p>
+ * Every mutant at a site shares the site's original and infected text and
+ * most sites share conditions, so those strings are interned. A replacement
+ * of the form {@code ((condition) ? infected : (original))}, which is what
+ * {@link Mutator} produces, is stored as its parts and rendered on demand;
+ * any other replacement is stored verbatim.
+ */
+public class CompactMutant {
+    protected int mid;
+
+    /**
+     * The mutated file. This is shared by all of the file's mutants and
+     * holds only the file name and contents.
+     */
+    protected final Source source;
+
+    /**
+     * Character offsets of the replaced text: begin is inclusive, end is
+     * exclusive
+     */
+    protected final int begin;
+    protected final int end;
+
+    protected final String original;
+    protected final String condition;
+
+    /**
+     * The infected value when the replacement follows the conditional
+     * template, or else null
+     */
+    protected final String infected;
+
+    /**
+     * The verbatim replacement when it does not follow the conditional
+     * template, or else null
+     */
+    protected final String replacement;
+
+    protected final ConditionEvaluation conditionEvaluation;
+
+    /**
+     * The compact forms of {@link Mutant#getSubsumers()}, which are mutants
+     * of the same file
+     */
+    protected List<CompactMutant> subsumers = Collections.emptyList();
+
+    /**
+     * Create a mutant whose condition probes evaluate in a lambda
+     *
+     * @param mid         the mutant id
+     * @param source      the mutated file
+     * @param begin       inclusive begin offset of the replaced text
+     * @param end         exclusive end offset of the replaced text
+     * @param original    the rendered original expression
+     * @param replacement the rendered replacement
+     * @param condition   the rendered mutation condition, or null
+     */
+    public CompactMutant(int mid, Source source, int begin, int end, String original, String replacement,
+            String condition) {
+        this(mid, source, begin, end, original, replacement, condition, ConditionEvaluation.DEFERRED);
+    }
+
+    /**
+     * @param conditionEvaluation how probes may evaluate the condition
+     */
+    public CompactMutant(int mid, Source source, int begin, int end, String original, String replacement,
+            String condition, ConditionEvaluation conditionEvaluation) {
+        this.mid = mid;
+        this.source = source;
+        this.begin = begin;
+        this.end = end;
+        this.original = original.intern();
+        this.condition = condition == null ? null : condition.intern();
+
+        String infected = condition == null ? null : templateInfected(original, replacement, condition);
+        this.infected = infected == null ? null : infected.intern();
+        this.replacement = infected == null ? replacement : null;
+        this.conditionEvaluation = conditionEvaluation;
+    }
+
+    /**
+     * Extract X from a replacement of the form
+     * {@code ((condition) ? X : (original))}
+     */
+    private static String templateInfected(String original, String replacement, String condition) {
+        String prefix = "((" + condition + ") ? ";
+        String suffix = " : (" + original + "))";
+        if (replacement.length() > prefix.length() + suffix.length()
+                && replacement.startsWith(prefix) && replacement.endsWith(suffix)) {
+            return replacement.substring(prefix.length(), replacement.length() - suffix.length());
+        }
+        return null;
+    }
+
+    public int getMid() {
+        return mid;
+    }
+
+    public void setMid(int mid) {
+        this.mid = mid;
+    }
+
+    public List<CompactMutant> getSubsumers() {
+        return Collections.unmodifiableList(subsumers);
+    }
+
+    public void addSubsumer(CompactMutant subsumer) {
+        if (subsumers.isEmpty()) {
+            subsumers = new ArrayList<>(1);
+        }
+        subsumers.add(subsumer);
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public int getBegin() {
+        return begin;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public String getOriginal() {
+        return original;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public ConditionEvaluation getConditionEvaluation() {
+        return conditionEvaluation;
+    }
+
+    /**
+     * @return the infected value, when the replacement follows the
+     *         conditional template, or else null
+     */
+    public String getInfected() {
+        return infected;
+    }
+
+    public String getReplacement() {
+        if (replacement != null) {
+            return replacement;
+        }
+        StringBuilder sb = new StringBuilder();
+        try {
+            appendReplacement(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append the replacement text without first rendering it to a string
+     *
+     * @param out where to append the replacement
+     */
+    public void appendReplacement(Appendable out) throws IOException {
+        if (replacement != null) {
+            out.append(replacement);
+            return;
+        }
+        out.append("((").append(condition).append(") ? ").append(infected)
+                .append(" : (").append(original).append("))");
+    }
+
+    /**
+     * Append the mutated file: the source before the mutated expression, the
+     * replacement, and the source after the mutated expression. The unchanged
+     * parts are appended as views over the source's contents.
+     *
+     * @param out where to append the mutated file
+     */
+    public void appendFile(Appendable out) throws IOException {
+        out.append(source.slice(0, begin));
+        appendReplacement(out);
+        out.append(source.slice(end, source.length()));
+    }
+
+    public String asFileString() {
+        StringBuilder sb = new StringBuilder(source.length() + 2 * (end - begin) + 64);
+        try {
+            appendFile(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    private String position(int offset) {
+        return "(line " + source.lineOf(offset) + ",col " + source.columnOf(offset) + ")";
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner sj = new StringJoiner(",");
+        sj.add("" + mid)
+                .add(source.getFilename())
+                .add(position(begin))
+                .add(position(end - 1))
+                .add(original)
+                .add(getReplacement());
+
+        return sj.toString();
+    }
+
+    public String asMajorLogItem() {
+        StringJoiner sj = new StringJoiner(":");
+        String mutantLogString = original + " |==> " + getReplacement();
+        sj.add("" + mid)
+                .add("MSAV")
+                .add("")
+                .add("")
+                .add(source.getFilename())
+                .add(position(begin))
+                .add(mutantLogString);
+
+        return sj.toString();
+    }
+}
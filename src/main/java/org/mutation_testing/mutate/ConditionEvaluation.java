@@ -0,0 +1,29 @@
+package org.mutation_testing.mutate;
+
+/**
+ * How a probe evaluates a mutant's condition so that the probed program
+ * behaves exactly like the original. A mutant evaluates its condition before
+ * its site's original expression, so a condition that throws kills the
+ * mutant, but the probed program must not throw where the original does
+ * not.
+ */
+public enum ConditionEvaluation {
+    /**
+     * The condition cannot throw, so it is evaluated in place
+     */
+    INLINE,
+
+    /**
+     * The condition may throw, so it is evaluated in a lambda whose
+     * exceptions are caught; a condition that throws infects the mutant and
+     * changes what it does
+     */
+    DEFERRED,
+
+    /**
+     * The condition may throw and reads a local that is assigned after its
+     * declaration, which a lambda cannot capture, so it is not evaluated; the
+     * mutant is assumed to be infected whenever its site is reached
+     */
+    SKIPPED
+}
@@ -0,0 +1,163 @@
+package org.mutation_testing.mutate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mutation_testing.solver.SolverService;
+
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+/**
+ * Static subsumption between the mutants of one method. A mutant is infected
+ * exactly when its mutation condition holds, so if Z3 shows that one
+ * mutant's condition implies another's, every state that infects the first
+ * infects the second, and the first subsumes the second. Mutants whose
+ * conditions imply each other are equivalent; as in
+ * {@link org.mutation_testing.run.Subsumption}, each class is represented by
+ * its smallest mutant id, and a class is minimal if no other class's
+ * condition implies its own.
+ *
+ * <p>
+ * A site's conditions range over the same variables, but the type-range and
+ * predicate conditions of a variable's abstract values overlap, so its
+ * conditions need not exclude each other. Conditions of different sites are
+ * compared when they share a variable of the same type. The two sites read
+ * the variable at different times, so such an implication is a heuristic
+ * that the run confirms: a subsumed mutant is only reported killed by tests
+ * that were run against it.
+ */
+class ConditionSubsumption {
+    /**
+     * The most implications to decide per method; the pairs beyond it are
+     * assumed not to imply each other
+     */
+    static final int MAX_CHECKS = 4096;
+
+    private final SolverService solver;
+    private final List<Mutant> mutants = new ArrayList<>();
+    private final List<Map<String, ResolvedType>> types = new ArrayList<>();
+
+    /**
+     * For each mutant, by index, the mutants whose conditions it implies
+     */
+    private final Map<Integer, BitSet> implied = new HashMap<>();
+
+    private int numChecks = 0;
+
+    ConditionSubsumption(SolverService solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Add the mutants of one site
+     *
+     * @param siteTypes the type of each of the site's variables
+     */
+    void addSite(List<Mutant> siteMutants, Map<String, ResolvedType> siteTypes) {
+        for (Mutant mutant : siteMutants) {
+            if (mutant.getMutationCondition() == null) {
+                continue;
+            }
+            int i = mutants.size();
+            mutants.add(mutant);
+            types.add(siteTypes);
+            for (int j = 0; j < i; j++) {
+                if (implies(i, j)) {
+                    implied.computeIfAbsent(i, k -> new BitSet()).set(j);
+                }
+                if (implies(j, i)) {
+                    implied.computeIfAbsent(j, k -> new BitSet()).set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Link each mutant that is not minimal, or not its class's
+     * representative, to the minimal mutants that subsume it
+     *
+     * @return how many mutants were linked
+     */
+    int link() {
+        int n = mutants.size();
+        int[] representative = new int[n];
+        for (int i = 0; i < n; i++) {
+            representative[i] = i;
+            for (int j = 0; j < i; j++) {
+                if (representative[j] == j && isImplied(i, j) && isImplied(j, i)) {
+                    representative[i] = j;
+                    break;
+                }
+            }
+        }
+        BitSet minimal = new BitSet();
+        for (int r = 0; r < n; r++) {
+            if (representative[r] != r) {
+                continue;
+            }
+            boolean isMinimal = true;
+            for (int i = 0; i < n && isMinimal; i++) {
+                isMinimal = representative[i] == r || !isImplied(i, r);
+            }
+            if (isMinimal) {
+                minimal.set(r);
+            }
+        }
+
+        int numLinked = 0;
+        for (int j = 0; j < n; j++) {
+            if (minimal.get(j)) {
+                continue;
+            }
+            for (int r = minimal.nextSetBit(0); r >= 0; r = minimal.nextSetBit(r + 1)) {
+                if (representative[j] == r || isImplied(r, j)) {
+                    mutants.get(j).addSubsumer(mutants.get(r));
+                }
+            }
+            numLinked += mutants.get(j).getSubsumers().isEmpty() ? 0 : 1;
+        }
+        return numLinked;
+    }
+
+    private boolean isImplied(int premise, int conclusion) {
+        BitSet conclusions = implied.get(premise);
+        return conclusions != null && conclusions.get(conclusion);
+    }
+
+    private boolean implies(int premise, int conclusion) {
+        Map<String, ResolvedType> merged = merge(types.get(premise), types.get(conclusion));
+        if (merged == null || numChecks >= MAX_CHECKS) {
+            return false;
+        }
+        numChecks += 1;
+        Expression p = mutants.get(premise).getMutationCondition();
+        Expression c = mutants.get(conclusion).getMutationCondition();
+        return solver.implies(p, c, merged);
+    }
+
+    /**
+     * @return the variables of both sites, or null if they share none or a
+     *         shared variable has different types
+     */
+    private static Map<String, ResolvedType> merge(Map<String, ResolvedType> a, Map<String, ResolvedType> b) {
+        if (a == b) {
+            return a;
+        }
+        boolean shared = false;
+        Map<String, ResolvedType> merged = new HashMap<>(a);
+        for (Map.Entry<String, ResolvedType> e : b.entrySet()) {
+            ResolvedType other = merged.putIfAbsent(e.getKey(), e.getValue());
+            if (other != null) {
+                if (!other.describe().equals(e.getValue().describe())) {
+                    return null;
+                }
+                shared = true;
+            }
+        }
+        return shared ? merged : null;
+    }
+}
@@ -0,0 +1,159 @@
+package org.mutation_testing.mutate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Skip mutation sites on lines that no test executes. A mutant there can
+ * never be infected, so it survives without being written, compiled or run.
+ *
+ * <p>
+ * Coverage is read from either of:
+ * <ul>
+ * <li>a JaCoCo XML report, where a line is covered if it has any covered
+ * instructions</li>
+ * <li>a line-hit file, one {@code package/path/File.java:LINE} per covered
+ * line</li>
+ * </ul>
+ *
+ * <p>
+ * Files are identified by their package path and file name, so the report
+ * need not know where the sources are checked out. Files that the report
+ * does not mention are mutated in full. A filter is immutable apart from its
+ * count of skipped sites, and can be shared by every session.
+ */
+public class CoverageFilter {
+    private final Map<String, BitSet> coveredLines;
+    private final AtomicInteger numSkipped = new AtomicInteger();
+
+    CoverageFilter(Map<String, BitSet> coveredLines) {
+        this.coveredLines = coveredLines;
+    }
+
+    /**
+     * Read a JaCoCo XML report or a line-hit file
+     *
+     * @param report the coverage report
+     * @return the filter
+     * @throws IOException if the report cannot be read or parsed
+     */
+    public static CoverageFilter read(Path report) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(report, Charset.defaultCharset())) {
+            reader.mark(1);
+            int first = reader.read();
+            if (first == '<') {
+                return readJacoco(report);
+            }
+            reader.reset();
+            return readLineHits(reader);
+        }
+    }
+
+    static CoverageFilter readLineHits(BufferedReader reader) throws IOException {
+        Map<String, BitSet> coveredLines = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int colon = line.lastIndexOf(':');
+            try {
+                int number = Integer.parseInt(line.substring(colon + 1));
+                coveredLines.computeIfAbsent(line.substring(0, colon), k -> new BitSet()).set(number);
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IOException("Not a covered line: " + line);
+            }
+        }
+        return new CoverageFilter(coveredLines);
+    }
+
+    static CoverageFilter readJacoco(Path report) throws IOException {
+        Map<String, BitSet> coveredLines = new HashMap<>();
+        DefaultHandler handler = new DefaultHandler() {
+            String pkg = "";
+            BitSet lines = null;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("package".equals(qName)) {
+                    pkg = attributes.getValue("name");
+                } else if ("sourcefile".equals(qName)) {
+                    String name = attributes.getValue("name");
+                    lines = coveredLines.computeIfAbsent(pkg.isEmpty() ? name : pkg + "/" + name,
+                            k -> new BitSet());
+                } else if ("line".equals(qName) && lines != null) {
+                    String ci = attributes.getValue("ci");
+                    if (ci != null && Integer.parseInt(ci) > 0) {
+                        lines.set(Integer.parseInt(attributes.getValue("nr")));
+                    }
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                if ("sourcefile".equals(qName)) {
+                    lines = null;
+                } else if ("package".equals(qName)) {
+                    pkg = "";
+                }
+            }
+        };
+        try (InputStream in = Files.newInputStream(report)) {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            // JaCoCo reports name a DTD that is not shipped with them
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            SAXParser parser = factory.newSAXParser();
+            parser.parse(in, handler);
+        } catch (ParserConfigurationException | SAXException | NumberFormatException e) {
+            throw new IOException("Could not parse JaCoCo report " + report, e);
+        }
+        return new CoverageFilter(coveredLines);
+    }
+
+    /**
+     * Check whether any line of a mutation site was executed, and count the
+     * site as skipped if not
+     *
+     * @param file      the file's package path and name, as
+     *                  {@code package/path/File.java}
+     * @param beginLine the site's first line
+     * @param endLine   the site's last line
+     * @return true if the site should be mutated
+     */
+    public boolean isCovered(String file, int beginLine, int endLine) {
+        BitSet lines = coveredLines.get(file);
+        if (lines == null) {
+            return true;
+        }
+        int next = lines.nextSetBit(beginLine);
+        if (next >= 0 && next <= endLine) {
+            return true;
+        }
+        numSkipped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return how many mutation sites have been skipped as uncovered
+     */
+    public int getNumSkipped() {
+        return numSkipped.get();
+    }
+}
@@ -0,0 +1,59 @@
+package org.mutation_testing.mutate;
+
+import java.util.function.Supplier;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+
+/**
+ * A type solver that is only built the first time it is asked to solve a
+ * type. Building a {@code JavaParserTypeSolver} or a
+ * {@code ReflectionTypeSolver} loads and initializes much of the symbol
+ * solver, which a session that never resolves a type does not need to pay
+ * for.
+ */
+class LazyTypeSolver implements TypeSolver {
+    private final Supplier<TypeSolver> factory;
+    private TypeSolver parent;
+    private TypeSolver delegate;
+
+    LazyTypeSolver(Supplier<TypeSolver> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        if (this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        }
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        return delegate().tryToSolveType(name);
+    }
+
+    boolean isInitialized() {
+        return delegate != null;
+    }
+
+    private TypeSolver delegate() {
+        if (delegate == null) {
+            delegate = factory.get();
+            if (parent != null) {
+                delegate.setParent(parent);
+            }
+        }
+        return delegate;
+    }
+}
@@ -3,8 +3,9 @@ package org.mutation_testing.mutate;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.StringJoiner;
 
 import org.mutation_testing.Source;
 
@@ -19,10 +20,32 @@ public class Mutant {
     protected Expression mutationCondition;
     protected Source source;
 
+    /**
+     * The minimal mutants of the same method whose conditions imply this
+     * mutant's, if the session links them
+     */
+    protected List<Mutant> subsumers = Collections.emptyList();
+
+    /**
+     * How probes may evaluate the mutation condition
+     */
+    protected ConditionEvaluation conditionEvaluation = ConditionEvaluation.DEFERRED;
+
     public int getMid() {
         return mid;
     }
 
+    /**
+     * Reassign this mutant's id. Mutants generated in parallel are numbered
+     * independently by each worker and must be renumbered once they are
+     * collected.
+     *
+     * @param mid the new mutant id
+     */
+    public void setMid(int mid) {
+        this.mid = mid;
+    }
+
     public Node getOrigNode() {
         return origNode;
     }
@@ -39,6 +62,29 @@ public class Mutant {
         return source;
     }
 
+    public ConditionEvaluation getConditionEvaluation() {
+        return conditionEvaluation;
+    }
+
+    void setConditionEvaluation(ConditionEvaluation conditionEvaluation) {
+        this.conditionEvaluation = conditionEvaluation;
+    }
+
+    /**
+     * @return the minimal mutants that statically subsume this one: they are
+     *         infected whenever this one is infected
+     */
+    public List<Mutant> getSubsumers() {
+        return Collections.unmodifiableList(subsumers);
+    }
+
+    void addSubsumer(Mutant subsumer) {
+        if (subsumers.isEmpty()) {
+            subsumers = new ArrayList<>(1);
+        }
+        subsumers.add(subsumer);
+    }
+
     public Mutant(int mid, Source source, Node originalNode, Node replNode, Expression mutationCondition) {
         this.mid = mid;
         this.source = source;
@@ -47,8 +93,13 @@ public class Mutant {
         this.mutationCondition = mutationCondition;
     }
 
-    public String asFileString() {
-        String[] lines = source.getLines();
+    /**
+     * Render this mutant into a {@link CompactMutant} that no longer
+     * references any AST nodes
+     *
+     * @return the compact mutant
+     */
+    public CompactMutant compact() {
         Position begin;
         Position end;
 
@@ -59,59 +110,23 @@ public class Mutant {
             throw new IllegalStateException("Node has no begin or end position:" + origNode);
         }
 
-        int beginLine = begin.line - 1;
-        int beginColumn = begin.column - 1;
-        int endLine = end.line - 1;
-        int endColumn = end.column - 1;
-
-        StringJoiner sj = new StringJoiner("\n");
-
-        // First, get everything before the mutated node
-        for (int i = 0; i < beginLine; i++) {
-            sj.add(lines[i]);
-        }
-
-        // Now, build the mutated node's replacement string
-        StringBuilder replBuilder = new StringBuilder();
-        replBuilder.append(lines[beginLine].substring(0, beginColumn));
-        replBuilder.append(replNode.toString());
-        replBuilder.append(lines[endLine].substring(endColumn + 1));
-        sj.add(replBuilder.toString());
-
-        // Finally, get everything after the mutated node
-        for (int i = endLine + 1; i < lines.length; i++) {
-            sj.add(lines[i]);
-        }
+        String condition = mutationCondition == null ? null : mutationCondition.toString();
+        // JavaParser end positions are inclusive
+        return new CompactMutant(mid, source, source.offsetOf(begin.line, begin.column),
+                source.offsetOf(end.line, end.column) + 1, origNode.toString(), replNode.toString(), condition,
+                conditionEvaluation);
+    }
 
-        return sj.toString();
+    public String asFileString() {
+        return compact().asFileString();
     }
 
     public String toString() {
-        StringJoiner sj = new StringJoiner(",");
-        sj.add("" + mid)
-                .add(source.getFilename())
-                .add(origNode.getBegin().get().toString())
-                .add(origNode.getEnd().get().toString())
-                .add(origNode.toString())
-                .add(replNode.toString());
-
-        return sj.toString();
+        return compact().toString();
     }
 
     public String asMajorLogItem() {
-        StringJoiner sj = new StringJoiner(":");
-        String origString = origNode.toString();
-        String replString = replNode.toString();
-        String mutantLogString = origString + " |==> " + replString;
-        sj.add("" + mid)
-                .add("MSAV")
-                .add("")
-                .add("")
-                .add(this.source.getFilename())
-                .add(origNode.getBegin().get().toString())
-                .add(mutantLogString);
-
-        return sj.toString();
+        return compact().asMajorLogItem();
     }
 
     public static void writeMutantsLog(String logFile, List<Mutant> mutants) {
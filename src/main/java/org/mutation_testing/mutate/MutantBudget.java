@@ -0,0 +1,73 @@
+package org.mutation_testing.mutate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits on how many mutants a site, a method and a file may produce. A site
+ * may produce at most the smallest of its own limit and what is left of its
+ * method's and its file's; when its product has more conditions, the
+ * highest priority ones are kept (see
+ * {@link org.mutation_testing.state.StateProduct.Product#prioritized(int)}).
+ * Limits are applied after pruning, so infeasible conditions do not count
+ * against them.
+ *
+ * <p>
+ * A budget is immutable apart from its count of dropped conditions, and can
+ * be shared by every session.
+ */
+public class MutantBudget {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int perSite;
+    private final int perMethod;
+    private final int perFile;
+    private final AtomicLong numDropped = new AtomicLong();
+
+    /**
+     * @param perSite   the most mutants per site, or {@link #UNLIMITED}
+     * @param perMethod the most mutants per method, or {@link #UNLIMITED}
+     * @param perFile   the most mutants per file, or {@link #UNLIMITED}
+     */
+    public MutantBudget(int perSite, int perMethod, int perFile) {
+        this.perSite = perSite;
+        this.perMethod = perMethod;
+        this.perFile = perFile;
+    }
+
+    /**
+     * @param inMethod how many mutants the site's method already has, or -1
+     *                 if the site is not in a method
+     * @param inFile   how many mutants the site's file already has
+     * @return how many conditions the site may keep
+     */
+    int allowance(int inMethod, int inFile) {
+        int allowance = Math.min(perSite, perFile - inFile);
+        if (inMethod >= 0) {
+            allowance = Math.min(allowance, perMethod - inMethod);
+        }
+        return Math.max(0, allowance);
+    }
+
+    void recordDropped(long dropped) {
+        numDropped.addAndGet(dropped);
+    }
+
+    /**
+     * @return how many product conditions were dropped over budget
+     */
+    public long getNumDropped() {
+        return numDropped.get();
+    }
+
+    public int getPerSite() {
+        return perSite;
+    }
+
+    public int getPerMethod() {
+        return perMethod;
+    }
+
+    public int getPerFile() {
+        return perFile;
+    }
+}
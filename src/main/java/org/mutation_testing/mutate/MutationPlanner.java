@@ -0,0 +1,272 @@
+package org.mutation_testing.mutate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.mutation_testing.predicates.PredicateVisitor;
+import org.mutation_testing.state.Store;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+/**
+ * Count the mutants a {@link Mutator} would generate for a file without
+ * generating them. The planner visits the same mutation sites and builds the
+ * same {@link Store}s, honoring the session's coverage, product strength and
+ * budget, but only counts each site's product conditions from the number of
+ * abstract values of its variables; no condition or mutant is built.
+ *
+ * <p>
+ * The planner does not prune, so it applies the budget to every condition
+ * where the mutator applies it to the feasible ones. With a pruner the
+ * totals are upper bounds; a site may still keep more than its planned
+ * count when earlier sites of its method or file lose conditions to
+ * pruning. Output sizes are estimates: the length of a mutation condition
+ * is approximated from the names of the site's variables.
+ */
+public class MutationPlanner extends VoidVisitorAdapter<Void> {
+    /**
+     * Approximate characters per variable in a mutation condition besides
+     * its name, as in {@code x <= 4 && x != 1}
+     */
+    static final int CONDITION_CHARS_PER_VARIABLE = 10;
+
+    /**
+     * Characters a replacement adds to two copies of the original
+     * expression and its condition, as in {@code ((c) ? (e) + 97 : (e))}
+     */
+    static final int REPLACEMENT_OVERHEAD = 18;
+
+    /**
+     * Approximate characters of a mutant's log line, patch record or schema
+     * branch besides its text
+     */
+    static final int RECORD_OVERHEAD = 40;
+
+    /**
+     * The planned mutants of one method
+     */
+    public static class MethodPlan {
+        final String name;
+        long numMutants = 0;
+        long numDropped = 0;
+
+        MethodPlan(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getNumMutants() {
+            return numMutants;
+        }
+
+        /**
+         * @return how many product conditions the budget drops
+         */
+        public long getNumDropped() {
+            return numDropped;
+        }
+    }
+
+    /**
+     * The planned mutants of one file
+     */
+    public static class FilePlan {
+        final String filename;
+        final long sourceLength;
+        final List<MethodPlan> methods = new ArrayList<>();
+        long numMutants = 0;
+        long numDropped = 0;
+        long numSites = 0;
+
+        /**
+         * The total length of the original expressions and of the
+         * replacements of every mutant
+         */
+        long originalChars = 0;
+        long replacementChars = 0;
+
+        FilePlan(String filename, long sourceLength) {
+            this.filename = filename;
+            this.sourceLength = sourceLength;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public List<MethodPlan> getMethods() {
+            return Collections.unmodifiableList(methods);
+        }
+
+        /**
+         * @return the number of mutants, including those outside of methods
+         */
+        public long getNumMutants() {
+            return numMutants;
+        }
+
+        /**
+         * @return how many product conditions the budget drops
+         */
+        public long getNumDropped() {
+            return numDropped;
+        }
+
+        /**
+         * @return the number of mutation sites with at least one mutant
+         */
+        public long getNumSites() {
+            return numSites;
+        }
+
+        /**
+         * @param outputMode "files", "patch" or "schemata", as for the
+         *                   {@code --output} option
+         * @return roughly how many bytes the mutants' output and log take
+         */
+        public long estimateBytes(String outputMode) {
+            long records = add(replacementChars, multiply(numMutants, RECORD_OVERHEAD));
+            long log = add(records, add(originalChars, multiply(numMutants, filename.length())));
+            switch (outputMode) {
+                case "patch":
+                case "schemata":
+                    return add(log, add(sourceLength, records));
+                default:
+                    // A full copy of the file per mutant, with the site replaced
+                    long copies = multiply(numMutants, sourceLength);
+                    return add(log, add(copies, replacementChars - originalChars));
+            }
+        }
+    }
+
+    private final MutationSession session;
+
+    private FilePlan plan;
+    private MethodPlan method;
+    private String coveragePath;
+
+    public MutationPlanner(MutationSession session) {
+        this.session = session;
+    }
+
+    public FilePlan planFile(String filename) throws IOException {
+        String fileContents = new String(Files.readAllBytes(Paths.get(filename)));
+        return plan(filename, fileContents);
+    }
+
+    public FilePlan plan(String filename, String fileContents) {
+        CompilationUnit cu = session.parse(fileContents);
+        plan = new FilePlan(filename, fileContents.length());
+        coveragePath = cu.getPackageDeclaration()
+                .map(p -> p.getNameAsString().replace('.', '/') + "/")
+                .orElse("") + Paths.get(filename).getFileName();
+        try {
+            cu.accept(this, null);
+            return plan;
+        } finally {
+            plan = null;
+            method = null;
+            coveragePath = null;
+        }
+    }
+
+    @Override
+    public void visit(MethodDeclaration n, Void arg) {
+        if (method != null) {
+            throw new IllegalStateException("nested methods");
+        }
+        method = new MethodPlan(n.getSignature().asString());
+        super.visit(n, arg);
+        plan.methods.add(method);
+        method = null;
+    }
+
+    @Override
+    public void visit(BinaryExpr n, Void arg) {
+        planSite(n);
+    }
+
+    @Override
+    public void visit(MethodCallExpr n, Void arg) {
+        planSite(n);
+    }
+
+    /**
+     * Count a site's mutants the way {@link Mutator#select} keeps them
+     * without a pruner. As in the mutator, the expressions nested in a site
+     * are not visited.
+     */
+    private void planSite(Expression n) {
+        CoverageFilter coverage = session.getCoverage();
+        if (coverage != null && n.getRange().isPresent() && !coverage.isCovered(coveragePath,
+                n.getRange().get().begin.line, n.getRange().get().end.line)) {
+            return;
+        }
+        Store s = new Store(PredicateVisitor.collectPredicates(n));
+        long size = s.getProductSize(session.getProductStrength());
+        MutantBudget budget = session.getBudget();
+        if (budget != null) {
+            int allowance = budget.allowance(method == null ? -1 : clamp(method.numMutants), clamp(plan.numMutants));
+            if (size > allowance) {
+                long dropped = size - allowance;
+                plan.numDropped = add(plan.numDropped, dropped);
+                if (method != null) {
+                    method.numDropped = add(method.numDropped, dropped);
+                }
+                size = allowance;
+            }
+        }
+        if (size == 0) {
+            return;
+        }
+
+        int originalLength = n.toString().length();
+        int conditionLength = 0;
+        for (String name : s.getVariableTypes().keySet()) {
+            conditionLength += name.length() + CONDITION_CHARS_PER_VARIABLE;
+        }
+        plan.numSites += 1;
+        plan.numMutants = add(plan.numMutants, size);
+        plan.originalChars = add(plan.originalChars, multiply(size, originalLength));
+        plan.replacementChars = add(plan.replacementChars,
+                multiply(size, 2L * originalLength + conditionLength + REPLACEMENT_OVERHEAD));
+        if (method != null) {
+            method.numMutants = add(method.numMutants, size);
+        }
+    }
+
+    private static int clamp(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return a + b, or {@link Long#MAX_VALUE} if it overflows
+     */
+    public static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * @return a * b, or {@link Long#MAX_VALUE} if it overflows
+     */
+    static long multiply(long a, long b) {
+        try {
+            return Math.multiplyExact(a, b);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
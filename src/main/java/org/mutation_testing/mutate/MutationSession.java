@@ -0,0 +1,184 @@
+package org.mutation_testing.mutate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mutation_testing.solver.ConditionPruner;
+import org.mutation_testing.solver.SolverService;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+/**
+ * An embeddable mutation job. A session owns its parser, its type solver and
+ * its mutant id counter, and never touches the global {@code StaticJavaParser}
+ * configuration, so any number of sessions can run side by side in one JVM.
+ *
+ * <p>
+ * A session can be reused for any number of files; mutant ids keep counting
+ * up across calls until {@link #resetMids()} is called. Calls on a single
+ * session are serialized since the parser and the type solver caches are not
+ * thread safe. To mutate in parallel, give each thread its own session.
+ */
+public class MutationSession {
+    private final CombinedTypeSolver typeSolver;
+    private final JavaParser parser;
+    private final AtomicInteger nextMid = new AtomicInteger(1);
+    private CoverageFilter coverage;
+    private ConditionPruner pruner;
+    private int productStrength = 0;
+    private MutantBudget budget;
+    private SolverService subsumptionSolver;
+
+    /**
+     * Create a session that only resolves JDK types
+     */
+    public MutationSession() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Create a session that resolves JDK types and the types declared under
+     * each of the given source roots
+     *
+     * @param sourceRoots directories containing Java sources
+     */
+    public MutationSession(List<String> sourceRoots) {
+        this(defaultTypeSolver(sourceRoots));
+    }
+
+    public MutationSession(CombinedTypeSolver typeSolver) {
+        this.typeSolver = typeSolver;
+        this.parser = new JavaParser(new ParserConfiguration().setSymbolResolver(new JavaSymbolSolver(typeSolver)));
+    }
+
+    /**
+     * Resolve JDK types by reflection and project types from source. Each
+     * solver is built on its first lookup rather than up front.
+     */
+    static CombinedTypeSolver defaultTypeSolver(List<String> sourceRoots) {
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+        typeSolver.add(new LazyTypeSolver(ReflectionTypeSolver::new));
+        for (String sourceRoot : sourceRoots) {
+            typeSolver.add(new LazyTypeSolver(() -> new JavaParserTypeSolver(sourceRoot)));
+        }
+        return typeSolver;
+    }
+
+    public CombinedTypeSolver getTypeSolver() {
+        return typeSolver;
+    }
+
+    /**
+     * Only mutate sites on covered lines
+     *
+     * @param coverage the coverage to filter sites by, or null to mutate
+     *                 every site
+     */
+    public void setCoverage(CoverageFilter coverage) {
+        this.coverage = coverage;
+    }
+
+    public CoverageFilter getCoverage() {
+        return coverage;
+    }
+
+    /**
+     * Drop infeasible product conditions before creating mutants
+     *
+     * @param pruner the pruner to check conditions with, or null to keep
+     *               every condition
+     */
+    public void setPruner(ConditionPruner pruner) {
+        this.pruner = pruner;
+    }
+
+    public ConditionPruner getPruner() {
+        return pruner;
+    }
+
+    /**
+     * Combine the abstract values of a site's variables with a t-way
+     * covering array rather than their full product
+     *
+     * @param strength t, or 0 for the full product
+     */
+    public void setProductStrength(int strength) {
+        this.productStrength = strength;
+    }
+
+    public int getProductStrength() {
+        return productStrength;
+    }
+
+    /**
+     * Limit how many mutants each site, method and file produce
+     *
+     * @param budget the limits, or null to keep every condition
+     */
+    public void setBudget(MutantBudget budget) {
+        this.budget = budget;
+    }
+
+    public MutantBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Link each mutant to the mutants of its method whose conditions imply
+     * its own (see {@link Mutant#getSubsumers()})
+     *
+     * @param solver the solver to decide implications with, or null to not
+     *               link mutants
+     */
+    public void setSubsumptionSolver(SolverService solver) {
+        this.subsumptionSolver = solver;
+    }
+
+    public SolverService getSubsumptionSolver() {
+        return subsumptionSolver;
+    }
+
+    public synchronized List<Mutant> mutateFile(String filename) throws IOException {
+        return new Mutator(this).mutateFile(filename);
+    }
+
+    public synchronized List<Mutant> mutate(String filename, String fileContents) {
+        return new Mutator(this).mutate(filename, fileContents);
+    }
+
+    /**
+     * Restart mutant ids at 1
+     */
+    public void resetMids() {
+        nextMid.set(1);
+    }
+
+    /**
+     * Parse a compilation unit with this session's symbol resolver attached
+     *
+     * @param fileContents the source to parse
+     * @return the parsed compilation unit
+     * @throws ParseProblemException if the source does not parse
+     */
+    synchronized CompilationUnit parse(String fileContents) {
+        ParseResult<CompilationUnit> parsed = parser.parse(fileContents);
+        if (!parsed.isSuccessful() || !parsed.getResult().isPresent()) {
+            throw new ParseProblemException(parsed.getProblems());
+        }
+        return parsed.getResult().get();
+    }
+
+    int nextMid() {
+        return nextMid.getAndIncrement();
+    }
+}
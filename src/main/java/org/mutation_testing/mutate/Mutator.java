@@ -1,6 +1,7 @@
 package org.mutation_testing.mutate;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,6 +9,9 @@ import java.util.Map;
 import org.mutation_testing.Source;
 import org.mutation_testing.predicates.Predicate;
 import org.mutation_testing.predicates.PredicateVisitor;
+import org.mutation_testing.solver.ConditionPruner;
+import org.mutation_testing.solver.SolverService;
+import org.mutation_testing.state.StateProduct;
 import org.mutation_testing.state.Store;
 import org.mutation_testing.visitors.ExpressionPropertyVisitor;
 
@@ -15,7 +19,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.io.IOException;
 
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ParseProblemException;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.MethodDeclaration;
@@ -32,24 +36,27 @@ import com.github.javaparser.ast.expr.LongLiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.UnaryExpr;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
-import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.resolution.types.ResolvedType;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
 public class Mutator extends VoidVisitorAdapter<Void> {
-    protected int mid = 1;
+    protected final MutationSession session;
     protected Source source;
 
     protected ExpressionPropertyVisitor epv = new ExpressionPropertyVisitor();
     protected PredicateVisitor pv = new PredicateVisitor();
 
-    protected TypeSolver typeSolver = new CombinedTypeSolver(new ReflectionTypeSolver());
-    protected JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
-
     public Mutator() {
-        StaticJavaParser.getParserConfiguration().setSymbolResolver(symbolSolver);
+        this(new MutationSession());
+    }
+
+    /**
+     * Create a mutator that parses, resolves and numbers mutants through the
+     * given session
+     *
+     * @param session
+     */
+    public Mutator(MutationSession session) {
+        this.session = session;
     }
 
     /**
@@ -57,9 +64,16 @@ public class Mutator extends VoidVisitorAdapter<Void> {
      */
     protected List<Mutant> mutants = new ArrayList<>();
 
+    /**
+     * The current file's package path and name, which coverage reports
+     * identify it by
+     */
+    protected String coveragePath;
+
     protected void cleanup() {
         source = null;
         mutants = null;
+        coveragePath = null;
     }
 
     public List<Mutant> mutateFile(String filename) throws IOException {
@@ -73,7 +87,16 @@ public class Mutator extends VoidVisitorAdapter<Void> {
         this.source = new Source(filename, fileContents);
         mutants = new ArrayList<>();
 
-        CompilationUnit cu = StaticJavaParser.parse(fileContents);
+        CompilationUnit cu;
+        try {
+            cu = session.parse(fileContents);
+        } catch (ParseProblemException e) {
+            cleanup();
+            throw e;
+        }
+        coveragePath = cu.getPackageDeclaration()
+                .map(p -> p.getNameAsString().replace('.', '/') + "/")
+                .orElse("") + Paths.get(filename).getFileName();
         cu.accept(this, null);
 
         List<Mutant> result = mutants;
@@ -127,15 +150,37 @@ public class Mutator extends VoidVisitorAdapter<Void> {
     }
 
     protected void addAbstractValueMutant(Expression orig, Expression repl, Expression mutationCondition) {
-        Mutant mutant = new Mutant(mid, source, orig, repl, mutationCondition);
+        Mutant mutant = new Mutant(session.nextMid(), source, orig, repl, mutationCondition);
         mutants.add(mutant);
-        mid += 1;
     }
 
     protected Signature signature;
     NodeList<Parameter> parameters;
     Map<Expression, List<Expression>> store;
 
+    /**
+     * The branch conditions of the current method, when the session prunes
+     * conditions
+     */
+    PathConditions pathConditions;
+
+    /**
+     * The index in {@link #mutants} of the current method's first mutant, or
+     * -1 outside of methods
+     */
+    int methodStart = -1;
+
+    /**
+     * How many of the current method's conditions were dropped over budget
+     */
+    long methodDropped = 0;
+
+    /**
+     * The implications between the current method's conditions, when the
+     * session links subsumed mutants
+     */
+    ConditionSubsumption subsumption;
+
     @Override
     public void visit(MethodDeclaration n, Void arg) {
         if (signature != null) {
@@ -144,13 +189,95 @@ public class Mutator extends VoidVisitorAdapter<Void> {
         signature = n.getSignature();
         parameters = n.getParameters();
         store = new HashMap<>();
-        int midOld = mid;
+        pathConditions = session.getPruner() == null ? null : new PathConditions(n);
+        int numMutantsOld = mutants.size();
+        methodStart = numMutantsOld;
+        methodDropped = 0;
+        SolverService solver = session.getSubsumptionSolver();
+        subsumption = solver == null ? null : new ConditionSubsumption(solver);
         super.visit(n, arg);
+        int numSubsumed = subsumption == null ? 0 : subsumption.link();
         signature = null;
         parameters = null;
         store = null;
-        int midNew = mid;
-        System.out.println("    Mutated " + (midNew - midOld) + " mutants for method " + n.getName());
+        pathConditions = null;
+        subsumption = null;
+        methodStart = -1;
+        int numMutantsNew = mutants.size();
+        System.out.println("    Mutated " + (numMutantsNew - numMutantsOld) + " mutants for method " + n.getName()
+                + (methodDropped > 0 ? " (dropped " + methodDropped + " over budget)" : "")
+                + (numSubsumed > 0 ? " (" + numSubsumed + " subsumed)" : ""));
+    }
+
+    /**
+     * @return false if the session's coverage shows that no line of the
+     *         expression was executed
+     */
+    protected boolean isCovered(Expression n) {
+        CoverageFilter coverage = session.getCoverage();
+        if (coverage == null || !n.getRange().isPresent()) {
+            return true;
+        }
+        return coverage.isCovered(coveragePath, n.getRange().get().begin.line, n.getRange().get().end.line);
+    }
+
+    /**
+     * Prune the product first, then apply the session's budget to the
+     * feasible conditions, so that infeasible conditions do not use up the
+     * site's allowance. A product over budget is walked in order of
+     * priority, a growing prefix at a time, until enough of its conditions
+     * are feasible; the rest of it is never built.
+     *
+     * @return the feasible conditions, or their highest priority ones if
+     *         they exceed what the session's budget allows the site
+     */
+    protected Iterable<Expression> select(Expression site, Store store, StateProduct.Product product) {
+        MutantBudget budget = session.getBudget();
+        if (budget == null) {
+            return prune(site, store, product);
+        }
+        int allowance = budget.allowance(methodStart < 0 ? -1 : mutants.size() - methodStart, mutants.size());
+        if (product.boundedSize() <= allowance) {
+            return prune(site, store, product);
+        }
+        List<Expression> feasible = new ArrayList<>();
+        int examined = 0;
+        int limit = allowance;
+        while (true) {
+            List<Expression> chosen = product.prioritized(limit);
+            prune(site, store, chosen.subList(examined, chosen.size())).forEach(feasible::add);
+            examined = chosen.size();
+            if (feasible.size() >= allowance || examined < limit || limit == Integer.MAX_VALUE) {
+                break;
+            }
+            limit = (int) Math.min(2L * limit, Integer.MAX_VALUE);
+        }
+        // The conditions never checked are dropped, as are feasible ones over
+        // the allowance; the pruner counts the infeasible ones
+        long dropped = product.boundedSize() - examined;
+        if (feasible.size() > allowance) {
+            dropped += feasible.size() - allowance;
+            feasible = feasible.subList(0, allowance);
+        }
+        budget.recordDropped(dropped);
+        methodDropped += dropped;
+        return feasible;
+    }
+
+    /**
+     * @return the product conditions that the session's pruner does not
+     *         show to be unsatisfiable, alone or under the branch conditions
+     *         guarding the site
+     */
+    protected Iterable<Expression> prune(Expression site, Store store, Iterable<Expression> conditions) {
+        ConditionPruner pruner = session.getPruner();
+        if (pruner == null) {
+            return conditions;
+        }
+        Map<String, ResolvedType> types = store.getVariableTypes();
+        List<Expression> guards = pathConditions == null ? Collections.emptyList()
+                : pathConditions.guardsOf(site, types);
+        return pruner.prune(conditions, types, guards);
     }
 
     @Override
@@ -167,23 +294,49 @@ public class Mutator extends VoidVisitorAdapter<Void> {
         // assert ps.isPure();
         // assert !ps.hasUnhandledProperties();
 
+        if (!isCovered(n)) {
+            return;
+        }
         List<Predicate> predicates = PredicateVisitor.collectPredicates(n);
         Store s = new Store(predicates);
-        List<Expression> product = s.getProductConditions();
-        for (Expression condition : product) {
-            addMutantFromCondition(n, condition);
-        }
+        Iterable<Expression> product = select(n, s, s.getProduct(session.getProductStrength()));
+        addSiteMutants(n, s, product);
     }
 
     @Override
     public void visit(MethodCallExpr n, Void arg) {
+        if (!isCovered(n)) {
+            return;
+        }
         List<Predicate> predicates = PredicateVisitor.collectPredicates(n);
         Store s = new Store(predicates);
-        List<Expression> product = s.getProductConditions();
+        StateProduct.Product full = s.getProduct(session.getProductStrength());
         System.out.println("Predicates: " + predicates);
-        System.out.println("Product: " + product);
-        for (Expression condition : product) {
-            addMutantFromCondition(n, condition);
+        System.out.println("Product: " + full);
+        Iterable<Expression> product = select(n, s, full);
+        addSiteMutants(n, s, product);
+    }
+
+    /**
+     * Add a mutant for each of a site's conditions, decide how probes may
+     * evaluate them, and record them for static subsumption if the method's
+     * mutants are linked
+     */
+    protected void addSiteMutants(Expression site, Store store, Iterable<Expression> conditions) {
+        int siteStart = mutants.size();
+        for (Expression condition : conditions) {
+            addMutantFromCondition(site, condition);
+        }
+        if (mutants.size() == siteStart) {
+            return;
+        }
+        Map<String, ResolvedType> types = store.getVariableTypes();
+        ProbeSafety safety = new ProbeSafety(site);
+        for (Mutant mutant : mutants.subList(siteStart, mutants.size())) {
+            mutant.setConditionEvaluation(safety.evaluationOf(mutant.getMutationCondition(), types));
+        }
+        if (subsumption != null) {
+            subsumption.addSite(mutants.subList(siteStart, mutants.size()), types);
         }
     }
 }
@@ -0,0 +1,240 @@
+package org.mutation_testing.mutate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+/**
+ * The branch conditions that must hold whenever an expression in a method is
+ * evaluated. An expression is guarded by:
+ * <ul>
+ * <li>the condition of an {@code if} whose then branch contains it, and the
+ * negated condition of one whose else branch contains it</li>
+ * <li>the negated condition of an earlier {@code if} in an enclosing block,
+ * when that {@code if} has no else branch and its then branch always ends by
+ * returning, throwing, breaking or continuing</li>
+ * <li>the condition of a {@code while} loop whose body contains it</li>
+ * <li>the condition of a {@code ?:} and the left operand of a {@code &&} or
+ * {@code ||}, for expressions in their later operands</li>
+ * </ul>
+ *
+ * <p>
+ * A guard is only sound if it still holds when the expression is evaluated,
+ * so guards may only mention the method's parameters and locals that are
+ * declared once and never assigned after their declaration, literals, and
+ * calls on such names of type {@code String}, which is immutable. The
+ * conjuncts of a guard that mention anything else are dropped. Guards are
+ * collected up to the nearest enclosing lambda, class body or callable.
+ */
+class PathConditions {
+    /**
+     * Parameters and locals that keep the value they were declared with
+     */
+    private final Set<String> stableNames = new HashSet<>();
+
+    PathConditions(CallableDeclaration<?> method) {
+        Map<String, Integer> declarations = new HashMap<>();
+        for (Parameter parameter : method.getParameters()) {
+            declarations.merge(parameter.getNameAsString(), 1, Integer::sum);
+        }
+        for (VariableDeclarator variable : method.findAll(VariableDeclarator.class)) {
+            declarations.merge(variable.getNameAsString(), 1, Integer::sum);
+        }
+        for (Parameter parameter : method.findAll(Parameter.class)) {
+            if (parameter.getParentNode().orElse(null) != method) {
+                // Lambda and catch parameters
+                declarations.merge(parameter.getNameAsString(), 2, Integer::sum);
+            }
+        }
+        Set<String> assigned = new HashSet<>();
+        for (AssignExpr assign : method.findAll(AssignExpr.class)) {
+            if (assign.getTarget().isNameExpr()) {
+                assigned.add(assign.getTarget().asNameExpr().getNameAsString());
+            }
+        }
+        for (UnaryExpr unary : method.findAll(UnaryExpr.class)) {
+            if (isIncrementOrDecrement(unary) && unary.getExpression().isNameExpr()) {
+                assigned.add(unary.getExpression().asNameExpr().getNameAsString());
+            }
+        }
+        // A local that shadows a field may not be the name a guard refers to
+        enclosingType(method).ifPresent(type -> {
+            for (FieldDeclaration field : type.getFields()) {
+                for (VariableDeclarator variable : field.getVariables()) {
+                    assigned.add(variable.getNameAsString());
+                }
+            }
+        });
+        for (Map.Entry<String, Integer> e : declarations.entrySet()) {
+            if (e.getValue() == 1 && !assigned.contains(e.getKey())) {
+                stableNames.add(e.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return the innermost type declaration around a node
+     */
+    private static Optional<TypeDeclaration<?>> enclosingType(Node node) {
+        Optional<Node> parent = node.getParentNode();
+        while (parent.isPresent() && !(parent.get() instanceof TypeDeclaration)) {
+            parent = parent.get().getParentNode();
+        }
+        return parent.map(p -> (TypeDeclaration<?>) p);
+    }
+
+    /**
+     * @param site  the mutated expression
+     * @param types the types of the site's variables, used to tell which
+     *              calls are on strings
+     * @return the guards of the site that are sound to assume
+     */
+    List<Expression> guardsOf(Expression site, Map<String, ResolvedType> types) {
+        List<Expression> guards = new ArrayList<>();
+        Node child = site;
+        Optional<Node> parent = child.getParentNode();
+        while (parent.isPresent() && !isBoundary(parent.get())) {
+            Node p = parent.get();
+            if (p instanceof IfStmt) {
+                IfStmt ifStmt = (IfStmt) p;
+                if (child == ifStmt.getThenStmt()) {
+                    addGuard(ifStmt.getCondition(), true, types, guards);
+                } else if (ifStmt.getElseStmt().isPresent() && child == ifStmt.getElseStmt().get()) {
+                    addGuard(ifStmt.getCondition(), false, types, guards);
+                }
+            } else if (p instanceof WhileStmt && child == ((WhileStmt) p).getBody()) {
+                addGuard(((WhileStmt) p).getCondition(), true, types, guards);
+            } else if (p instanceof ConditionalExpr) {
+                ConditionalExpr conditional = (ConditionalExpr) p;
+                if (child == conditional.getThenExpr()) {
+                    addGuard(conditional.getCondition(), true, types, guards);
+                } else if (child == conditional.getElseExpr()) {
+                    addGuard(conditional.getCondition(), false, types, guards);
+                }
+            } else if (p instanceof BinaryExpr && child == ((BinaryExpr) p).getRight()) {
+                BinaryExpr binary = (BinaryExpr) p;
+                if (binary.getOperator() == BinaryExpr.Operator.AND) {
+                    addGuard(binary.getLeft(), true, types, guards);
+                } else if (binary.getOperator() == BinaryExpr.Operator.OR) {
+                    addGuard(binary.getLeft(), false, types, guards);
+                }
+            } else if (p instanceof BlockStmt) {
+                for (Statement earlier : ((BlockStmt) p).getStatements()) {
+                    if (earlier == child) {
+                        break;
+                    }
+                    if (earlier.isIfStmt() && !earlier.asIfStmt().getElseStmt().isPresent()
+                            && alwaysExits(earlier.asIfStmt().getThenStmt())) {
+                        addGuard(earlier.asIfStmt().getCondition(), false, types, guards);
+                    }
+                }
+            }
+            child = p;
+            parent = p.getParentNode();
+        }
+        return guards;
+    }
+
+    private void addGuard(Expression condition, boolean holds, Map<String, ResolvedType> types,
+            List<Expression> guards) {
+        if (holds) {
+            // Keep whichever conjuncts are sound on their own
+            while (condition.isEnclosedExpr()) {
+                condition = condition.asEnclosedExpr().getInner();
+            }
+            if (condition.isBinaryExpr() && condition.asBinaryExpr().getOperator() == BinaryExpr.Operator.AND) {
+                addGuard(condition.asBinaryExpr().getLeft(), true, types, guards);
+                addGuard(condition.asBinaryExpr().getRight(), true, types, guards);
+            } else if (isStable(condition, types)) {
+                guards.add(condition.clone());
+            }
+        } else if (isStable(condition, types)) {
+            guards.add(new UnaryExpr(new EnclosedExpr(condition.clone()),
+                    UnaryExpr.Operator.LOGICAL_COMPLEMENT));
+        }
+    }
+
+    /**
+     * @return true if the expression has the same value wherever it is
+     *         guarding
+     */
+    private boolean isStable(Expression condition, Map<String, ResolvedType> types) {
+        for (Node node : condition.findAll(Node.class)) {
+            if (node instanceof NameExpr) {
+                if (!stableNames.contains(((NameExpr) node).getNameAsString())) {
+                    return false;
+                }
+            } else if (node instanceof MethodCallExpr) {
+                Optional<Expression> scope = ((MethodCallExpr) node).getScope();
+                if (!scope.isPresent() || !scope.get().isNameExpr()) {
+                    return false;
+                }
+                ResolvedType type = types.get(scope.get().asNameExpr().getNameAsString());
+                if (type == null || !type.isReferenceType()
+                        || !"java.lang.String".equals(type.asReferenceType().getQualifiedName())) {
+                    return false;
+                }
+            } else if (node instanceof UnaryExpr && isIncrementOrDecrement((UnaryExpr) node)
+                    || node instanceof AssignExpr || node instanceof ObjectCreationExpr
+                    || node instanceof LambdaExpr || node instanceof Statement
+                    || node instanceof FieldAccessExpr
+                    || node instanceof ArrayAccessExpr) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean alwaysExits(Statement stmt) {
+        if (stmt.isBlockStmt()) {
+            List<Statement> statements = stmt.asBlockStmt().getStatements();
+            return !statements.isEmpty() && alwaysExits(statements.get(statements.size() - 1));
+        }
+        return stmt.isReturnStmt() || stmt.isThrowStmt() || stmt.isBreakStmt() || stmt.isContinueStmt();
+    }
+
+    private static boolean isBoundary(Node node) {
+        return node instanceof CallableDeclaration || node instanceof LambdaExpr || node instanceof TypeDeclaration
+                || node instanceof ObjectCreationExpr;
+    }
+
+    private static boolean isIncrementOrDecrement(UnaryExpr unary) {
+        switch (unary.getOperator()) {
+            case PREFIX_INCREMENT:
+            case PREFIX_DECREMENT:
+            case POSTFIX_INCREMENT:
+            case POSTFIX_DECREMENT:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.mutation_testing.mutate;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+/**
+ * Decide how the probes evaluate the conditions of a mutation site (see
+ * {@link ConditionEvaluation}). A condition cannot throw if it only combines
+ * literals and names of primitive type with operators other than division
+ * and remainder, and compares names of other types with {@code null}. A
+ * condition that may throw can be deferred to a lambda if the site reads no
+ * name that is assigned after its declaration anywhere in the outermost
+ * callable, initializer or lambda around the site; a field that shares its
+ * name with such a local is treated as the local.
+ */
+class ProbeSafety {
+    private final boolean capturable;
+
+    ProbeSafety(Expression site) {
+        Set<String> reassigned = reassignedNames(outermostScope(site));
+        boolean capturable = true;
+        for (NameExpr name : site.findAll(NameExpr.class)) {
+            if (reassigned.contains(name.getNameAsString())) {
+                capturable = false;
+                break;
+            }
+        }
+        this.capturable = capturable;
+    }
+
+    /**
+     * @param condition a condition at the site, or null
+     * @param types     the type of each of the site's variables
+     */
+    ConditionEvaluation evaluationOf(Expression condition, Map<String, ResolvedType> types) {
+        if (condition == null || cannotThrow(condition, types)) {
+            return ConditionEvaluation.INLINE;
+        }
+        return capturable ? ConditionEvaluation.DEFERRED : ConditionEvaluation.SKIPPED;
+    }
+
+    static boolean cannotThrow(Expression e, Map<String, ResolvedType> types) {
+        if (e.isLiteralExpr()) {
+            return true;
+        }
+        if (e.isNameExpr()) {
+            ResolvedType type = types.get(e.asNameExpr().getNameAsString());
+            return type != null && type.isPrimitive() || isComparedWithNull(e);
+        }
+        if (e.isEnclosedExpr()) {
+            return cannotThrow(e.asEnclosedExpr().getInner(), types);
+        }
+        if (e.isUnaryExpr()) {
+            return cannotThrow(e.asUnaryExpr().getExpression(), types);
+        }
+        if (e.isBinaryExpr()) {
+            BinaryExpr binary = e.asBinaryExpr();
+            return binary.getOperator() != BinaryExpr.Operator.DIVIDE
+                    && binary.getOperator() != BinaryExpr.Operator.REMAINDER
+                    && cannotThrow(binary.getLeft(), types) && cannotThrow(binary.getRight(), types);
+        }
+        if (e.isConditionalExpr()) {
+            ConditionalExpr conditional = e.asConditionalExpr();
+            return cannotThrow(conditional.getCondition(), types) && cannotThrow(conditional.getThenExpr(), types)
+                    && cannotThrow(conditional.getElseExpr(), types);
+        }
+        return false;
+    }
+
+    private static boolean isComparedWithNull(Expression name) {
+        Optional<Node> parent = name.getParentNode();
+        if (!parent.isPresent() || !(parent.get() instanceof BinaryExpr)) {
+            return false;
+        }
+        BinaryExpr comparison = (BinaryExpr) parent.get();
+        if (comparison.getOperator() != BinaryExpr.Operator.EQUALS
+                && comparison.getOperator() != BinaryExpr.Operator.NOT_EQUALS) {
+            return false;
+        }
+        Expression other = comparison.getLeft() == name ? comparison.getRight() : comparison.getLeft();
+        return other.isNullLiteralExpr();
+    }
+
+    /**
+     * @return the outermost callable, initializer or lambda around a node,
+     *         or the node itself if there is none
+     */
+    private static Node outermostScope(Node node) {
+        Node scope = node;
+        Optional<Node> parent = node.getParentNode();
+        while (parent.isPresent()) {
+            Node p = parent.get();
+            if (p instanceof CallableDeclaration || p instanceof InitializerDeclaration
+                    || p instanceof LambdaExpr) {
+                scope = p;
+            }
+            parent = p.getParentNode();
+        }
+        return scope;
+    }
+
+    /**
+     * @return the names assigned, incremented or decremented in a scope, and
+     *         the locals declared there without an initializer
+     */
+    private static Set<String> reassignedNames(Node scope) {
+        Set<String> names = new HashSet<>();
+        for (AssignExpr assign : scope.findAll(AssignExpr.class)) {
+            if (assign.getTarget().isNameExpr()) {
+                names.add(assign.getTarget().asNameExpr().getNameAsString());
+            }
+        }
+        for (UnaryExpr unary : scope.findAll(UnaryExpr.class)) {
+            if (isIncrementOrDecrement(unary) && unary.getExpression().isNameExpr()) {
+                names.add(unary.getExpression().asNameExpr().getNameAsString());
+            }
+        }
+        for (VariableDeclarator variable : scope.findAll(VariableDeclarator.class)) {
+            if (!variable.getInitializer().isPresent()
+                    && variable.getParentNode().orElse(null) instanceof VariableDeclarationExpr) {
+                names.add(variable.getNameAsString());
+            }
+        }
+        return names;
+    }
+
+    private static boolean isIncrementOrDecrement(UnaryExpr unary) {
+        switch (unary.getOperator()) {
+            case PREFIX_INCREMENT:
+            case PREFIX_DECREMENT:
+            case POSTFIX_INCREMENT:
+            case POSTFIX_DECREMENT:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.mutation_testing.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * An {@link Appendable} that encodes characters straight into a byte channel
+ * through a fixed-size buffer. Appended character sequences are wrapped, not
+ * copied, so writing a slice of a {@link org.mutation_testing.Source} costs no
+ * intermediate string.
+ *
+ * <p>
+ * An appender can be pointed at one channel after another with
+ * {@link #reset(WritableByteChannel)} so that its encoder and buffer are
+ * reused across files. It is not thread safe.
+ */
+public class ChannelAppender implements Appendable {
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer;
+    private WritableByteChannel channel;
+
+    public ChannelAppender(Charset charset) {
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocate(64 * 1024);
+    }
+
+    /**
+     * Start writing to a new channel
+     *
+     * @param channel the channel to write to
+     * @return this appender
+     */
+    public ChannelAppender reset(WritableByteChannel channel) {
+        this.channel = channel;
+        encoder.reset();
+        buffer.clear();
+        return this;
+    }
+
+    @Override
+    public ChannelAppender append(CharSequence csq) throws IOException {
+        CharBuffer in = csq instanceof CharBuffer ? ((CharBuffer) csq).duplicate() : CharBuffer.wrap(csq);
+        encode(in);
+        return this;
+    }
+
+    @Override
+    public ChannelAppender append(CharSequence csq, int start, int end) throws IOException {
+        encode(CharBuffer.wrap(csq, start, end));
+        return this;
+    }
+
+    @Override
+    public ChannelAppender append(char c) throws IOException {
+        encode(CharBuffer.wrap(new char[] { c }));
+        return this;
+    }
+
+    /**
+     * Flush everything appended so far to the channel. The channel is not
+     * closed.
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        encode(CharBuffer.allocate(0), true);
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+        drain();
+    }
+
+    private void encode(CharBuffer in) throws IOException {
+        encode(in, false);
+    }
+
+    private void encode(CharBuffer in, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(in, buffer, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
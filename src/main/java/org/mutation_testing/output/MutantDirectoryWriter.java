@@ -0,0 +1,57 @@
+package org.mutation_testing.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.mutation_testing.mutate.CompactMutant;
+
+/**
+ * Write each mutant as a full copy of its mutated source file, in a directory
+ * named after the mutant id
+ */
+public class MutantDirectoryWriter implements MutantWriter {
+    private final Path mutantsDir;
+    private final ChannelAppender appender = new ChannelAppender(Charset.defaultCharset());
+
+    public MutantDirectoryWriter(Path mutantsDir) throws IOException {
+        this.mutantsDir = mutantsDir;
+        Files.createDirectories(mutantsDir);
+    }
+
+    @Override
+    public void write(List<CompactMutant> mutants) throws IOException {
+        for (CompactMutant mutant : mutants) {
+            Path d = mutantsDir.resolve(mutant.getMid() + "");
+            if (Files.exists(d)) {
+                delete(d.toFile());
+            }
+            Files.createDirectories(d);
+            Path mutantFilename = Paths.get(mutant.getSource().getFilename()).getFileName();
+            // Create a new file for the mutant
+            Path mutantFilePath = d.resolve(mutantFilename);
+            try (FileChannel channel = FileChannel.open(mutantFilePath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                mutant.appendFile(appender.reset(channel));
+                appender.finish();
+            }
+        }
+    }
+
+    private void delete(File f) {
+        if (f.isDirectory()) {
+            for (File c : f.listFiles()) {
+                delete(c);
+            }
+        }
+        if (!f.delete()) {
+            System.out.println("Failed to delete file: " + f);
+        }
+    }
+}
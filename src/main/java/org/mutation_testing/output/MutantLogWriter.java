@@ -0,0 +1,36 @@
+package org.mutation_testing.output;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.mutation_testing.mutate.CompactMutant;
+
+/**
+ * Append each mutant's Major-style log item to the mutants log
+ */
+public class MutantLogWriter implements MutantWriter {
+    private final String logFile;
+    private final PrintWriter pw;
+
+    public MutantLogWriter(String logFile) throws IOException {
+        this.logFile = logFile;
+        this.pw = new PrintWriter(new FileWriter(logFile));
+    }
+
+    @Override
+    public void write(List<CompactMutant> mutants) throws IOException {
+        for (CompactMutant mutant : mutants) {
+            pw.println(mutant.asMajorLogItem());
+        }
+        if (pw.checkError()) {
+            throw new IOException("Error writing mutants log file " + logFile);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        pw.close();
+    }
+}
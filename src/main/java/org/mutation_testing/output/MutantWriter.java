@@ -0,0 +1,27 @@
+package org.mutation_testing.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import org.mutation_testing.mutate.CompactMutant;
+
+/**
+ * A sink for generated mutants. Mutants are handed over one file at a time,
+ * in mutant id order. Mutants reach writers in their compact form, which does
+ * not keep the file's AST alive.
+ */
+public interface MutantWriter extends Closeable {
+
+    /**
+     * Write the mutants generated for a single source file
+     *
+     * @param mutants the file's mutants, possibly empty
+     * @throws IOException
+     */
+    void write(List<CompactMutant> mutants) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,218 @@
+package org.mutation_testing.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mutation_testing.Source;
+
+/**
+ * Apply patches written by a {@link PatchMutantWriter} to recreate mutated
+ * source files on demand
+ */
+public class PatchMaterializer {
+    private final Path patchDir;
+
+    /**
+     * Map file indices to the original path of each source
+     */
+    private final Map<Integer, String> sourceNames = new HashMap<>();
+
+    private final ChannelAppender appender = new ChannelAppender(Charset.defaultCharset());
+
+    /**
+     * The most recently loaded source. Mutants of the same file have
+     * consecutive ids, so this is usually the next one needed.
+     */
+    private int cachedIndex = -1;
+    private Source cachedSource;
+
+    /**
+     * The id of every mutant with a patch, in increasing order, and the byte
+     * offset of its record in the patches file. Built on the first lookup.
+     */
+    private int[] indexedMids;
+    private long[] indexedOffsets;
+
+    public PatchMaterializer(Path patchDir) throws IOException {
+        this.patchDir = patchDir;
+        try (BufferedReader reader = Files.newBufferedReader(patchDir.resolve(PatchMutantWriter.SOURCES_INDEX),
+                Charset.defaultCharset())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 2);
+                sourceNames.put(Integer.parseInt(fields[0]), fields[1]);
+            }
+        }
+    }
+
+    /**
+     * Find the patch for a mutant. The patches file is scanned once for the
+     * offset of every record, and each lookup reads only its own record.
+     *
+     * @param mid the mutant id
+     * @return the mutant's patch record
+     * @throws NoSuchFileException if there is no patch for the mutant
+     */
+    public PatchRecord find(int mid) throws IOException {
+        if (indexedMids == null) {
+            buildIndex();
+        }
+        int i = Arrays.binarySearch(indexedMids, mid);
+        if (i < 0) {
+            throw new NoSuchFileException("No patch for mutant " + mid + " in " + patchDir);
+        }
+        try (FileChannel channel = FileChannel.open(patchDir.resolve(PatchMutantWriter.PATCHES),
+                StandardOpenOption.READ)) {
+            channel.position(indexedOffsets[i]);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            boolean endOfLine = false;
+            while (!endOfLine && channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        endOfLine = true;
+                        break;
+                    }
+                    line.write(b);
+                }
+                buffer.clear();
+            }
+            String record = new String(line.toByteArray(), Charset.defaultCharset());
+            if (record.endsWith("\r")) {
+                record = record.substring(0, record.length() - 1);
+            }
+            return PatchRecord.parse(record);
+        }
+    }
+
+    /**
+     * Record the mutant id and the offset of every line of the patches
+     * file. Records are written in mutant id order; they are sorted if not.
+     */
+    private void buildIndex() throws IOException {
+        int[] mids = new int[1024];
+        long[] offsets = new long[1024];
+        int size = 0;
+        boolean sorted = true;
+        try (InputStream in = new BufferedInputStream(
+                Files.newInputStream(patchDir.resolve(PatchMutantWriter.PATCHES)))) {
+            long position = 0;
+            long lineStart = 0;
+            int mid = 0;
+            boolean inMid = true;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    lineStart = position + 1;
+                    mid = 0;
+                    inMid = true;
+                } else if (inMid) {
+                    if (b >= '0' && b <= '9') {
+                        mid = mid * 10 + (b - '0');
+                    } else if (b == '\t') {
+                        if (size == mids.length) {
+                            mids = Arrays.copyOf(mids, 2 * size);
+                            offsets = Arrays.copyOf(offsets, 2 * size);
+                        }
+                        sorted &= size == 0 || mids[size - 1] < mid;
+                        mids[size] = mid;
+                        offsets[size] = lineStart;
+                        size += 1;
+                        inMid = false;
+                    } else {
+                        throw new IOException("Malformed patch record at offset " + lineStart + " in " + patchDir);
+                    }
+                }
+                position += 1;
+            }
+        }
+        if (!sorted) {
+            long[] pairs = new long[size];
+            for (int i = 0; i < size; i++) {
+                pairs[i] = ((long) mids[i] << 32) | i;
+            }
+            Arrays.sort(pairs);
+            int[] sortedMids = new int[size];
+            long[] sortedOffsets = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedMids[i] = (int) (pairs[i] >>> 32);
+                sortedOffsets[i] = offsets[(int) pairs[i]];
+            }
+            mids = sortedMids;
+            offsets = sortedOffsets;
+        }
+        indexedMids = Arrays.copyOf(mids, size);
+        indexedOffsets = Arrays.copyOf(offsets, size);
+    }
+
+    /**
+     * Write a mutated source file into a directory
+     *
+     * @param mid     the mutant id
+     * @param destDir the directory to write the mutated file to
+     * @return the path of the mutated file
+     */
+    public Path materialize(int mid, Path destDir) throws IOException {
+        PatchRecord record = find(mid);
+        Source source = loadSource(record.fileIndex);
+        Files.createDirectories(destDir);
+        Path file = destDir.resolve(Paths.get(source.getFilename()).getFileName());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            apply(record, source, appender.reset(channel));
+            appender.finish();
+        }
+        return file;
+    }
+
+    /**
+     * Render a mutated source file as a string
+     *
+     * @param mid the mutant id
+     * @return the mutated file's contents
+     */
+    public String materialize(int mid) throws IOException {
+        PatchRecord record = find(mid);
+        Source source = loadSource(record.fileIndex);
+        StringBuilder sb = new StringBuilder(source.length() + record.replacement.length());
+        apply(record, source, sb);
+        return sb.toString();
+    }
+
+    private void apply(PatchRecord record, Source source, Appendable out) throws IOException {
+        out.append(source.slice(0, record.offset));
+        out.append(record.replacement);
+        out.append(source.slice(record.offset + record.length, source.length()));
+    }
+
+    private Source loadSource(int fileIndex) throws IOException {
+        if (fileIndex == cachedIndex) {
+            return cachedSource;
+        }
+        String name = sourceNames.get(fileIndex);
+        if (name == null) {
+            throw new NoSuchFileException("No source " + fileIndex + " in " + patchDir);
+        }
+        Path file = patchDir.resolve(PatchMutantWriter.SOURCES_DIR).resolve(fileIndex + "")
+                .resolve(Paths.get(name).getFileName());
+        cachedSource = new Source(name, new String(Files.readAllBytes(file), Charset.defaultCharset()));
+        cachedIndex = fileIndex;
+        return cachedSource;
+    }
+}
@@ -0,0 +1,84 @@
+package org.mutation_testing.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.mutation_testing.Source;
+import org.mutation_testing.mutate.CompactMutant;
+
+/**
+ * Write each original source once, plus one {@link PatchRecord} per mutant.
+ * Use a {@link PatchMaterializer} to turn a patch back into a mutated file.
+ *
+ * <p>
+ * The patch directory contains:
+ * <ul>
+ * <li><b>sources/N/Name.java</b>: the N-th mutated source file</li>
+ * <li><b>sources.msav</b>: one line per source, {@code N<TAB>original path}</li>
+ * <li><b>patches.msav</b>: one patch record per mutant, in mutant id order</li>
+ * </ul>
+ */
+public class PatchMutantWriter implements MutantWriter {
+    public static final String SOURCES_DIR = "sources";
+    public static final String SOURCES_INDEX = "sources.msav";
+    public static final String PATCHES = "patches.msav";
+
+    private final Path patchDir;
+    private final BufferedWriter sourcesIndex;
+    private final BufferedWriter patches;
+    private final ChannelAppender appender = new ChannelAppender(Charset.defaultCharset());
+    private int fileIndex = 0;
+
+    public PatchMutantWriter(Path patchDir) throws IOException {
+        this.patchDir = patchDir;
+        Files.createDirectories(patchDir.resolve(SOURCES_DIR));
+        this.sourcesIndex = Files.newBufferedWriter(patchDir.resolve(SOURCES_INDEX), Charset.defaultCharset());
+        this.patches = Files.newBufferedWriter(patchDir.resolve(PATCHES), Charset.defaultCharset());
+    }
+
+    @Override
+    public void write(List<CompactMutant> mutants) throws IOException {
+        if (mutants.isEmpty()) {
+            return;
+        }
+        fileIndex += 1;
+        Source source = mutants.get(0).getSource();
+        writeSource(source);
+
+        for (CompactMutant mutant : mutants) {
+            PatchRecord record = new PatchRecord(mutant.getMid(), fileIndex, mutant.getBegin(),
+                    mutant.getEnd() - mutant.getBegin(), mutant.getReplacement());
+            patches.write(record.format());
+            patches.newLine();
+        }
+    }
+
+    private void writeSource(Source source) throws IOException {
+        Path dir = patchDir.resolve(SOURCES_DIR).resolve(fileIndex + "");
+        Files.createDirectories(dir);
+        Path file = dir.resolve(Paths.get(source.getFilename()).getFileName());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            appender.reset(channel).append(source.slice(0, source.length()));
+            appender.finish();
+        }
+        sourcesIndex.write(fileIndex + "\t" + source.getFilename());
+        sourcesIndex.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sourcesIndex.close();
+        } finally {
+            patches.close();
+        }
+    }
+}
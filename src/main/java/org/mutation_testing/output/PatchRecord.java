@@ -0,0 +1,89 @@
+package org.mutation_testing.output;
+
+/**
+ * A single mutant as a patch against its original source: replace
+ * {@code length} characters at {@code offset} with {@code replacement}.
+ *
+ * <p>
+ * Records are stored one per line as tab separated fields:
+ * {@code mid, file index, offset, length, replacement}. Backslashes, tabs
+ * and line breaks in the replacement are escaped.
+ */
+public class PatchRecord {
+    public final int mid;
+    public final int fileIndex;
+    public final int offset;
+    public final int length;
+    public final String replacement;
+
+    public PatchRecord(int mid, int fileIndex, int offset, int length, String replacement) {
+        this.mid = mid;
+        this.fileIndex = fileIndex;
+        this.offset = offset;
+        this.length = length;
+        this.replacement = replacement;
+    }
+
+    public String format() {
+        return mid + "\t" + fileIndex + "\t" + offset + "\t" + length + "\t" + escape(replacement);
+    }
+
+    public static PatchRecord parse(String line) {
+        String[] fields = line.split("\t", 5);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Malformed patch record: " + line);
+        }
+        return new PatchRecord(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]),
+                Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), unescape(fields[4]));
+    }
+
+    static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 == s.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = s.charAt(++i);
+            switch (next) {
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                default:
+                    sb.append(next);
+            }
+        }
+        return sb.toString();
+    }
+}
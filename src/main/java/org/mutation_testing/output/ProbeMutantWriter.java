@@ -0,0 +1,594 @@
+package org.mutation_testing.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.mutation_testing.mutate.CompactMutant;
+import org.mutation_testing.mutate.ConditionEvaluation;
+
+/**
+ * Write a probed copy of each source file, in the same layout as
+ * {@link SchemataMutantWriter}. Every mutation site is replaced by an
+ * expression that evaluates each of the site's mutation conditions, then the
+ * original expression exactly once, and then checks which infected mutants
+ * would change its value:
+ *
+ * <pre>
+ * msav.Probes.exit(7, msav.Probes.keep(7, msav.Probes.enter(7)
+ *         &amp; msav.Probes.hit(0, 3, (cond 3)) &amp; msav.Probes.hit(1, 4, (cond 4)),
+ *         (original)),
+ *     (msav.Probes.shift(0, 3, 97)) | (msav.Probes.infected(1) &amp;&amp; msav.Probes.differs(4, (infected 4))) | false)
+ * </pre>
+ *
+ * <p>
+ * {@code enter} opens a frame for the site on the current thread. {@code hit}
+ * records that the mutant was reached, and infected if its condition holds.
+ * {@code keep} stores the original value in the frame and returns it, and
+ * {@code exit} closes the frame and returns the value again, so the probed
+ * program computes the same values as the original and performs the
+ * original expression's side effects once.
+ *
+ * <p>
+ * A condition that may throw is evaluated in a lambda,
+ * {@code msav.Probes.hit(0, 3, () -> (cond 3))}, so that the probed program
+ * does not throw where the original does not. The mutant evaluates its
+ * condition first, so a condition that throws infects it and changes what it
+ * does. A condition that may throw but reads a local that a lambda cannot
+ * capture is not evaluated, {@code msav.Probes.unchecked(0, 3)}: the mutant
+ * is taken to be infected whenever its site is reached, so that it still
+ * runs against the test, but is never weakly killed by it (see
+ * {@link ConditionEvaluation}).
+ *
+ * <p>
+ * The checks only run for infected mutants and never evaluate the original
+ * expression: a mutant following the conditional template of
+ * {@link org.mutation_testing.mutate.Mutator} is checked against the kept
+ * value ({@code negate} for {@code !(e)}, {@code shift} for {@code (e) + k}),
+ * and any other infected expression of a mutant whose condition is evaluated
+ * in place is evaluated, as the mutant would, and compared with it by
+ * {@code differs}. An infected expression that contains
+ * the original expression in another form, and a replacement that does not
+ * follow the template, and any other infected expression, which may throw,
+ * are counted as weakly killed whenever infected ({@code always}). A mutant without a condition is infected whenever its
+ * site is reached.
+ *
+ * <p>
+ * A mutant only differs from the original when its condition holds, so
+ * running a test on the probed program tells which mutants the test infects.
+ * The recorded mutant ids are shared by all threads without locks; the
+ * frames are per thread, and a frame left open by an exception is dropped
+ * when an enclosing frame is next used. A site that catches an exception
+ * thrown by a recursive evaluation of itself may check its mutants against
+ * the inner frame.
+ *
+ * <p>
+ * Besides the schemata layout, the probes directory has
+ * {@code mutants.msav}, one line per probed mutant,
+ * {@code mid<TAB>source index}.
+ */
+public class ProbeMutantWriter extends SchemataMutantWriter {
+    public static final String RUNTIME_CLASS = "msav.Probes";
+    public static final String MUTANTS_INDEX = "mutants.msav";
+
+    /**
+     * Probes are kept per class loader, so each test should run in a fresh
+     * loader or drain the probes of the previous test first
+     */
+    static final String RUNTIME_SOURCE = "package msav;\n"
+            + "\n"
+            + "import java.util.Arrays;\n"
+            + "import java.util.concurrent.atomic.AtomicLongArray;\n"
+            + "\n"
+            + "public final class Probes {\n"
+            + "    private static final Bits REACHED = new Bits();\n"
+            + "    private static final Bits INFECTED = new Bits();\n"
+            + "    private static final Bits DIFFERS = new Bits();\n"
+            + "\n"
+            + "    /**\n"
+            + "     * Sites nested deeper than this on one thread can only be frames left\n"
+            + "     * behind by exceptions, so the thread's frames are dropped\n"
+            + "     */\n"
+            + "    private static final int MAX_DEPTH = 1 << 16;\n"
+            + "\n"
+            + "    private static final ThreadLocal<Stack> STACKS = new ThreadLocal<Stack>() {\n"
+            + "        @Override\n"
+            + "        protected Stack initialValue() {\n"
+            + "            return new Stack();\n"
+            + "        }\n"
+            + "    };\n"
+            + "\n"
+            + "    private Probes() {\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * A set of mutant ids that threads add to without locking\n"
+            + "     */\n"
+            + "    private static final class Bits {\n"
+            + "        private volatile AtomicLongArray words = new AtomicLongArray(16);\n"
+            + "\n"
+            + "        void set(int bit) {\n"
+            + "            int index = bit >>> 6;\n"
+            + "            long mask = 1L << bit;\n"
+            + "            AtomicLongArray w = words;\n"
+            + "            while (true) {\n"
+            + "                if (index >= w.length()) {\n"
+            + "                    w = grow(index);\n"
+            + "                }\n"
+            + "                long old = w.get(index);\n"
+            + "                if ((old & mask) == 0 && !w.compareAndSet(index, old, old | mask)) {\n"
+            + "                    continue;\n"
+            + "                }\n"
+            + "                AtomicLongArray current = words;\n"
+            + "                if (current == w) {\n"
+            + "                    return;\n"
+            + "                }\n"
+            + "                w = current;\n"
+            + "            }\n"
+            + "        }\n"
+            + "\n"
+            + "        private synchronized AtomicLongArray grow(int index) {\n"
+            + "            AtomicLongArray old = words;\n"
+            + "            if (index < old.length()) {\n"
+            + "                return old;\n"
+            + "            }\n"
+            + "            AtomicLongArray bigger = new AtomicLongArray(Math.max(2 * old.length(), index + 1));\n"
+            + "            words = bigger;\n"
+            + "            // Copy after publishing, so that a bit set in the old words before\n"
+            + "            // its setter saw the new ones is not lost\n"
+            + "            for (int i = 0; i < old.length(); i++) {\n"
+            + "                long bits = old.get(i);\n"
+            + "                long current;\n"
+            + "                do {\n"
+            + "                    current = bigger.get(i);\n"
+            + "                } while ((current | bits) != current && !bigger.compareAndSet(i, current, current | bits));\n"
+            + "            }\n"
+            + "            return bigger;\n"
+            + "        }\n"
+            + "\n"
+            + "        synchronized int[] toArray() {\n"
+            + "            AtomicLongArray w = words;\n"
+            + "            int n = 0;\n"
+            + "            for (int i = 0; i < w.length(); i++) {\n"
+            + "                n += Long.bitCount(w.get(i));\n"
+            + "            }\n"
+            + "            int[] bits = new int[n];\n"
+            + "            int k = 0;\n"
+            + "            for (int i = 0; i < w.length() && k < n; i++) {\n"
+            + "                long word = w.get(i);\n"
+            + "                while (word != 0 && k < n) {\n"
+            + "                    bits[k++] = 64 * i + Long.numberOfTrailingZeros(word);\n"
+            + "                    word &= word - 1;\n"
+            + "                }\n"
+            + "            }\n"
+            + "            return k == n ? bits : Arrays.copyOf(bits, k);\n"
+            + "        }\n"
+            + "\n"
+            + "        synchronized void clear() {\n"
+            + "            words = new AtomicLongArray(words.length());\n"
+            + "        }\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * One evaluation of a site: which of its mutants are infected, and the\n"
+            + "     * value of its original expression\n"
+            + "     */\n"
+            + "    private static final class Frame {\n"
+            + "        int site;\n"
+            + "        boolean[] infected = new boolean[8];\n"
+            + "        boolean floating;\n"
+            + "        boolean z;\n"
+            + "        long j;\n"
+            + "        double d;\n"
+            + "        Object o;\n"
+            + "\n"
+            + "        boolean isInfected(int index) {\n"
+            + "            return index < infected.length && infected[index];\n"
+            + "        }\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * The sites being evaluated on one thread, innermost last\n"
+            + "     */\n"
+            + "    private static final class Stack {\n"
+            + "        Frame[] frames = new Frame[8];\n"
+            + "        int size;\n"
+            + "\n"
+            + "        void push(int site) {\n"
+            + "            if (size == MAX_DEPTH) {\n"
+            + "                size = 0;\n"
+            + "            }\n"
+            + "            if (size == frames.length) {\n"
+            + "                frames = Arrays.copyOf(frames, 2 * size);\n"
+            + "            }\n"
+            + "            if (frames[size] == null) {\n"
+            + "                frames[size] = new Frame();\n"
+            + "            }\n"
+            + "            Frame frame = frames[size++];\n"
+            + "            frame.site = site;\n"
+            + "            Arrays.fill(frame.infected, false);\n"
+            + "        }\n"
+            + "\n"
+            + "        Frame top() {\n"
+            + "            if (size == 0) {\n"
+            + "                push(-1);\n"
+            + "            }\n"
+            + "            return frames[size - 1];\n"
+            + "        }\n"
+            + "\n"
+            + "        /**\n"
+            + "         * Drop the frames an exception left above the site's innermost frame\n"
+            + "         */\n"
+            + "        Frame unwind(int site) {\n"
+            + "            int i = size;\n"
+            + "            while (i > 0 && frames[i - 1].site != site) {\n"
+            + "                i -= 1;\n"
+            + "            }\n"
+            + "            if (i == 0) {\n"
+            + "                push(site);\n"
+            + "                return frames[size - 1];\n"
+            + "            }\n"
+            + "            for (int k = i; k < size; k++) {\n"
+            + "                frames[k].o = null;\n"
+            + "            }\n"
+            + "            size = i;\n"
+            + "            return frames[size - 1];\n"
+            + "        }\n"
+            + "\n"
+            + "        void pop(int site) {\n"
+            + "            unwind(site).o = null;\n"
+            + "            size -= 1;\n"
+            + "        }\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean enter(int site) {\n"
+            + "        STACKS.get().push(site);\n"
+            + "        return true;\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * A condition that may throw, evaluated by {@link #hit(int, int, Condition)}\n"
+            + "     */\n"
+            + "    public interface Condition {\n"
+            + "        boolean holds() throws Throwable;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean hit(int index, int mid, boolean condition) {\n"
+            + "        REACHED.set(mid);\n"
+            + "        if (condition) {\n"
+            + "            INFECTED.set(mid);\n"
+            + "        }\n"
+            + "        mark(index, condition);\n"
+            + "        return condition;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean hit(int index, int mid, Condition condition) {\n"
+            + "        boolean holds;\n"
+            + "        try {\n"
+            + "            holds = condition.holds();\n"
+            + "        } catch (Throwable t) {\n"
+            + "            // The mutant evaluates its condition first, so it throws where\n"
+            + "            // the original does not\n"
+            + "            REACHED.set(mid);\n"
+            + "            INFECTED.set(mid);\n"
+            + "            DIFFERS.set(mid);\n"
+            + "            mark(index, false);\n"
+            + "            return false;\n"
+            + "        }\n"
+            + "        return hit(index, mid, holds);\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * A mutant whose condition is not evaluated: it must run against the\n"
+            + "     * test, but is not checked for a changed value\n"
+            + "     */\n"
+            + "    public static boolean unchecked(int index, int mid) {\n"
+            + "        REACHED.set(mid);\n"
+            + "        INFECTED.set(mid);\n"
+            + "        mark(index, false);\n"
+            + "        return true;\n"
+            + "    }\n"
+            + "\n"
+            + "    private static void mark(int index, boolean infected) {\n"
+            + "        Frame frame = STACKS.get().top();\n"
+            + "        if (index >= frame.infected.length) {\n"
+            + "            frame.infected = Arrays.copyOf(frame.infected, Math.max(2 * frame.infected.length, index + 1));\n"
+            + "        }\n"
+            + "        frame.infected[index] = infected;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean keep(int site, boolean hits, boolean v) {\n"
+            + "        Frame frame = STACKS.get().unwind(site);\n"
+            + "        frame.z = v;\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static char keep(int site, boolean hits, char v) {\n"
+            + "        integral(site, v);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static byte keep(int site, boolean hits, byte v) {\n"
+            + "        integral(site, v);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static short keep(int site, boolean hits, short v) {\n"
+            + "        integral(site, v);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static int keep(int site, boolean hits, int v) {\n"
+            + "        integral(site, v);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static long keep(int site, boolean hits, long v) {\n"
+            + "        integral(site, v);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static float keep(int site, boolean hits, float v) {\n"
+            + "        floating(site, v);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static double keep(int site, boolean hits, double v) {\n"
+            + "        floating(site, v);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static <T> T keep(int site, boolean hits, T v) {\n"
+            + "        STACKS.get().unwind(site).o = v;\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    private static void integral(int site, long v) {\n"
+            + "        Frame frame = STACKS.get().unwind(site);\n"
+            + "        frame.floating = false;\n"
+            + "        frame.j = v;\n"
+            + "        frame.d = v;\n"
+            + "    }\n"
+            + "\n"
+            + "    private static void floating(int site, double v) {\n"
+            + "        Frame frame = STACKS.get().unwind(site);\n"
+            + "        frame.floating = true;\n"
+            + "        frame.j = (long) v;\n"
+            + "        frame.d = v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean infected(int index) {\n"
+            + "        return STACKS.get().top().isInfected(index);\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * A mutant whose infected value is the negated original value\n"
+            + "     */\n"
+            + "    public static boolean negate(int index, int mid) {\n"
+            + "        if (infected(index)) {\n"
+            + "            DIFFERS.set(mid);\n"
+            + "        }\n"
+            + "        return false;\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * A mutant whose infected value is the original value plus a constant\n"
+            + "     */\n"
+            + "    public static boolean shift(int index, int mid, double delta) {\n"
+            + "        Frame frame = STACKS.get().top();\n"
+            + "        if (frame.isInfected(index) && (frame.floating\n"
+            + "                ? Double.doubleToLongBits(frame.d + delta) != Double.doubleToLongBits(frame.d)\n"
+            + "                : delta != 0)) {\n"
+            + "            DIFFERS.set(mid);\n"
+            + "        }\n"
+            + "        return false;\n"
+            + "    }\n"
+            + "\n"
+            + "    /**\n"
+            + "     * A mutant whose infected value cannot be computed without evaluating\n"
+            + "     * the original expression again; it is weakly killed whenever infected\n"
+            + "     */\n"
+            + "    public static boolean always(int index, int mid) {\n"
+            + "        return negate(index, mid);\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean differs(int mid, boolean infected) {\n"
+            + "        return record(mid, infected != STACKS.get().top().z);\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean differs(int mid, long infected) {\n"
+            + "        Frame frame = STACKS.get().top();\n"
+            + "        if (frame.floating) {\n"
+            + "            return differs(mid, (double) infected);\n"
+            + "        }\n"
+            + "        return record(mid, infected != frame.j);\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean differs(int mid, double infected) {\n"
+            + "        Frame frame = STACKS.get().top();\n"
+            + "        return record(mid, Double.doubleToLongBits(infected) != Double.doubleToLongBits(frame.d));\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean differs(int mid, Object infected) {\n"
+            + "        Object original = STACKS.get().top().o;\n"
+            + "        return record(mid, original == null ? infected != null : !original.equals(infected));\n"
+            + "    }\n"
+            + "\n"
+            + "    private static boolean record(int mid, boolean differs) {\n"
+            + "        if (differs) {\n"
+            + "            DIFFERS.set(mid);\n"
+            + "        }\n"
+            + "        return false;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static boolean exit(int site, boolean v, boolean checks) {\n"
+            + "        STACKS.get().pop(site);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static char exit(int site, char v, boolean checks) {\n"
+            + "        STACKS.get().pop(site);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static byte exit(int site, byte v, boolean checks) {\n"
+            + "        STACKS.get().pop(site);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static short exit(int site, short v, boolean checks) {\n"
+            + "        STACKS.get().pop(site);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static int exit(int site, int v, boolean checks) {\n"
+            + "        STACKS.get().pop(site);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static long exit(int site, long v, boolean checks) {\n"
+            + "        STACKS.get().pop(site);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static float exit(int site, float v, boolean checks) {\n"
+            + "        STACKS.get().pop(site);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static double exit(int site, double v, boolean checks) {\n"
+            + "        STACKS.get().pop(site);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static <T> T exit(int site, T v, boolean checks) {\n"
+            + "        STACKS.get().pop(site);\n"
+            + "        return v;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static synchronized int[] drain() {\n"
+            + "        int[] mids = INFECTED.toArray();\n"
+            + "        REACHED.clear();\n"
+            + "        INFECTED.clear();\n"
+            + "        DIFFERS.clear();\n"
+            + "        return mids;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static int[] reached() {\n"
+            + "        return REACHED.toArray();\n"
+            + "    }\n"
+            + "\n"
+            + "    public static int[] infected() {\n"
+            + "        return INFECTED.toArray();\n"
+            + "    }\n"
+            + "\n"
+            + "    public static int[] weaklyKilled() {\n"
+            + "        return DIFFERS.toArray();\n"
+            + "    }\n"
+            + "}\n";
+
+    /**
+     * The constant of an infected expression {@code (e) + k}: a numeric or
+     * character literal
+     */
+    private static final Pattern SHIFT = Pattern.compile("[0-9][0-9a-zA-Z_.]*|'(?:[^'\\\\]|\\\\.)+'");
+
+    private final BufferedWriter mutantsIndex;
+    private int fileIndex = 0;
+    private int numSites = 0;
+
+    public ProbeMutantWriter(Path probesDir) throws IOException {
+        super(probesDir, RUNTIME_CLASS, RUNTIME_SOURCE);
+        this.mutantsIndex = Files.newBufferedWriter(probesDir.resolve(MUTANTS_INDEX), Charset.defaultCharset());
+    }
+
+    @Override
+    public void write(List<CompactMutant> mutants) throws IOException {
+        if (mutants.isEmpty()) {
+            return;
+        }
+        super.write(mutants);
+        fileIndex += 1;
+        for (CompactMutant mutant : mutants) {
+            mutantsIndex.write(mutant.getMid() + "\t" + fileIndex);
+            mutantsIndex.newLine();
+        }
+    }
+
+    @Override
+    protected void appendSite(List<CompactMutant> site, CharSequence original, Appendable out) throws IOException {
+        String siteIndex = Integer.toString(numSites++);
+        out.append(RUNTIME_CLASS).append(".exit(").append(siteIndex).append(", ")
+                .append(RUNTIME_CLASS).append(".keep(").append(siteIndex).append(", ")
+                .append(RUNTIME_CLASS).append(".enter(").append(siteIndex).append(')');
+        for (int i = 0; i < site.size(); i++) {
+            CompactMutant mutant = site.get(i);
+            String args = i + ", " + mutant.getMid();
+            out.append(" & ").append(RUNTIME_CLASS);
+            switch (evaluationOf(mutant)) {
+                case SKIPPED:
+                    out.append(".unchecked(").append(args).append(')');
+                    break;
+                case DEFERRED:
+                    out.append(".hit(").append(args).append(", () -> (").append(mutant.getCondition()).append("))");
+                    break;
+                default:
+                    out.append(".hit(").append(args).append(", (")
+                            .append(mutant.getCondition() == null ? "true" : mutant.getCondition()).append("))");
+            }
+        }
+        out.append(", (").append(original).append(")), ");
+        for (int i = 0; i < site.size(); i++) {
+            out.append('(');
+            appendCheck(i, site.get(i), out);
+            out.append(") | ");
+        }
+        out.append("false)");
+    }
+
+    /**
+     * Append the check that records whether an infected mutant changes the
+     * value of its site, without evaluating the original expression again
+     */
+    private static void appendCheck(int index, CompactMutant mutant, Appendable out) throws IOException {
+        String args = index + ", " + mutant.getMid();
+        String infected = mutant.getInfected();
+        String original = "(" + mutant.getOriginal() + ")";
+        if (infected == null) {
+            out.append(RUNTIME_CLASS).append(".always(").append(args).append(')');
+        } else if (infected.equals("!" + original)) {
+            out.append(RUNTIME_CLASS).append(".negate(").append(args).append(')');
+        } else if (infected.startsWith(original + " + ")
+                && SHIFT.matcher(infected.substring(original.length() + 3)).matches()) {
+            out.append(RUNTIME_CLASS).append(".shift(").append(args).append(", ")
+                    .append(infected.substring(original.length() + 3)).append(')');
+        } else if (infected.contains(mutant.getOriginal()) || evaluationOf(mutant) != ConditionEvaluation.INLINE) {
+            out.append(RUNTIME_CLASS).append(".always(").append(args).append(')');
+        } else {
+            out.append(RUNTIME_CLASS).append(".infected(").append(Integer.toString(index)).append(") && ")
+                    .append(RUNTIME_CLASS).append(".differs(").append(Integer.toString(mutant.getMid()))
+                    .append(", (").append(infected).append("))");
+        }
+    }
+
+    /**
+     * @return how the mutant's condition is evaluated; a mutant without a
+     *         condition is infected whenever reached, in place
+     */
+    private static ConditionEvaluation evaluationOf(CompactMutant mutant) {
+        return mutant.getCondition() == null ? ConditionEvaluation.INLINE : mutant.getConditionEvaluation();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            mutantsIndex.close();
+        } finally {
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.mutation_testing.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mutation_testing.Source;
+import org.mutation_testing.mutate.CompactMutant;
+
+/**
+ * Write one mutant schema ("metamutant") per source file instead of one copy
+ * per mutant. Every mutation site is replaced by a chain of checks of the
+ * active mutant id, so the schema compiles once and behaves like any one of
+ * its mutants, or like the original program, depending on the
+ * {@code msav.mid} system property:
+ *
+ * <pre>
+ * (msav.Schemata.MID == 3 ? (mutant 3) : msav.Schemata.MID == 4 ? (mutant 4) : (original))
+ * </pre>
+ *
+ * <p>
+ * The schemata directory contains:
+ * <ul>
+ * <li><b>msav/Schemata.java</b>: the runtime class holding the active mutant
+ * id, which must be compiled along with the schemata</li>
+ * <li><b>sources/N/Name.java</b>: the schema for the N-th mutated file</li>
+ * <li><b>sources.msav</b>: one line per source, {@code N<TAB>original path}</li>
+ * </ul>
+ */
+public class SchemataMutantWriter implements MutantWriter {
+    public static final String SOURCES_DIR = "sources";
+    public static final String SOURCES_INDEX = "sources.msav";
+    public static final String RUNTIME_CLASS = "msav.Schemata";
+    public static final String MID_PROPERTY = "msav.mid";
+
+    /**
+     * The active mutant id is read once, when the runtime class is
+     * initialized, and is not final so that an in-process runner can switch
+     * mutants without starting a new JVM. Mutant ids start at 1, so 0 runs
+     * the original program.
+     */
+    static final String RUNTIME_SOURCE = "package msav;\n"
+            + "\n"
+            + "public final class Schemata {\n"
+            + "    public static int MID = Integer.getInteger(\"" + MID_PROPERTY + "\", 0);\n"
+            + "\n"
+            + "    private Schemata() {\n"
+            + "    }\n"
+            + "}\n";
+
+    private final Path schemataDir;
+    private final BufferedWriter sourcesIndex;
+    private final ChannelAppender appender = new ChannelAppender(Charset.defaultCharset());
+    private int fileIndex = 0;
+
+    public SchemataMutantWriter(Path schemataDir) throws IOException {
+        this(schemataDir, RUNTIME_CLASS, RUNTIME_SOURCE);
+    }
+
+    /**
+     * @param schemataDir   where to write the rewritten sources
+     * @param runtimeClass  the name of the runtime class the sources refer to
+     * @param runtimeSource the source of the runtime class
+     */
+    protected SchemataMutantWriter(Path schemataDir, String runtimeClass, String runtimeSource)
+            throws IOException {
+        this.schemataDir = schemataDir;
+        Path runtimeFile = schemataDir.resolve(runtimeClass.replace('.', '/') + ".java");
+        Files.createDirectories(runtimeFile.getParent());
+        Files.createDirectories(schemataDir.resolve(SOURCES_DIR));
+        Files.write(runtimeFile, runtimeSource.getBytes(Charset.defaultCharset()));
+        this.sourcesIndex = Files.newBufferedWriter(schemataDir.resolve(SOURCES_INDEX), Charset.defaultCharset());
+    }
+
+    @Override
+    public void write(List<CompactMutant> mutants) throws IOException {
+        if (mutants.isEmpty()) {
+            return;
+        }
+        fileIndex += 1;
+        Source source = mutants.get(0).getSource();
+
+        Path dir = schemataDir.resolve(SOURCES_DIR).resolve(fileIndex + "");
+        Files.createDirectories(dir);
+        Path file = dir.resolve(Paths.get(source.getFilename()).getFileName());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            appendSchema(source, mutants, appender.reset(channel));
+            appender.finish();
+        }
+        sourcesIndex.write(fileIndex + "\t" + source.getFilename());
+        sourcesIndex.newLine();
+    }
+
+    /**
+     * Append the schema for one file
+     *
+     * @param source  the original source
+     * @param mutants all of the source's mutants
+     * @param out     where to append the schema
+     */
+    void appendSchema(Source source, List<CompactMutant> mutants, Appendable out) throws IOException {
+        int offset = 0;
+        for (List<CompactMutant> site : groupBySite(mutants)) {
+            CompactMutant first = site.get(0);
+            if (first.getBegin() < offset) {
+                // Sites never nest, since the mutator does not descend into
+                // a mutated expression; skip rather than corrupt the schema
+                System.err.println("Skipping overlapping mutation site in " + source.getFilename() + ": "
+                        + first.getOriginal());
+                continue;
+            }
+            out.append(source.slice(offset, first.getBegin()));
+            appendSite(site, source.slice(first.getBegin(), first.getEnd()), out);
+            offset = first.getEnd();
+        }
+        out.append(source.slice(offset, source.length()));
+    }
+
+    /**
+     * Append the expression that replaces one mutation site
+     *
+     * @param site     the mutants at the site
+     * @param original the site's original text
+     * @param out      where to append the expression
+     */
+    protected void appendSite(List<CompactMutant> site, CharSequence original, Appendable out) throws IOException {
+        out.append('(');
+        for (CompactMutant mutant : site) {
+            out.append(RUNTIME_CLASS).append(".MID == ").append(Integer.toString(mutant.getMid()))
+                    .append(" ? (");
+            mutant.appendReplacement(out);
+            out.append(") : ");
+        }
+        out.append('(').append(original).append("))");
+    }
+
+    /**
+     * Group mutants that replace the same text, ordered by position
+     */
+    static List<List<CompactMutant>> groupBySite(List<CompactMutant> mutants) {
+        Map<Long, List<CompactMutant>> sites = new LinkedHashMap<>();
+        for (CompactMutant mutant : mutants) {
+            long key = ((long) mutant.getBegin() << 32) | mutant.getEnd();
+            sites.computeIfAbsent(key, k -> new ArrayList<>()).add(mutant);
+        }
+        List<List<CompactMutant>> result = new ArrayList<>(sites.values());
+        result.sort((a, b) -> Integer.compare(a.get(0).getBegin(), b.get(0).getBegin()));
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sourcesIndex.close();
+    }
+}
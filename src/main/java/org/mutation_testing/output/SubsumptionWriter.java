@@ -0,0 +1,64 @@
+package org.mutation_testing.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.StringJoiner;
+
+import org.mutation_testing.mutate.CompactMutant;
+
+/**
+ * Write the static subsumption of each mutant that the minimal mutants of its
+ * method subsume, one {@code mid,subsumer1;subsumer2;...} line per mutant,
+ * for {@code run} to combine with kill data
+ */
+public class SubsumptionWriter implements MutantWriter {
+    public static final String FILENAME = "subsumption.msav";
+
+    private final Path file;
+    private final BufferedWriter writer;
+    private int numSubsumed = 0;
+
+    public SubsumptionWriter(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.writer = Files.newBufferedWriter(file, Charset.defaultCharset());
+    }
+
+    @Override
+    public void write(List<CompactMutant> mutants) throws IOException {
+        for (CompactMutant mutant : mutants) {
+            if (mutant.getSubsumers().isEmpty()) {
+                continue;
+            }
+            StringJoiner subsumers = new StringJoiner(";");
+            for (CompactMutant subsumer : mutant.getSubsumers()) {
+                subsumers.add(subsumer.getMid() + "");
+            }
+            writer.write(mutant.getMid() + "," + subsumers);
+            writer.newLine();
+            numSubsumed += 1;
+        }
+    }
+
+    /**
+     * @return how many mutants have been written as subsumed
+     */
+    public int getNumSubsumed() {
+        return numSubsumed;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
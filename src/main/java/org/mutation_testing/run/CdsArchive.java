@@ -0,0 +1,180 @@
+package org.mutation_testing.run;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A dynamic class data sharing (AppCDS) archive for worker JVMs.
+ *
+ * <p>
+ * One training worker runs the original test suite under
+ * {@code -XX:ArchiveClassesAtExit}, which dumps every class it loaded into
+ * an archive. Workers then start with {@code -XX:SharedArchiveFile} and map
+ * those classes instead of loading, parsing and verifying them again.
+ *
+ * <p>
+ * Archives are named by a hash of the JVM and the classpaths, so an archive
+ * is rebuilt when any of them changes. Stale archives are deleted. Dynamic
+ * archives need Java 13 or later; the JVM itself falls back to loading
+ * classes normally if an archive does not match.
+ */
+public class CdsArchive {
+    static final int MIN_JAVA_VERSION = 13;
+    static final String PREFIX = "worker-";
+    static final String SUFFIX = ".jsa";
+
+    private final Path dir;
+
+    /**
+     * @param dir the directory to keep archives in
+     */
+    public CdsArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * @return true if this JVM can create and use dynamic archives for
+     *         workers started with msav's classpath. The JVM refuses to
+     *         archive classes when the application classpath has a
+     *         non-empty directory, as when msav runs from its build output
+     *         instead of its jar.
+     */
+    public static boolean isSupported() {
+        if (javaVersion() < MIN_JAVA_VERSION) {
+            return false;
+        }
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            File file = new File(entry);
+            String[] children = file.list();
+            if (file.isDirectory() && children != null && children.length > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int javaVersion() {
+        String version = System.getProperty("java.specification.version");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        try {
+            return Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Find the archive for a worker configuration, creating it if needed
+     *
+     * @param jvmArgs    options for the worker JVMs
+     * @param workerArgs arguments for {@code run --worker}
+     * @param classpath  the library and project classpath entries the
+     *                   workers load
+     * @return the archive, or null if one could not be created
+     */
+    public Path archiveFor(List<String> jvmArgs, List<String> workerArgs, List<Path> classpath) throws IOException {
+        Path archive = dir.resolve(PREFIX + hash(jvmArgs, classpath) + SUFFIX);
+        if (Files.isRegularFile(archive)) {
+            return archive;
+        }
+        Files.createDirectories(dir);
+        deleteStale();
+
+        Path partial = dir.resolve(archive.getFileName() + ".tmp");
+        Files.deleteIfExists(partial);
+        List<String> trainingArgs = new ArrayList<>(jvmArgs);
+        trainingArgs.add("-XX:ArchiveClassesAtExit=" + partial);
+        Path log = dir.resolve("training.log");
+
+        System.out.println("Creating a class data sharing archive for workers in " + archive);
+        Process process = new ProcessBuilder(WorkerPool.workerCommand(trainingArgs, workerArgs))
+                .redirectError(Redirect.to(log.toFile()))
+                .start();
+        try (BufferedReader fromWorker = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), Charset.defaultCharset()))) {
+            String ready = fromWorker.readLine();
+            // Closing the worker's input with no jobs makes it exit, and the
+            // archive is written as the JVM exits
+            process.getOutputStream().close();
+            if (!process.waitFor(5, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+            }
+            if (!Worker.isReady(ready) || !Files.isRegularFile(partial)) {
+                System.err.println("Could not create a class data sharing archive; see " + log);
+                Files.deleteIfExists(partial);
+                return null;
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        Files.move(partial, archive, StandardCopyOption.REPLACE_EXISTING);
+        return archive;
+    }
+
+    /**
+     * Hash everything an archive depends on: the JVM, msav's own classpath,
+     * the worker JVM options and the classpath the workers load. Files are
+     * hashed by size and modification time, not contents.
+     */
+    static String hash(List<String> jvmArgs, List<Path> classpath) throws IOException {
+        List<String> parts = new ArrayList<>();
+        parts.add(System.getProperty("java.home"));
+        parts.add(System.getProperty("java.vm.version"));
+        parts.addAll(jvmArgs);
+        List<Path> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(Paths.get(entry));
+        }
+        entries.addAll(classpath);
+        for (Path entry : entries) {
+            parts.add(entry.toAbsolutePath().toString());
+            if (Files.isRegularFile(entry)) {
+                parts.add(Files.size(entry) + ":" + Files.getLastModifiedTime(entry).toMillis());
+            }
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; ++i) {
+                hex.append(String.format("%02x", bytes[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteStale() throws IOException {
+        List<Path> stale;
+        try (Stream<Path> files = Files.list(dir)) {
+            stale = files.filter(p -> p.getFileName().toString().startsWith(PREFIX)
+                    && p.getFileName().toString().endsWith(SUFFIX))
+                    .collect(Collectors.toList());
+        }
+        for (Path archive : stale) {
+            Files.deleteIfExists(archive);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.mutation_testing.run;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * The Java agent that gives the hot-swap runner access to class
+ * redefinition. The msav jar declares this class as its agent, so
+ * {@code java -javaagent:msav.jar ...} installs it.
+ */
+public final class HotSwapAgent {
+    private static volatile Instrumentation instrumentation;
+
+    private HotSwapAgent() {
+    }
+
+    public static void premain(String args, Instrumentation inst) {
+        instrumentation = inst;
+    }
+
+    public static void agentmain(String args, Instrumentation inst) {
+        instrumentation = inst;
+    }
+
+    /**
+     * @return true if the agent is installed and can redefine classes
+     */
+    public static boolean isInstalled() {
+        return instrumentation != null && instrumentation.isRedefineClassesSupported();
+    }
+
+    /**
+     * @throws IllegalStateException if the agent is not installed
+     */
+    public static Instrumentation instrumentation() {
+        if (!isInstalled()) {
+            throw new IllegalStateException(
+                    "The msav agent is not installed; run with -javaagent:<msav jar> to hot-swap mutants");
+        }
+        return instrumentation;
+    }
+}
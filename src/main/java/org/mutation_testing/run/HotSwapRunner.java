@@ -0,0 +1,168 @@
+package org.mutation_testing.run;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.net.MalformedURLException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Run mutants by redefining classes in place instead of loading them in a
+ * new class loader.
+ *
+ * <p>
+ * The project and its tests are loaded once. For each mutant, the classes in
+ * its overlay are swapped in with {@link Instrumentation#redefineClasses},
+ * the tests run, and the original class bytes are swapped back. Static state
+ * is not reset between mutants and JIT profiles are kept, so a mutant costs
+ * little more than its test run.
+ *
+ * <p>
+ * Redefinition applies to the whole JVM, so mutants run one at a time.
+ * Redefinition cannot add or remove fields or methods; mutants whose classes
+ * cannot be redefined fall back to a fresh class loader. A test run that
+ * times out is abandoned while it may still be running mutated code in the
+ * shared loader, next to its static state, so after the first timeout every
+ * remaining mutant runs in a fresh class loader.
+ */
+public class HotSwapRunner extends MutantRunner {
+    private final Instrumentation instrumentation;
+    private final MutantClassLoader shared;
+    private final Map<String, byte[]> originals = new HashMap<>();
+    private int numFallbacks = 0;
+
+    /**
+     * False once a test run in the shared loader has timed out
+     */
+    private boolean swapping = true;
+
+    /**
+     * @throws IllegalStateException if the msav agent is not installed
+     */
+    public HotSwapRunner(List<Path> libraryClasspath, List<Path> projectClasspath, List<String> testClasses,
+            long timeoutMillis) throws MalformedURLException {
+        this(HotSwapAgent.instrumentation(), libraryClasspath, projectClasspath, testClasses, timeoutMillis);
+    }
+
+    HotSwapRunner(Instrumentation instrumentation, List<Path> libraryClasspath, List<Path> projectClasspath,
+            List<String> testClasses, long timeoutMillis) throws MalformedURLException {
+        super(libraryClasspath, projectClasspath, testClasses, 1, timeoutMillis);
+        this.instrumentation = instrumentation;
+        this.shared = newLoader(null);
+    }
+
+    @Override
+    MutantClassLoader originalLoader() {
+        return shared;
+    }
+
+    @Override
+    MutantResult runMutant(int mid, Path overlay) throws IOException, InterruptedException {
+        if (!swapping) {
+            numFallbacks += 1;
+            return super.runMutant(mid, overlay);
+        }
+        List<ClassDefinition> mutated = new ArrayList<>();
+        List<ClassDefinition> restore = new ArrayList<>();
+        try {
+            for (Map.Entry<String, byte[]> e : readOverlay(overlay).entrySet()) {
+                Class<?> c = Class.forName(e.getKey(), false, shared);
+                if (c.getClassLoader() != shared) {
+                    throw new ClassNotFoundException(e.getKey() + " is not a project class");
+                }
+                mutated.add(new ClassDefinition(c, e.getValue()));
+                restore.add(new ClassDefinition(c, original(e.getKey())));
+            }
+            instrumentation.redefineClasses(mutated.toArray(new ClassDefinition[0]));
+        } catch (ClassNotFoundException | UnmodifiableClassException | UnsupportedOperationException
+                | LinkageError e) {
+            numFallbacks += 1;
+            return super.runMutant(mid, overlay);
+        }
+
+        try {
+            MutantResult result = runTests(mid, shared);
+            if (result.getStatus() == MutantResult.Status.TIMEOUT) {
+                swapping = false;
+                System.err.println("Mutant " + mid + " timed out in the shared class loader;"
+                        + " running the remaining mutants in fresh class loaders");
+            }
+            return result;
+        } finally {
+            try {
+                instrumentation.redefineClasses(restore.toArray(new ClassDefinition[0]));
+            } catch (ClassNotFoundException | UnmodifiableClassException e) {
+                throw new IOException("Could not restore the original classes after mutant " + mid, e);
+            }
+        }
+    }
+
+    /**
+     * @return how many mutants could not be hot-swapped, or ran after a
+     *         timeout, and ran in their own class loader instead
+     */
+    public int getNumFallbacks() {
+        return numFallbacks;
+    }
+
+    /**
+     * @return false once a timeout has stopped hot-swapping for the rest of
+     *         the run
+     */
+    public boolean isSwapping() {
+        return swapping;
+    }
+
+    private byte[] original(String className) throws IOException, ClassNotFoundException {
+        byte[] bytes = originals.get(className);
+        if (bytes == null) {
+            try (InputStream in = shared.getResourceAsStream(className.replace('.', '/') + ".class")) {
+                if (in == null) {
+                    throw new ClassNotFoundException(className);
+                }
+                bytes = readAll(in);
+            }
+            originals.put(className, bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return class file bytes in an overlay, keyed by binary class name
+     */
+    static Map<String, byte[]> readOverlay(Path overlay) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> walk = Files.walk(overlay)) {
+            classFiles = walk.filter(p -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+        }
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (Path classFile : classFiles) {
+            String name = overlay.relativize(classFile).toString();
+            name = name.substring(0, name.length() - ".class".length())
+                    .replace(classFile.getFileSystem().getSeparator(), ".");
+            classes.put(name, Files.readAllBytes(classFile));
+        }
+        return classes;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
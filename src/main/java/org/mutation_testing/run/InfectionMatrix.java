@@ -0,0 +1,84 @@
+package org.mutation_testing.run;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Which tests infect each mutant: reach its mutation site with its mutation
+ * condition true. A test that does not infect a mutant runs exactly as it
+ * does on the original program, so it cannot kill the mutant.
+ *
+ * <p>
+ * The matrix is written one line per infected mutant,
+ * {@code mid<TAB>test<TAB>test...}, with tests named {@code method(Class)}.
+ */
+public class InfectionMatrix {
+    private final Map<Integer, List<String>> infecting = new TreeMap<>();
+
+    /**
+     * Record the mutants one test infected
+     *
+     * @param test the test, as {@code method(Class)}
+     * @param mids the ids of the mutants it infected
+     */
+    public void record(String test, int[] mids) {
+        for (int mid : mids) {
+            infecting.computeIfAbsent(mid, k -> new ArrayList<>()).add(test);
+        }
+    }
+
+    /**
+     * @return the tests that infect a mutant, in the order they were
+     *         recorded; empty if no test does
+     */
+    public List<String> testsFor(int mid) {
+        List<String> tests = infecting.get(mid);
+        return tests == null ? Collections.emptyList() : Collections.unmodifiableList(tests);
+    }
+
+    public boolean isInfected(int mid) {
+        return infecting.containsKey(mid);
+    }
+
+    /**
+     * @return how many mutants some test infects
+     */
+    public int getNumInfected() {
+        return infecting.size();
+    }
+
+    public void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, Charset.defaultCharset())) {
+            for (Map.Entry<Integer, List<String>> e : infecting.entrySet()) {
+                writer.write(e.getKey() + "\t" + String.join("\t", e.getValue()));
+                writer.newLine();
+            }
+        }
+    }
+
+    public static InfectionMatrix read(Path file) throws IOException {
+        InfectionMatrix matrix = new InfectionMatrix();
+        try (BufferedReader reader = Files.newBufferedReader(file, Charset.defaultCharset())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                List<String> tests = new ArrayList<>(Arrays.asList(fields).subList(1, fields.length));
+                matrix.infecting.put(Integer.parseInt(fields[0]), tests);
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,131 @@
+package org.mutation_testing.run;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Run JUnit 4 test classes in process. JUnit is the project's own, loaded
+ * from the shared library class loader, so it is called reflectively and is
+ * not a dependency of msav.
+ */
+public class JUnitRunner {
+    private final Class<?> junitCore;
+    private final Method aClass;
+    private final Method method;
+    private final Method run;
+    private final Method getFailures;
+    private final Method getTestHeader;
+    private final Method getRunner;
+    private final Method getDescription;
+    private final Method getChildren;
+    private final Method isTest;
+    private final Method getDisplayName;
+
+    /**
+     * @param libraries the class loader that JUnit is on
+     * @throws IllegalArgumentException if JUnit 4 is not on the class loader
+     */
+    public JUnitRunner(ClassLoader libraries) {
+        try {
+            junitCore = libraries.loadClass("org.junit.runner.JUnitCore");
+            Class<?> request = libraries.loadClass("org.junit.runner.Request");
+            Class<?> result = libraries.loadClass("org.junit.runner.Result");
+            Class<?> failure = libraries.loadClass("org.junit.runner.notification.Failure");
+            Class<?> runner = libraries.loadClass("org.junit.runner.Runner");
+            Class<?> description = libraries.loadClass("org.junit.runner.Description");
+            aClass = request.getMethod("aClass", Class.class);
+            method = request.getMethod("method", Class.class, String.class);
+            run = junitCore.getMethod("run", request);
+            getFailures = result.getMethod("getFailures");
+            getTestHeader = failure.getMethod("getTestHeader");
+            getRunner = request.getMethod("getRunner");
+            getDescription = runner.getMethod("getDescription");
+            getChildren = description.getMethod("getChildren");
+            isTest = description.getMethod("isTest");
+            getDisplayName = description.getMethod("getDisplayName");
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new IllegalArgumentException("JUnit 4 must be on the classpath to run tests", e);
+        }
+    }
+
+    /**
+     * Run test classes and collect the tests that fail
+     *
+     * @param loader      the class loader to load the test classes from
+     * @param testClasses binary names of the test classes
+     * @return the names of the failing tests, as {@code method(Class)}
+     */
+    public List<String> run(ClassLoader loader, List<String> testClasses) throws ReflectiveOperationException {
+        Object core = junitCore.getDeclaredConstructor().newInstance();
+        List<String> failing = new ArrayList<>();
+        for (String testClass : testClasses) {
+            run(core, aClass.invoke(null, loader.loadClass(testClass)), testClass, failing);
+        }
+        return failing;
+    }
+
+    /**
+     * Run single tests and collect the tests that fail
+     *
+     * @param loader the class loader to load the test classes from
+     * @param tests  the tests to run, as {@code method(Class)}
+     * @return the names of the failing tests, as {@code method(Class)}
+     */
+    public List<String> runTests(ClassLoader loader, List<String> tests) throws ReflectiveOperationException {
+        Object core = junitCore.getDeclaredConstructor().newInstance();
+        List<String> failing = new ArrayList<>();
+        for (String test : tests) {
+            int open = test.lastIndexOf('(');
+            if (open < 0 || !test.endsWith(")")) {
+                throw new IllegalArgumentException("Not a test name: " + test);
+            }
+            Class<?> testClass = loader.loadClass(test.substring(open + 1, test.length() - 1));
+            run(core, method.invoke(null, testClass, test.substring(0, open)), test, failing);
+        }
+        return failing;
+    }
+
+    /**
+     * List the single tests in test classes
+     *
+     * @param loader      the class loader to load the test classes from
+     * @param testClasses binary names of the test classes
+     * @return the names of the tests, as {@code method(Class)}
+     */
+    public List<String> listTests(ClassLoader loader, List<String> testClasses) throws ReflectiveOperationException {
+        List<String> tests = new ArrayList<>();
+        for (String testClass : testClasses) {
+            Object request = aClass.invoke(null, loader.loadClass(testClass));
+            addTests(getDescription.invoke(getRunner.invoke(request)), tests);
+        }
+        return tests;
+    }
+
+    private void addTests(Object description, List<String> tests) throws ReflectiveOperationException {
+        if ((Boolean) isTest.invoke(description)) {
+            tests.add((String) getDisplayName.invoke(description));
+            return;
+        }
+        for (Object child : (List<?>) getChildren.invoke(description)) {
+            addTests(child, tests);
+        }
+    }
+
+    private void run(Object core, Object request, String name, List<String> failing)
+            throws ReflectiveOperationException {
+        Object result;
+        try {
+            result = run.invoke(core, request);
+        } catch (InvocationTargetException e) {
+            // JUnit reports test errors as failures; an exception here
+            // means the tests could not be run at all
+            failing.add(name);
+            return;
+        }
+        for (Object failure : (List<?>) getFailures.invoke(result)) {
+            failing.add((String) getTestHeader.invoke(failure));
+        }
+    }
+}
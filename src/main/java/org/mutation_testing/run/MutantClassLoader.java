@@ -0,0 +1,52 @@
+package org.mutation_testing.run;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * A child-first class loader for one mutant. It loads the mutant's overlay,
+ * the project's classes and the test classes itself, in that order, so the
+ * tests link against the mutated classes, and delegates everything else
+ * (the JDK, libraries and JUnit) to the shared parent.
+ */
+public class MutantClassLoader extends URLClassLoader {
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    /**
+     * @param urls   the overlay, project and test class path entries, in
+     *               lookup order
+     * @param parent the shared library class loader
+     */
+    public MutantClassLoader(URL[] urls, ClassLoader parent) {
+        super(urls, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (name.startsWith("java.")) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (c == null) {
+                try {
+                    c = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    return super.loadClass(name, resolve);
+                }
+            }
+            if (resolve) {
+                resolveClass(c);
+            }
+            return c;
+        }
+    }
+
+    @Override
+    public URL getResource(String name) {
+        URL url = findResource(name);
+        return url != null ? url : super.getResource(name);
+    }
+}
@@ -0,0 +1,142 @@
+package org.mutation_testing.run;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of running the test suite against one mutant
+ */
+public class MutantResult {
+    public enum Status {
+        KILLED, SURVIVED, TIMEOUT,
+
+        /**
+         * Killed by some of the tests that kill a mutant subsuming it, which
+         * were the only tests run against it; its killing tests may be
+         * incomplete
+         */
+        KILLED_BY_SUBSUMER
+    }
+
+    final int mid;
+    final Status status;
+
+    /**
+     * Tests that pass on the original program and fail on the mutant
+     */
+    final List<String> killingTests;
+
+    public MutantResult(int mid, Status status, List<String> killingTests) {
+        this.mid = mid;
+        this.status = status;
+        this.killingTests = killingTests;
+    }
+
+    public int getMid() {
+        return mid;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if some test kills the mutant, whether or not every test
+     *         was run against it
+     */
+    public boolean isKilled() {
+        return status == Status.KILLED || status == Status.KILLED_BY_SUBSUMER;
+    }
+
+    public List<String> getKillingTests() {
+        return killingTests;
+    }
+
+    /**
+     * @return a results line, {@code mid,status,test1;test2;...}, with
+     *         backslashes, semicolons and line breaks in the tests escaped
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(mid).append(',').append(status).append(',');
+        for (int i = 0; i < killingTests.size(); ++i) {
+            if (i > 0) {
+                sb.append(';');
+            }
+            escape(killingTests.get(i), sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parse a results line written by {@link #toString()}
+     *
+     * @throws IllegalArgumentException if the line is not a results line
+     */
+    public static MutantResult parse(String line) {
+        String[] fields = line.split(",", 3);
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Not a results line: " + line);
+        }
+        return new MutantResult(Integer.parseInt(fields[0]), Status.valueOf(fields[1]), splitTests(fields[2]));
+    }
+
+    private static void escape(String test, StringBuilder sb) {
+        for (int i = 0; i < test.length(); i++) {
+            char c = test.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case ';':
+                    sb.append("\\;");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Split escaped tests at the semicolons between them and unescape them
+     */
+    private static List<String> splitTests(String s) {
+        List<String> tests = new ArrayList<>();
+        if (s.isEmpty()) {
+            return tests;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ';') {
+                tests.add(sb.toString());
+                sb.setLength(0);
+                continue;
+            }
+            if (c != '\\' || i + 1 == s.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = s.charAt(++i);
+            switch (next) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                default:
+                    sb.append(next);
+            }
+        }
+        tests.add(sb.toString());
+        return tests;
+    }
+}
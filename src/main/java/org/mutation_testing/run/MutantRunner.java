@@ -0,0 +1,354 @@
+package org.mutation_testing.run;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.mutation_testing.output.ProbeMutantWriter;
+
+/**
+ * Run a test suite against compiled mutants inside this JVM.
+ *
+ * <p>
+ * JUnit and the project's libraries are loaded once, by a shared library
+ * class loader. Each mutant gets a fresh {@link MutantClassLoader} over its
+ * class overlay, the project's classes and the test classes. The tests have
+ * to be loaded per mutant as well, or they would link against whichever
+ * version of the project classes was loaded first.
+ *
+ * <p>
+ * Mutants run on a pool of worker threads. Each test run gets its own
+ * thread; if it does not finish within the timeout it is interrupted and
+ * abandoned, and the mutant is reported as a timeout. Runs without a
+ * mutant, such as the original program's, are abandoned the same way and
+ * reported as errors. An abandoned run that ignores the interrupt keeps
+ * competing for the CPU and would make later runs time out spuriously, so
+ * {@link #run} starts no more mutants while one is still running.
+ */
+public class MutantRunner {
+    private final URLClassLoader libraries;
+    private final JUnitRunner junit;
+    private final List<URL> projectClasspath;
+    private final List<String> testClasses;
+    private final int threads;
+    private long timeoutMillis;
+
+    /**
+     * Tests that fail on the original program, which cannot kill mutants
+     */
+    private Set<String> originalFailures;
+
+    /**
+     * The tests to run against each mutant, or null to run every test
+     * class
+     */
+    private InfectionMatrix infectionMatrix;
+
+    /**
+     * How long a run of the original program may take when no timeout was
+     * given
+     */
+    static final long DEFAULT_TIMEOUT_MILLIS = 30 * 60 * 1000;
+
+    /**
+     * The threads of timed out test runs
+     */
+    private final List<Thread> abandoned = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * @param libraryClasspath the project's libraries, including JUnit
+     * @param projectClasspath the project's classes and test classes
+     * @param testClasses      binary names of the test classes to run
+     * @param threads          how many mutants to run at once
+     * @param timeoutMillis    how long a mutant's test run may take, or a
+     *                         value below 1 to derive it from the original
+     *                         program's run time
+     */
+    public MutantRunner(List<Path> libraryClasspath, List<Path> projectClasspath, List<String> testClasses,
+            int threads, long timeoutMillis) throws MalformedURLException {
+        this.libraries = new URLClassLoader(toUrls(libraryClasspath), ClassLoader.getSystemClassLoader().getParent());
+        this.junit = new JUnitRunner(libraries);
+        this.projectClasspath = new ArrayList<>();
+        for (URL url : toUrls(projectClasspath)) {
+            this.projectClasspath.add(url);
+        }
+        this.testClasses = testClasses;
+        this.threads = Math.max(1, threads);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Run the tests against the original program, to find the tests that
+     * already fail and, if no timeout was given, to pick one
+     *
+     * @return the tests that fail on the original program
+     */
+    public Set<String> runOriginal() throws IOException {
+        long start = System.currentTimeMillis();
+        TestRun run = new TestRun(originalLoader(), null);
+        try {
+            await(run, "The original program's tests");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted running the original program's tests", e);
+        }
+        if (run.error != null) {
+            throw new IOException("Could not run the tests on the original program", run.error);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        if (timeoutMillis < 1) {
+            timeoutMillis = 1000 + 4 * elapsed;
+        }
+        originalFailures = new HashSet<>(run.failing);
+        return originalFailures;
+    }
+
+    /**
+     * Run the tests against every mutant, until a timed out test run cannot
+     * be stopped
+     *
+     * @param overlays the class overlay directory of each mutant
+     * @param mids     the mutant id of each overlay
+     * @return one result per mutant that ran, in the order given; the
+     *         mutants not yet started once {@link #getNumAbandoned()} is
+     *         positive are left out
+     */
+    public List<MutantResult> run(List<Path> overlays, List<Integer> mids) throws IOException {
+        if (originalFailures == null) {
+            runOriginal();
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<MutantResult>> futures = new ArrayList<>();
+            for (int i = 0; i < overlays.size(); ++i) {
+                Path overlay = overlays.get(i);
+                int mid = mids.get(i);
+                futures.add(workers.submit(() -> getNumAbandoned() > 0 ? null : runMutant(mid, overlay)));
+            }
+            List<MutantResult> results = new ArrayList<>();
+            for (Future<MutantResult> future : futures) {
+                try {
+                    MutantResult result = future.get();
+                    if (result != null) {
+                        results.add(result);
+                    }
+                } catch (ExecutionException e) {
+                    throw new IOException("Error running mutant", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted running mutants", e);
+                }
+            }
+            return results;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    MutantResult runMutant(int mid, Path overlay) throws IOException, InterruptedException {
+        MutantClassLoader loader = newLoader(overlay);
+        MutantResult result = runTests(mid, loader);
+        if (result.getStatus() != MutantResult.Status.TIMEOUT) {
+            loader.close();
+        }
+        return result;
+    }
+
+    /**
+     * Run the test suite from a class loader that sees the mutated classes
+     *
+     * @param mid    the mutant id
+     * @param loader the class loader to load the tests from
+     * @return the mutant's result
+     */
+    MutantResult runTests(int mid, ClassLoader loader) throws InterruptedException {
+        TestRun run = new TestRun(loader, infectionMatrix == null ? null : infectionMatrix.testsFor(mid));
+        run.thread.start();
+        run.thread.join(timeoutMillis);
+        if (run.thread.isAlive()) {
+            run.thread.interrupt();
+            abandoned.add(run.thread);
+            return new MutantResult(mid, MutantResult.Status.TIMEOUT, new ArrayList<>());
+        }
+
+        List<String> killing = new ArrayList<>();
+        if (run.error != null) {
+            // The suite could not even be loaded against this mutant
+            killing.add(run.error.toString().replace('\n', ' '));
+        } else {
+            for (String test : run.failing) {
+                if (!originalFailures.contains(test)) {
+                    killing.add(test);
+                }
+            }
+        }
+        return new MutantResult(mid, killing.isEmpty() ? MutantResult.Status.SURVIVED : MutantResult.Status.KILLED,
+                killing);
+    }
+
+    /**
+     * Run each test once, alone, against a probed build of the program, and
+     * record which mutants it infects. Each test gets a fresh class loader,
+     * so that static initializers run for every test that needs them.
+     *
+     * @param probes the class overlay of the probed program
+     * @return the infection matrix
+     */
+    public InfectionMatrix buildInfectionMatrix(Path probes) throws IOException {
+        InfectionMatrix matrix = new InfectionMatrix();
+        try (MutantClassLoader loader = newLoader(probes)) {
+            for (String test : junit.listTests(loader, testClasses)) {
+                try (MutantClassLoader testLoader = newLoader(probes)) {
+                    TestRun run = new TestRun(testLoader, Collections.singletonList(test));
+                    await(run, test + " on the probed program");
+                    if (run.error != null) {
+                        throw new IOException("Could not run " + test + " on the probed program", run.error);
+                    }
+                    Method drain = testLoader.loadClass(ProbeMutantWriter.RUNTIME_CLASS).getMethod("drain");
+                    matrix.record(test, (int[]) drain.invoke(null));
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Could not read the probes of " + probes, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted building the infection matrix", e);
+        }
+        return matrix;
+    }
+
+    /**
+     * Run the whole test suite once against a probed build of the program,
+     * and read which mutants it weakly kills
+     *
+     * @param probes the class overlay of the probed program
+     * @return the weak mutation results
+     */
+    public WeakMutation runWeakMutation(Path probes) throws IOException {
+        try (MutantClassLoader loader = newLoader(probes)) {
+            TestRun run = new TestRun(loader, null);
+            await(run, "The tests on the probed program");
+            if (run.error != null) {
+                throw new IOException("Could not run the tests on the probed program", run.error);
+            }
+            return WeakMutation.fromProbes(loader);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Could not read the probes of " + probes, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted running the probed program", e);
+        }
+    }
+
+    /**
+     * Run each mutant only against the tests that infect it
+     *
+     * @param infectionMatrix the tests that infect each mutant, or null to
+     *                        run every test class against every mutant
+     */
+    public void setInfectionMatrix(InfectionMatrix infectionMatrix) {
+        this.infectionMatrix = infectionMatrix;
+    }
+
+    /**
+     * @return how many timed out test runs have not stopped since they were
+     *         interrupted
+     */
+    public int getNumAbandoned() {
+        synchronized (abandoned) {
+            abandoned.removeIf(thread -> !thread.isAlive());
+            return abandoned.size();
+        }
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Run tests that have no mutant to report a timeout for. A run that
+     * outlives the timeout, or {@link #DEFAULT_TIMEOUT_MILLIS} before one is
+     * picked, is interrupted and abandoned.
+     *
+     * @param description what the run tests, for the error message
+     */
+    private void await(TestRun run, String description) throws IOException, InterruptedException {
+        long limit = timeoutMillis < 1 ? DEFAULT_TIMEOUT_MILLIS : timeoutMillis;
+        run.thread.start();
+        run.thread.join(limit);
+        if (run.thread.isAlive()) {
+            run.thread.interrupt();
+            abandoned.add(run.thread);
+            throw new IOException(description + " did not finish within " + limit + " ms");
+        }
+    }
+
+    /**
+     * @return the class loader to run the original program's tests in
+     */
+    MutantClassLoader originalLoader() throws MalformedURLException {
+        return newLoader(null);
+    }
+
+    MutantClassLoader newLoader(Path overlay) throws MalformedURLException {
+        List<URL> urls = new ArrayList<>();
+        if (overlay != null) {
+            urls.add(overlay.toUri().toURL());
+        }
+        urls.addAll(projectClasspath);
+        return new MutantClassLoader(urls.toArray(new URL[0]), libraries);
+    }
+
+    private static URL[] toUrls(List<Path> paths) throws MalformedURLException {
+        URL[] urls = new URL[paths.size()];
+        for (int i = 0; i < urls.length; ++i) {
+            urls[i] = paths.get(i).toUri().toURL();
+        }
+        return urls;
+    }
+
+    /**
+     * One run of the test suite on its own daemon thread
+     */
+    private class TestRun implements Runnable {
+        final Thread thread;
+        final ClassLoader loader;
+        final List<String> tests;
+        volatile List<String> failing;
+        volatile Throwable error;
+
+        /**
+         * @param loader the class loader to load the tests from
+         * @param tests  the single tests to run, or null to run every test
+         *               class
+         */
+        TestRun(ClassLoader loader, List<String> tests) {
+            this.loader = loader;
+            this.tests = tests;
+            this.thread = new Thread(this, "msav-test-run");
+            this.thread.setDaemon(true);
+            this.thread.setContextClassLoader(loader);
+        }
+
+        @Override
+        public void run() {
+            try {
+                failing = tests == null ? junit.run(loader, testClasses) : junit.runTests(loader, tests);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                error = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,744 @@
+package org.mutation_testing.run;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.mutation_testing.compile.CompilingMutantWriter;
+import org.mutation_testing.compile.MutantCompiler;
+import org.mutation_testing.output.ProbeMutantWriter;
+import org.mutation_testing.output.SubsumptionWriter;
+
+/**
+ * The {@code run} subcommand: run a JUnit 4 test suite against every
+ * compiled mutant in {@code outdir/classes} and write
+ * {@code outdir/results.msav}, one {@code mid,status,killingTests} line per
+ * mutant. With {@code --weak} it instead runs the suite once against the
+ * probed program and writes weak mutation results to
+ * {@code outdir/weak.msav}. With {@code --subsume} it runs the minimal
+ * mutants of a previous run's results first, and if the mutator wrote
+ * {@code outdir/subsumption.msav} it runs the mutants whose conditions imply
+ * another's first as well. Each mutant they subsume then runs only against
+ * the tests that killed its subsumers in this run, and is reported
+ * {@code KILLED_BY_SUBSUMER} if one of them kills it; otherwise it runs
+ * against every test.
+ */
+public class RunCommand {
+    public static final String RESULTS = "results.msav";
+    public static final String MATRIX = "matrix.msav";
+    public static final String WEAK = "weak.msav";
+
+    /**
+     * The tests each subsumed mutant runs against first, in the infection
+     * matrix format
+     */
+    public static final String SUBSUMER_TESTS = "subsumer-tests.msav";
+
+    /**
+     * A single test, {@code method(Class)}, rather than a test class that
+     * could not be run
+     */
+    static final Pattern TEST_NAME = Pattern.compile(".+\\(.+\\)");
+
+    String outdir = "msav_out";
+    String classesDir = null;
+    List<String> projectClasspath = new ArrayList<>();
+    List<String> testDirs = new ArrayList<>();
+    List<String> testClasses = new ArrayList<>();
+    List<String> classpath = new ArrayList<>();
+    int threads = 1;
+    long timeoutMillis = 0;
+
+    /**
+     * How to run mutants: "classloader" loads each mutant in its own class
+     * loader, "hotswap" redefines the mutated classes in place and needs the
+     * msav agent
+     */
+    String exec = "classloader";
+
+    /**
+     * How many forked worker JVMs to run mutants in; 0 runs them in this JVM
+     */
+    int forks = 0;
+
+    /**
+     * How many mutants a worker JVM runs before it is replaced
+     */
+    int recycleAfter = 100;
+
+    /**
+     * Options for forked worker JVMs
+     */
+    List<String> jvmArgs = new ArrayList<>();
+
+    /**
+     * Start forked workers from a class data sharing archive, created by a
+     * training run of the original test suite
+     */
+    boolean cds = true;
+
+    /**
+     * Build an infection matrix from the probed program in
+     * {@code outdir/probes} and run each mutant only against the tests that
+     * infect it
+     */
+    boolean matrix = false;
+
+    /**
+     * Only run the test suite once against the probed program in
+     * {@code outdir/probes} and report weak mutation results
+     */
+    boolean weak = false;
+
+    /**
+     * A previously built infection matrix to select each mutant's tests from
+     */
+    String matrixFile = null;
+
+    /**
+     * The results of a previous run, whose minimal mutants run first
+     */
+    String subsumeFile = null;
+
+    /**
+     * The runner for mutants run in this JVM, once it has run the original
+     * program
+     */
+    MutantRunner localRunner = null;
+
+    /**
+     * Serve mutant jobs on standard input, as a forked worker
+     */
+    boolean worker = false;
+
+    /**
+     * How many timed out test runs are still running
+     */
+    int numAbandoned = 0;
+
+    public static void main(String[] args) {
+        RunCommand command = new RunCommand();
+        command.parseArgs(args);
+        command.run();
+        if (command.worker || command.numAbandoned > 0) {
+            // Timed out test runs are daemon threads, but may have started
+            // non-daemon threads of their own
+            System.exit(0);
+        }
+    }
+
+    void run() {
+        try {
+            List<Path> project = new ArrayList<>();
+            if (projectClasspath.isEmpty() && Files.isDirectory(Paths.get(outdir).resolve("baseline"))) {
+                project.add(Paths.get(outdir).resolve("baseline"));
+            }
+            for (String entry : projectClasspath) {
+                project.add(Paths.get(entry));
+            }
+            List<String> tests = new ArrayList<>(testClasses);
+            for (String dir : testDirs) {
+                project.add(Paths.get(dir));
+                if (testClasses.isEmpty()) {
+                    tests.addAll(findTestClasses(Paths.get(dir)));
+                }
+            }
+            if (tests.isEmpty()) {
+                System.err.println("No test classes to run; use --tests or --test");
+                return;
+            }
+            List<Path> libraries = new ArrayList<>();
+            for (String entry : classpath) {
+                libraries.add(Paths.get(entry));
+            }
+            if ("hotswap".equals(exec) && forks == 0 && !HotSwapAgent.isInstalled()) {
+                System.err.println("Hot-swapping needs the msav agent; run with -javaagent:<msav jar>");
+                return;
+            }
+
+            InfectionMatrix infectionMatrix = null;
+            if (matrixFile != null) {
+                infectionMatrix = InfectionMatrix.read(Paths.get(matrixFile));
+            }
+            if (worker) {
+                MutantRunner runner = newRunner(libraries, project, tests, 1);
+                runner.setInfectionMatrix(infectionMatrix);
+                serveWorker(runner);
+                return;
+            }
+
+            if (weak) {
+                runWeakMutation(libraries, project, tests);
+                return;
+            }
+
+            Path classes = classesDir == null ? Paths.get(outdir).resolve("classes") : Paths.get(classesDir);
+            List<Integer> mids = findMutants(classes);
+            if (matrix) {
+                infectionMatrix = buildInfectionMatrix(libraries, project, tests);
+                matrixFile = Paths.get(outdir).resolve(MATRIX).toAbsolutePath().toString();
+                infectionMatrix.write(Paths.get(matrixFile));
+            }
+
+            // Mutants that no test infects survive without running anything
+            List<MutantResult> results = new ArrayList<>();
+            List<Integer> infected = new ArrayList<>();
+            for (int mid : mids) {
+                if (infectionMatrix != null && !infectionMatrix.isInfected(mid)) {
+                    results.add(new MutantResult(mid, MutantResult.Status.SURVIVED, new ArrayList<>()));
+                } else {
+                    infected.add(mid);
+                }
+            }
+            if (infectionMatrix != null) {
+                System.out.println((mids.size() - infected.size()) + " of " + mids.size()
+                        + " mutants are not infected by any test and survive without running");
+            }
+            mids = infected;
+
+            // Mutants that a previous run's minimal mutants subsume run after
+            // them, first against the tests that kill their subsumers
+            // and the mutants whose conditions imply their own
+            Subsumption subsumption = null;
+            List<Integer> subsumed = new ArrayList<>();
+            Path staticFile = Paths.get(outdir).resolve(SubsumptionWriter.FILENAME);
+            if (subsumeFile != null || Files.exists(staticFile)) {
+                subsumption = Subsumption.read(subsumeFile == null ? null : Paths.get(subsumeFile),
+                        Files.exists(staticFile) ? staticFile : null);
+                List<Integer> first = new ArrayList<>();
+                for (int mid : mids) {
+                    (subsumption.isSubsumed(mid) ? subsumed : first).add(mid);
+                }
+                List<String> sources = new ArrayList<>();
+                if (subsumeFile != null) {
+                    sources.add("the " + subsumption.getMinimalMutants().size() + " minimal mutants of "
+                            + subsumeFile);
+                }
+                if (Files.exists(staticFile)) {
+                    sources.add("the implications in " + staticFile);
+                }
+                System.out.println(subsumed.size() + " of " + mids.size() + " mutants are subsumed by "
+                        + String.join(" or ", sources) + " and run against their subsumers' killing tests first");
+                mids = first;
+            }
+
+            results.addAll(runMutants(classes, mids, libraries, project, tests, infectionMatrix, matrixFile));
+            if (subsumption != null) {
+                results.addAll(runSubsumed(classes, subsumed, subsumption, results, libraries, project, tests,
+                        infectionMatrix));
+            }
+            if (localRunner != null) {
+                numAbandoned = localRunner.getNumAbandoned();
+                if (numAbandoned > 0) {
+                    System.err.println(numAbandoned + " timed out test runs could not be stopped");
+                }
+            }
+
+            results.sort((a, b) -> Integer.compare(a.getMid(), b.getMid()));
+            Path resultsPath = Paths.get(outdir).resolve(RESULTS);
+            int killed = 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(resultsPath, Charset.defaultCharset())) {
+                for (MutantResult result : results) {
+                    if (result.isKilled()) {
+                        killed += 1;
+                    }
+                    writer.write(result.toString());
+                    writer.newLine();
+                }
+            }
+            System.out.println("Killed " + killed + " of " + results.size() + " mutants; results in " + resultsPath);
+            Subsumption killedSubsumption = new Subsumption(results);
+            System.out.println(killedSubsumption.getMinimalMutants().size() + " of the "
+                    + killedSubsumption.getNumKilled()
+                    + " mutants killed by the whole suite are minimal; the rest are subsumed by them");
+        } catch (IOException e) {
+            System.err.println("Error running mutants in " + outdir);
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            System.err.println("Interrupted running mutants");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Run subsumed mutants against the tests that killed their subsumers,
+     * then the ones that none of those tests kills against every test. A
+     * subsumed mutant is only reported killed by tests that were run
+     * against it.
+     *
+     * @param firstResults the results of the mutants that ran first
+     */
+    private List<MutantResult> runSubsumed(Path classes, List<Integer> subsumed, Subsumption subsumption,
+            List<MutantResult> firstResults, List<Path> libraries, List<Path> project, List<String> tests,
+            InfectionMatrix infectionMatrix) throws IOException, InterruptedException {
+        Map<Integer, MutantResult> byMid = new HashMap<>();
+        for (MutantResult result : firstResults) {
+            byMid.put(result.getMid(), result);
+        }
+        InfectionMatrix killers = new InfectionMatrix();
+        List<Integer> confirm = new ArrayList<>();
+        List<Integer> rest = new ArrayList<>();
+        for (int mid : subsumed) {
+            Set<String> killing = new LinkedHashSet<>();
+            for (int subsumer : subsumption.getSubsumers(mid)) {
+                MutantResult result = byMid.get(subsumer);
+                if (result != null && result.getStatus() == MutantResult.Status.KILLED) {
+                    for (String test : result.getKillingTests()) {
+                        // Skip suites that could not be loaded at all
+                        if (TEST_NAME.matcher(test).matches() && (infectionMatrix == null
+                                || infectionMatrix.testsFor(mid).contains(test))) {
+                            killing.add(test);
+                        }
+                    }
+                }
+            }
+            if (killing.isEmpty()) {
+                rest.add(mid);
+            } else {
+                for (String test : killing) {
+                    killers.record(test, new int[] { mid });
+                }
+                confirm.add(mid);
+            }
+        }
+
+        List<MutantResult> results = new ArrayList<>();
+        if (!confirm.isEmpty()) {
+            Path killersFile = Paths.get(outdir).resolve(SUBSUMER_TESTS);
+            killers.write(killersFile);
+            System.out.println("Running " + confirm.size()
+                    + " subsumed mutants against the tests that kill their subsumers");
+            for (MutantResult result : runMutants(classes, confirm, libraries, project, tests, killers,
+                    killersFile.toAbsolutePath().toString())) {
+                if (result.getStatus() == MutantResult.Status.KILLED) {
+                    results.add(new MutantResult(result.getMid(), MutantResult.Status.KILLED_BY_SUBSUMER,
+                            result.getKillingTests()));
+                } else if (result.getStatus() == MutantResult.Status.TIMEOUT) {
+                    results.add(result);
+                } else {
+                    rest.add(result.getMid());
+                }
+            }
+            System.out.println(results.size() + " of " + confirm.size()
+                    + " subsumed mutants are killed by the tests that kill their subsumers");
+        }
+        if (!rest.isEmpty()) {
+            Collections.sort(rest);
+            results.addAll(runMutants(classes, rest, libraries, project, tests, infectionMatrix, matrixFile));
+        }
+        return results;
+    }
+
+    /**
+     * Run mutants in forked workers or in this JVM. Once a timed out test
+     * run in this JVM cannot be stopped, the mutants left run in a forked
+     * worker instead.
+     *
+     * @param infectionMatrixFile where forked workers read the infection
+     *                            matrix from, or null if there is none
+     */
+    private List<MutantResult> runMutants(Path classes, List<Integer> mids, List<Path> libraries,
+            List<Path> project, List<String> tests, InfectionMatrix infectionMatrix, String infectionMatrixFile)
+            throws IOException, InterruptedException {
+        List<Path> overlays = new ArrayList<>();
+        for (int mid : mids) {
+            overlays.add(classes.resolve(mid + ""));
+        }
+        if (forks > 0) {
+            return runForked(overlays, mids, libraries, project, tests, infectionMatrixFile, forks);
+        }
+        if (localRunner == null) {
+            if ("hotswap".equals(exec) && threads > 1) {
+                System.err.println("Hot-swapped mutants run one at a time; ignoring --threads");
+            }
+            localRunner = newRunner(libraries, project, tests, threads);
+            System.out.println("Running " + tests.size() + " test classes against the original program");
+            localRunner.runOriginal();
+        }
+        List<MutantResult> results = new ArrayList<>();
+        if (localRunner.getNumAbandoned() == 0) {
+            localRunner.setInfectionMatrix(infectionMatrix);
+            System.out.println("Running " + mids.size() + " mutants with a timeout of "
+                    + localRunner.getTimeoutMillis() + "ms");
+            results.addAll(localRunner.run(overlays, mids));
+            if (localRunner instanceof HotSwapRunner && ((HotSwapRunner) localRunner).getNumFallbacks() > 0) {
+                System.out.println(((HotSwapRunner) localRunner).getNumFallbacks()
+                        + " mutants could not be hot-swapped and ran in their own class loader");
+            }
+        }
+        if (results.size() < mids.size()) {
+            Set<Integer> ran = new HashSet<>();
+            for (MutantResult result : results) {
+                ran.add(result.getMid());
+            }
+            List<Path> leftOverlays = new ArrayList<>();
+            List<Integer> left = new ArrayList<>();
+            for (int i = 0; i < mids.size(); ++i) {
+                if (!ran.contains(mids.get(i))) {
+                    leftOverlays.add(overlays.get(i));
+                    left.add(mids.get(i));
+                }
+            }
+            System.err.println("A timed out test run could not be stopped; running the remaining " + left.size()
+                    + " mutants in a worker JVM");
+            results.addAll(runForked(leftOverlays, left, libraries, project, tests, infectionMatrixFile, 1));
+        }
+        return results;
+    }
+
+    private MutantRunner newRunner(List<Path> libraries, List<Path> project, List<String> tests, int threads)
+            throws IOException {
+        if ("hotswap".equals(exec)) {
+            return new HotSwapRunner(libraries, project, tests, timeoutMillis);
+        }
+        return new MutantRunner(libraries, project, tests, threads, timeoutMillis);
+    }
+
+    /**
+     * Compile the probed program written by {@code --probes} and run every
+     * test against it once
+     */
+    private InfectionMatrix buildInfectionMatrix(List<Path> libraries, List<Path> project, List<String> tests)
+            throws IOException {
+        Path probeClasses = compileProbes(libraries, project);
+        System.out.println("Running each test against the probed program in " + probeClasses);
+        MutantRunner runner = new MutantRunner(libraries, project, tests, 1, timeoutMillis);
+        InfectionMatrix infectionMatrix = runner.buildInfectionMatrix(probeClasses);
+        System.out.println(infectionMatrix.getNumInfected() + " mutants are infected by some test");
+        return infectionMatrix;
+    }
+
+    /**
+     * Compile the probed program written by {@code --probes}, run the test
+     * suite against it once and write {@code outdir/weak.msav}
+     */
+    private void runWeakMutation(List<Path> libraries, List<Path> project, List<String> tests)
+            throws IOException {
+        Path probeClasses = compileProbes(libraries, project);
+        List<Integer> mids = new ArrayList<>();
+        for (String line : Files.readAllLines(probesDir().resolve(ProbeMutantWriter.MUTANTS_INDEX),
+                Charset.defaultCharset())) {
+            if (!line.isEmpty()) {
+                mids.add(Integer.parseInt(line.split("\t", 2)[0]));
+            }
+        }
+
+        System.out.println("Running " + tests.size() + " test classes against the probed program in "
+                + probeClasses);
+        MutantRunner runner = new MutantRunner(libraries, project, tests, 1, timeoutMillis);
+        WeakMutation results = runner.runWeakMutation(probeClasses);
+        Path resultsPath = Paths.get(outdir).resolve(WEAK);
+        Map<WeakMutation.Status, Integer> counts = results.write(resultsPath, mids);
+        System.out.println("Weakly killed " + counts.get(WeakMutation.Status.KILLED) + " of " + mids.size()
+                + " mutants (" + counts.get(WeakMutation.Status.INFECTED) + " infected only, "
+                + counts.get(WeakMutation.Status.REACHED) + " reached only, "
+                + counts.get(WeakMutation.Status.NOT_REACHED) + " not reached); results in " + resultsPath);
+    }
+
+    /**
+     * Compile the probed program against the project
+     *
+     * @return the class overlay of the probed program
+     */
+    private Path compileProbes(List<Path> libraries, List<Path> project) throws IOException {
+        Path probesDir = probesDir();
+        if (!Files.isDirectory(probesDir)) {
+            throw new IOException("No probed program in " + probesDir + "; generate mutants with --probes");
+        }
+        List<File> sources;
+        try (Stream<Path> walk = Files.walk(probesDir)) {
+            sources = walk.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+        List<String> probeClasspath = new ArrayList<>();
+        for (Path entry : libraries) {
+            probeClasspath.add(entry.toString());
+        }
+        for (Path entry : project) {
+            probeClasspath.add(entry.toString());
+        }
+        MutantCompiler.Result compiled;
+        try (MutantCompiler compiler = new MutantCompiler(probeClasspath, new ArrayList<>())) {
+            compiled = compiler.compileFiles(sources);
+        }
+        if (!compiled.isSuccess()) {
+            throw new IOException("The probed program does not compile:\n" + compiled.getDiagnostics());
+        }
+        Path probeClasses = probesDir.resolve("classes");
+        CompilingMutantWriter.writeClasses(probeClasses, compiled.getClasses());
+        return probeClasses;
+    }
+
+    private Path probesDir() {
+        return Paths.get(outdir).resolve("probes");
+    }
+
+    /**
+     * Serve mutant jobs as a forked worker. Test output goes to standard
+     * error, since standard output carries the results.
+     */
+    private void serveWorker(MutantRunner runner) throws IOException, InterruptedException {
+        PrintStream results = System.out;
+        System.setOut(System.err);
+        new Worker(runner, recycleAfter).serve(
+                new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset())), results);
+    }
+
+    /**
+     * @param numWorkers how many worker JVMs to run at once
+     */
+    private List<MutantResult> runForked(List<Path> overlays, List<Integer> mids, List<Path> libraries,
+            List<Path> project, List<String> tests, String infectionMatrixFile, int numWorkers) throws IOException {
+        List<String> workerArgs = new ArrayList<>();
+        workerArgs.add("--exec");
+        workerArgs.add(exec);
+        workerArgs.add("--timeout");
+        workerArgs.add(timeoutMillis + "");
+        workerArgs.add("--recycle");
+        workerArgs.add(recycleAfter + "");
+        for (Path entry : libraries) {
+            workerArgs.add("--classpath");
+            workerArgs.add(entry.toAbsolutePath().toString());
+        }
+        for (Path entry : project) {
+            workerArgs.add("--project");
+            workerArgs.add(entry.toAbsolutePath().toString());
+        }
+        for (String test : tests) {
+            workerArgs.add("--test");
+            workerArgs.add(test);
+        }
+        if (infectionMatrixFile != null) {
+            workerArgs.add("--matrix-file");
+            workerArgs.add(Paths.get(infectionMatrixFile).toAbsolutePath().toString());
+        }
+
+        List<String> workerJvmArgs = new ArrayList<>(jvmArgs);
+        if ("hotswap".equals(exec)) {
+            String jar = HotSwapAgent.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+            if (!jar.endsWith(".jar")) {
+                throw new IOException("Hot-swapping in workers needs msav to run from its jar");
+            }
+            workerJvmArgs.add("-javaagent:" + jar);
+        }
+        if (cds && CdsArchive.isSupported()) {
+            List<Path> workerClasspath = new ArrayList<>(libraries);
+            workerClasspath.addAll(project);
+            Path archive = new CdsArchive(Paths.get(outdir).resolve("cds"))
+                    .archiveFor(workerJvmArgs, workerArgs, workerClasspath);
+            if (archive != null) {
+                workerJvmArgs.add("-XX:SharedArchiveFile=" + archive);
+            }
+        }
+
+        WorkerPool pool = new WorkerPool(WorkerPool.workerCommand(workerJvmArgs, workerArgs), numWorkers,
+                Paths.get(outdir).resolve("workers"));
+        System.out.println("Running " + mids.size() + " mutants in " + numWorkers + " worker JVMs");
+        List<MutantResult> results = pool.run(overlays, mids);
+        System.out.println("Started " + pool.getNumStarted() + " worker JVMs");
+        return results;
+    }
+
+    /**
+     * @return the ids of the mutants with a class overlay, in increasing order
+     */
+    static List<Integer> findMutants(Path classesDir) throws IOException {
+        try (Stream<Path> dirs = Files.list(classesDir)) {
+            return dirs.filter(Files::isDirectory)
+                    .map(p -> p.getFileName().toString())
+                    .filter(name -> name.matches("\\d+"))
+                    .map(Integer::parseInt)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return the binary names of the top level classes named {@code *Test}
+     *         under a test class directory
+     */
+    static List<String> findTestClasses(Path testDir) throws IOException {
+        try (Stream<Path> walk = Files.walk(testDir)) {
+            return walk.map(p -> testDir.relativize(p).toString())
+                    .filter(name -> name.endsWith("Test.class") && !name.contains("$"))
+                    .map(name -> name.substring(0, name.length() - ".class".length())
+                            .replace(File.separatorChar, '.'))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void parseArgs(String... args) {
+        int argIndex = 0;
+        while (argIndex < args.length) {
+            if ("--outdir".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --outdir");
+                    System.exit(1);
+                }
+                outdir = args[argIndex];
+            } else if ("--classes".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --classes");
+                    System.exit(1);
+                }
+                classesDir = args[argIndex];
+            } else if ("--project".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --project");
+                    System.exit(1);
+                }
+                addPath(projectClasspath, args[argIndex]);
+            } else if ("--tests".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --tests");
+                    System.exit(1);
+                }
+                testDirs.add(args[argIndex]);
+            } else if ("--test".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --test");
+                    System.exit(1);
+                }
+                testClasses.add(args[argIndex]);
+            } else if ("--classpath".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --classpath");
+                    System.exit(1);
+                }
+                addPath(classpath, args[argIndex]);
+            } else if ("--threads".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --threads");
+                    System.exit(1);
+                }
+                try {
+                    threads = Integer.parseInt(args[argIndex]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid argument for --threads: " + args[argIndex]);
+                    System.exit(1);
+                }
+                if (threads < 1) {
+                    threads = Runtime.getRuntime().availableProcessors();
+                }
+            } else if ("--timeout".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --timeout");
+                    System.exit(1);
+                }
+                try {
+                    timeoutMillis = Long.parseLong(args[argIndex]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid argument for --timeout: " + args[argIndex]);
+                    System.exit(1);
+                }
+            } else if ("--exec".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --exec");
+                    System.exit(1);
+                }
+                exec = args[argIndex];
+                if (!"classloader".equals(exec) && !"hotswap".equals(exec)) {
+                    System.err.println("Unknown exec mode: " + exec);
+                    System.exit(1);
+                }
+            } else if ("--forks".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --forks");
+                    System.exit(1);
+                }
+                try {
+                    forks = Integer.parseInt(args[argIndex]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid argument for --forks: " + args[argIndex]);
+                    System.exit(1);
+                }
+                if (forks < 1) {
+                    forks = Runtime.getRuntime().availableProcessors();
+                }
+            } else if ("--recycle".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --recycle");
+                    System.exit(1);
+                }
+                try {
+                    recycleAfter = Integer.parseInt(args[argIndex]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid argument for --recycle: " + args[argIndex]);
+                    System.exit(1);
+                }
+            } else if ("--jvmarg".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --jvmarg");
+                    System.exit(1);
+                }
+                jvmArgs.add(args[argIndex]);
+            } else if ("--weak".equals(args[argIndex])) {
+                weak = true;
+            } else if ("--matrix".equals(args[argIndex])) {
+                matrix = true;
+            } else if ("--matrix-file".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --matrix-file");
+                    System.exit(1);
+                }
+                matrixFile = args[argIndex];
+            } else if ("--subsume".equals(args[argIndex])) {
+                argIndex += 1;
+                if (argIndex >= args.length) {
+                    System.err.println("Missing argument for --subsume");
+                    System.exit(1);
+                }
+                subsumeFile = args[argIndex];
+            } else if ("--no-cds".equals(args[argIndex])) {
+                cds = false;
+            } else if ("--worker".equals(args[argIndex])) {
+                worker = true;
+            } else {
+                System.err.println("Unknown argument for run: " + args[argIndex]);
+                System.exit(1);
+            }
+            argIndex += 1;
+        }
+    }
+
+    private static void addPath(List<String> entries, String path) {
+        for (String entry : path.split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                entries.add(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.mutation_testing.run;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Dynamic subsumption between killed mutants, combined with the static
+ * subsumption that the mutator inferred from mutation conditions. A mutant
+ * subsumes another if every test that kills it also kills the other, so a
+ * test suite that kills the subsuming mutant kills the subsumed one too.
+ * Mutants with the same killing tests are equivalent; the minimal mutants
+ * are one representative of each equivalence class that no other class
+ * strictly subsumes. Running the minimal mutants is enough to tell whether
+ * a test suite still kills the mutants a previous run killed.
+ *
+ * <p>
+ * Mutants that no test killed take no part in dynamic subsumption: they are
+ * neither minimal nor subsumed, unless the static subsumption links them to
+ * the mutants whose conditions imply their own (see
+ * {@link org.mutation_testing.output.SubsumptionWriter}). Those mutants are
+ * infected whenever their subsumers are, so they are subsumed as well, and
+ * their static subsumers follow their dynamic ones.
+ */
+public class Subsumption {
+    /**
+     * The killing tests of each equivalence class, keyed by the class's
+     * smallest mutant id
+     */
+    private final Map<Integer, BitSet> killSets = new TreeMap<>();
+
+    /**
+     * The representative of each killed mutant's equivalence class
+     */
+    private final Map<Integer, Integer> representatives = new HashMap<>();
+
+    /**
+     * For each class, the minimal classes that subsume it, itself included
+     * if it is minimal
+     */
+    private final Map<Integer, List<Integer>> subsumers = new HashMap<>();
+
+    /**
+     * The static subsumers of each statically subsumed mutant
+     */
+    private final Map<Integer, List<Integer>> implied;
+
+    /**
+     * @param results the results of a previous run
+     */
+    public Subsumption(Collection<MutantResult> results) {
+        this(results, Collections.emptyMap());
+    }
+
+    /**
+     * @param results the results of a previous run
+     * @param implied the static subsumers of each mutant that has some
+     */
+    public Subsumption(Collection<MutantResult> results, Map<Integer, List<Integer>> implied) {
+        this.implied = implied;
+        Map<String, Integer> testIndex = new HashMap<>();
+        Map<BitSet, Integer> classes = new LinkedHashMap<>();
+        List<MutantResult> sorted = new ArrayList<>(results);
+        sorted.sort((a, b) -> Integer.compare(a.getMid(), b.getMid()));
+        for (MutantResult result : sorted) {
+            if (result.getStatus() != MutantResult.Status.KILLED || result.getKillingTests().isEmpty()) {
+                continue;
+            }
+            BitSet killSet = new BitSet();
+            for (String test : result.getKillingTests()) {
+                killSet.set(testIndex.computeIfAbsent(test, t -> testIndex.size()));
+            }
+            Integer representative = classes.putIfAbsent(killSet, result.getMid());
+            representatives.put(result.getMid(), representative == null ? result.getMid() : representative);
+        }
+        for (Map.Entry<BitSet, Integer> e : classes.entrySet()) {
+            killSets.put(e.getValue(), e.getKey());
+        }
+
+        // A class is minimal if no other class's kill set is a strict subset
+        // of its own
+        List<Integer> minimal = new ArrayList<>();
+        for (Map.Entry<Integer, BitSet> e : killSets.entrySet()) {
+            boolean isMinimal = true;
+            for (Map.Entry<Integer, BitSet> other : killSets.entrySet()) {
+                if (other.getKey() != e.getKey().intValue() && isSubset(other.getValue(), e.getValue())) {
+                    isMinimal = false;
+                    break;
+                }
+            }
+            if (isMinimal) {
+                minimal.add(e.getKey());
+            }
+        }
+        for (Map.Entry<Integer, BitSet> e : killSets.entrySet()) {
+            List<Integer> classSubsumers = new ArrayList<>();
+            for (int m : minimal) {
+                if (isSubset(killSets.get(m), e.getValue())) {
+                    classSubsumers.add(m);
+                }
+            }
+            subsumers.put(e.getKey(), classSubsumers);
+        }
+    }
+
+    /**
+     * @return the ids of the minimal mutants, in increasing order
+     */
+    public List<Integer> getMinimalMutants() {
+        List<Integer> minimal = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> e : subsumers.entrySet()) {
+            if (e.getValue().contains(e.getKey())) {
+                minimal.add(e.getKey());
+            }
+        }
+        Collections.sort(minimal);
+        return minimal;
+    }
+
+    /**
+     * @return true if the mutant was killed and is not minimal, so that some
+     *         minimal mutant subsumes it, or if it is statically subsumed
+     */
+    public boolean isSubsumed(int mid) {
+        if (implied.containsKey(mid)) {
+            return true;
+        }
+        Integer representative = representatives.get(mid);
+        return representative != null
+                && (representative != mid || !subsumers.get(representative).contains(representative));
+    }
+
+    /**
+     * @return the minimal mutants that subsume a killed mutant, then its
+     *         static subsumers; empty for a mutant that was not killed and
+     *         is not statically subsumed
+     */
+    public List<Integer> getSubsumers(int mid) {
+        Integer representative = representatives.get(mid);
+        List<Integer> dynamic = representative == null ? Collections.emptyList() : subsumers.get(representative);
+        List<Integer> stat = implied.getOrDefault(mid, Collections.emptyList());
+        if (stat.isEmpty()) {
+            return Collections.unmodifiableList(dynamic);
+        }
+        Set<Integer> all = new LinkedHashSet<>(dynamic);
+        all.addAll(stat);
+        all.remove(mid);
+        return Collections.unmodifiableList(new ArrayList<>(all));
+    }
+
+    /**
+     * @return how many mutants were killed
+     */
+    public int getNumKilled() {
+        return representatives.size();
+    }
+
+    private static boolean isSubset(BitSet a, BitSet b) {
+        BitSet difference = (BitSet) a.clone();
+        difference.andNot(b);
+        return difference.isEmpty();
+    }
+
+    /**
+     * Read a results file written by the {@code run} subcommand
+     */
+    public static Subsumption read(Path resultsFile) throws IOException {
+        return read(resultsFile, null);
+    }
+
+    /**
+     * Read a results file written by the {@code run} subcommand and a static
+     * subsumption file written by the mutator
+     *
+     * @param resultsFile     the results, or null for no kill data
+     * @param subsumptionFile the static subsumers, or null for none
+     * @throws IllegalArgumentException if a line of either file is malformed
+     */
+    public static Subsumption read(Path resultsFile, Path subsumptionFile) throws IOException {
+        List<MutantResult> results = new ArrayList<>();
+        if (resultsFile != null) {
+            for (String line : readLines(resultsFile)) {
+                results.add(MutantResult.parse(line));
+            }
+        }
+        Map<Integer, List<Integer>> implied = new HashMap<>();
+        if (subsumptionFile != null) {
+            for (String line : readLines(subsumptionFile)) {
+                String[] fields = line.split(",", 2);
+                if (fields.length != 2 || fields[1].isEmpty()) {
+                    throw new IllegalArgumentException("Not a subsumption line: " + line);
+                }
+                List<Integer> subsumersOf = new ArrayList<>();
+                try {
+                    for (String subsumer : fields[1].split(";")) {
+                        subsumersOf.add(Integer.parseInt(subsumer));
+                    }
+                    implied.put(Integer.parseInt(fields[0]), subsumersOf);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Not a subsumption line: " + line, e);
+                }
+            }
+        }
+        return new Subsumption(results, implied);
+    }
+
+    private static List<String> readLines(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, Charset.defaultCharset())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,111 @@
+package org.mutation_testing.run;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mutation_testing.output.ProbeMutantWriter;
+
+/**
+ * Weak mutation results read from the probes of one run of the test suite
+ * against the probed program. A mutant is weakly killed when some test
+ * reaches its site with its mutation condition true and its infected value
+ * differs from the original value there.
+ *
+ * <p>
+ * The report is written one line per mutant, {@code mid,status}.
+ */
+public class WeakMutation {
+    public enum Status {
+        /**
+         * No test evaluated the mutant's site
+         */
+        NOT_REACHED,
+
+        /**
+         * The site was evaluated, but never with the mutation condition true
+         */
+        REACHED,
+
+        /**
+         * The mutation condition held, but the infected value always equaled
+         * the original value
+         */
+        INFECTED,
+
+        /**
+         * The infected value differed from the original value
+         */
+        KILLED
+    }
+
+    private final BitSet reached;
+    private final BitSet infected;
+    private final BitSet killed;
+
+    WeakMutation(int[] reached, int[] infected, int[] killed) {
+        this.reached = toBitSet(reached);
+        this.infected = toBitSet(infected);
+        this.killed = toBitSet(killed);
+    }
+
+    /**
+     * Read the probes recorded in a class loader's copy of the probe runtime
+     *
+     * @param loader the class loader the tests ran in
+     */
+    static WeakMutation fromProbes(ClassLoader loader) throws ReflectiveOperationException {
+        Class<?> probes = loader.loadClass(ProbeMutantWriter.RUNTIME_CLASS);
+        return new WeakMutation((int[]) probes.getMethod("reached").invoke(null),
+                (int[]) probes.getMethod("infected").invoke(null),
+                (int[]) probes.getMethod("weaklyKilled").invoke(null));
+    }
+
+    public Status statusOf(int mid) {
+        if (killed.get(mid)) {
+            return Status.KILLED;
+        } else if (infected.get(mid)) {
+            return Status.INFECTED;
+        } else if (reached.get(mid)) {
+            return Status.REACHED;
+        }
+        return Status.NOT_REACHED;
+    }
+
+    /**
+     * Write the report for the given mutants
+     *
+     * @param file where to write the report
+     * @param mids the mutant ids to report, in order
+     * @return how many of the mutants have each status
+     */
+    public Map<Status, Integer> write(Path file, List<Integer> mids) throws IOException {
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            counts.put(status, 0);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, Charset.defaultCharset())) {
+            for (int mid : mids) {
+                Status status = statusOf(mid);
+                counts.put(status, counts.get(status) + 1);
+                writer.write(mid + "," + status);
+                writer.newLine();
+            }
+        }
+        return counts;
+    }
+
+    private static BitSet toBitSet(int[] mids) {
+        BitSet bits = new BitSet();
+        for (int mid : mids) {
+            bits.set(mid);
+        }
+        return bits;
+    }
+}
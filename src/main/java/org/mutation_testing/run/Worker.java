@@ -0,0 +1,105 @@
+package org.mutation_testing.run;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Paths;
+
+/**
+ * The loop a forked worker JVM runs. The worker warms up by running the
+ * tests against the original program, then takes mutant jobs from its
+ * standard input and answers each with a result line on its standard
+ * output:
+ *
+ * <pre>
+ * worker:      READY&lt;TAB&gt;timeout in milliseconds
+ * coordinator: MID&lt;TAB&gt;overlay directory
+ * worker:      DONE&lt;TAB&gt;mid,status,killingTests
+ * </pre>
+ *
+ * <p>
+ * A worker that should be replaced answers {@code LAST} instead of
+ * {@code DONE} and exits. That happens after a fixed number of mutants,
+ * after a test run times out and leaves a thread behind, and when the heap
+ * is still nearly full after garbage collection. A worker also exits when
+ * its standard input is closed.
+ */
+public class Worker {
+    public static final String READY = "READY";
+    public static final String DONE = "DONE";
+    public static final String LAST = "LAST";
+
+    /**
+     * How full a heap pool may be after collection before the worker asks to
+     * be replaced
+     */
+    static final double MAX_HEAP_AFTER_GC = 0.8;
+
+    private final MutantRunner runner;
+    private final int recycleAfter;
+
+    /**
+     * @param runner       the in-process runner to run each mutant with
+     * @param recycleAfter how many mutants to run before exiting
+     */
+    public Worker(MutantRunner runner, int recycleAfter) {
+        this.runner = runner;
+        this.recycleAfter = Math.max(1, recycleAfter);
+    }
+
+    /**
+     * Serve mutant jobs until the worker should be recycled or there are no
+     * more jobs
+     *
+     * @param in  where jobs come from
+     * @param out where results go; nothing else may write to it
+     */
+    public void serve(BufferedReader in, PrintStream out) throws IOException, InterruptedException {
+        runner.runOriginal();
+        out.println(READY + "\t" + runner.getTimeoutMillis());
+        out.flush();
+
+        int numRun = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] fields = line.split("\t", 2);
+            MutantResult result = runner.runMutant(Integer.parseInt(fields[0]), Paths.get(fields[1]));
+            numRun += 1;
+            boolean last = numRun >= recycleAfter || runner.getNumAbandoned() > 0 || memoryPressure();
+            out.println((last ? LAST : DONE) + "\t" + result);
+            out.flush();
+            if (last) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param line the first line from a worker, or null if it exited
+     * @return true if the worker started
+     */
+    static boolean isReady(String line) {
+        return line != null && line.split("\t", 2)[0].equals(READY);
+    }
+
+    /**
+     * @return true if some heap pool was nearly full after its last
+     *         collection
+     */
+    static boolean memoryPressure() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null && usage.getMax() > 0 && usage.getUsed() > MAX_HEAP_AFTER_GC * usage.getMax()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,273 @@
+package org.mutation_testing.run;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run mutants in a pool of long-lived forked worker JVMs.
+ *
+ * <p>
+ * Each worker runs a {@link Worker} loop and takes one mutant at a time over
+ * its standard input and output, so JVM startup and the warm-up run of the
+ * tests are paid once per worker rather than once per mutant. A worker that
+ * asks to be recycled, or that dies, is replaced with a fresh JVM; a mutant
+ * that kills its worker is reported as killed. A worker that does not answer
+ * within twice its test timeout plus a second is killed and replaced, and its
+ * mutant is reported as a timeout. Worker standard error goes to
+ * {@code worker-N.log} in the log directory.
+ */
+public class WorkerPool {
+    private final List<String> command;
+    private final int workers;
+    private final Path logDir;
+
+    private final AtomicInteger numStarted = new AtomicInteger();
+
+    /**
+     * How long a worker may take to start and run the original program's
+     * tests, which it bounds by its own timeout
+     */
+    static final long START_TIMEOUT_MILLIS = MutantRunner.DEFAULT_TIMEOUT_MILLIS + 60 * 1000;
+
+    /**
+     * @param command the command that starts a worker JVM
+     * @param workers how many workers to run at once
+     * @param logDir  where to write the workers' logs
+     */
+    public WorkerPool(List<String> command, int workers, Path logDir) {
+        this.command = command;
+        this.workers = Math.max(1, workers);
+        this.logDir = logDir;
+    }
+
+    /**
+     * The command to start a worker JVM running this msav
+     *
+     * @param jvmArgs    options for the worker JVM
+     * @param workerArgs arguments for {@code run --worker}
+     */
+    public static List<String> workerCommand(List<String> jvmArgs, List<String> workerArgs) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("org.mutation_testing.App");
+        command.add("run");
+        command.add("--worker");
+        command.addAll(workerArgs);
+        return command;
+    }
+
+    /**
+     * Run every mutant on the workers
+     *
+     * @param overlays the class overlay directory of each mutant
+     * @param mids     the mutant id of each overlay
+     * @return one result per mutant, in the order given
+     * @throws IOException if a worker cannot be started
+     */
+    public List<MutantResult> run(List<Path> overlays, List<Integer> mids) throws IOException {
+        Files.createDirectories(logDir);
+        MutantResult[] results = new MutantResult[overlays.size()];
+        AtomicInteger next = new AtomicInteger();
+
+        ExecutorService slots = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; ++i) {
+                Slot slot = new Slot(i + 1);
+                futures.add(slots.submit(() -> {
+                    try {
+                        int index;
+                        while ((index = next.getAndIncrement()) < results.length) {
+                            results[index] = slot.run(mids.get(index), overlays.get(index));
+                        }
+                    } finally {
+                        slot.stop();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException("Error running mutants in workers", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted running mutants in workers", e);
+                }
+            }
+        } finally {
+            slots.shutdownNow();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * @return how many worker JVMs have been started, including
+     *         replacements
+     */
+    public int getNumStarted() {
+        return numStarted.get();
+    }
+
+    /**
+     * One worker at a time, replaced as needed
+     */
+    private class Slot {
+        private final int id;
+        private Process process;
+        private PrintStream toWorker;
+
+        /**
+         * The worker's output lines, read on their own thread; empty once
+         * the worker has exited
+         */
+        private BlockingQueue<Optional<String>> fromWorker;
+
+        /**
+         * How long the worker may take to answer a job
+         */
+        private long jobTimeoutMillis;
+
+        Slot(int id) {
+            this.id = id;
+        }
+
+        MutantResult run(int mid, Path overlay) throws IOException, InterruptedException {
+            if (process == null) {
+                start();
+            }
+            toWorker.println(mid + "\t" + overlay.toAbsolutePath());
+            toWorker.flush();
+
+            String line;
+            try {
+                line = readLine(jobTimeoutMillis);
+            } catch (TimeoutException e) {
+                System.err.println("Worker " + id + " did not answer within " + jobTimeoutMillis
+                        + " ms for mutant " + mid + "; replacing it");
+                kill();
+                return new MutantResult(mid, MutantResult.Status.TIMEOUT, new ArrayList<>());
+            }
+            if (line == null) {
+                int status = process.waitFor();
+                process = null;
+                List<String> reason = new ArrayList<>();
+                reason.add("worker exited with status " + status);
+                return new MutantResult(mid, MutantResult.Status.KILLED, reason);
+            }
+            String[] fields = line.split("\t", 2);
+            if (fields.length != 2 || !(Worker.DONE.equals(fields[0]) || Worker.LAST.equals(fields[0]))) {
+                throw new IOException("Unexpected message from worker " + id + ": " + line);
+            }
+            if (Worker.LAST.equals(fields[0])) {
+                stop();
+            }
+            return MutantResult.parse(fields[1]);
+        }
+
+        private void start() throws IOException, InterruptedException {
+            ProcessBuilder builder = new ProcessBuilder(command)
+                    .redirectError(Redirect.appendTo(logDir.resolve("worker-" + id + ".log").toFile()));
+            process = builder.start();
+            numStarted.incrementAndGet();
+            toWorker = new PrintStream(process.getOutputStream(), false);
+            fromWorker = new LinkedBlockingQueue<>();
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), Charset.defaultCharset()));
+            BlockingQueue<Optional<String>> lines = fromWorker;
+            Thread reader = new Thread(() -> readLines(in, lines), "msav-worker-" + id);
+            reader.setDaemon(true);
+            reader.start();
+
+            String ready;
+            try {
+                ready = readLine(START_TIMEOUT_MILLIS);
+            } catch (TimeoutException e) {
+                ready = null;
+            }
+            if (!Worker.isReady(ready)) {
+                kill();
+                throw new IOException("Worker " + id + " failed to start; see "
+                        + logDir.resolve("worker-" + id + ".log"));
+            }
+            String[] fields = ready.split("\t", 2);
+            long timeoutMillis = fields.length == 2 ? Long.parseLong(fields[1])
+                    : MutantRunner.DEFAULT_TIMEOUT_MILLIS;
+            jobTimeoutMillis = 2 * timeoutMillis + 1000;
+        }
+
+        /**
+         * @return the worker's next line, or null if it has exited
+         * @throws TimeoutException if the worker sent nothing in time
+         */
+        private String readLine(long timeoutMillis) throws InterruptedException, TimeoutException {
+            Optional<String> line = fromWorker.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (line == null) {
+                throw new TimeoutException();
+            }
+            if (!line.isPresent()) {
+                // Later reads see the end as well
+                fromWorker.add(line);
+            }
+            return line.orElse(null);
+        }
+
+        private void kill() throws InterruptedException {
+            toWorker.close();
+            process.destroyForcibly();
+            process.waitFor();
+            process = null;
+        }
+
+        void stop() throws InterruptedException {
+            if (process == null) {
+                return;
+            }
+            toWorker.close();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+            process = null;
+        }
+    }
+
+    private static void readLines(BufferedReader in, BlockingQueue<Optional<String>> lines) {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(Optional.of(line));
+            }
+        } catch (IOException e) {
+            // The worker was killed
+        } finally {
+            lines.add(Optional.empty());
+        }
+    }
+}
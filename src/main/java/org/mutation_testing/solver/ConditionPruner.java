@@ -0,0 +1,169 @@
+package org.mutation_testing.solver;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+/**
+ * Drop product conditions that no values of the store's variables satisfy.
+ * The product of the abstract values of several variables contains
+ * combinations that are contradictory, or impossible for the variables'
+ * types, such as {@code c <= -1} for a {@code char c}; a mutant guarded by
+ * one can never be infected.
+ *
+ * <p>
+ * Conditions are checked with Z3 through a {@link SolverService}. If Z3's
+ * native library cannot be loaded, a warning is printed once and every
+ * condition is kept. A condition Z3 cannot decide within the timeout is
+ * kept as well. A pruner can be shared by every session, and sessions on
+ * different threads check their conditions concurrently.
+ *
+ * <p>
+ * A condition may also be checked under the guards of its mutation site,
+ * the branch conditions that hold whenever the site is evaluated. A
+ * condition that contradicts them, such as {@code x >= 6} for a site inside
+ * {@code if (x < 0)}, can never be infected on any path either.
+ */
+public class ConditionPruner implements Closeable {
+    /**
+     * How many conditions of a stream to give Z3 at once
+     */
+    static final int CHUNK_SIZE = 256;
+
+    private final SolverService service = new SolverService();
+    private final AtomicInteger numChecked = new AtomicInteger();
+    private final AtomicInteger numPruned = new AtomicInteger();
+    private final AtomicInteger numPrunedByPath = new AtomicInteger();
+
+    /**
+     * @param conditions the product conditions
+     * @param types      the type of each variable the conditions mention
+     * @return the conditions that some values satisfy, in order
+     */
+    public List<Expression> prune(List<Expression> conditions, Map<String, ResolvedType> types) {
+        return prune(conditions, types, Collections.emptyList());
+    }
+
+    /**
+     * @param conditions the product conditions
+     * @param types      the type of each variable the conditions mention
+     * @param guards     conditions that hold whenever the mutation site is
+     *                   evaluated
+     * @return the conditions that some values satisfy together with the
+     *         guards, in order
+     */
+    public List<Expression> prune(List<Expression> conditions, Map<String, ResolvedType> types,
+            List<Expression> guards) {
+        List<SolverService.Verdict> verdicts = service.check(conditions, types, guards);
+        List<Expression> feasible = new ArrayList<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            count(verdicts.get(i));
+            if (verdicts.get(i) == SolverService.Verdict.FEASIBLE) {
+                feasible.add(conditions.get(i));
+            }
+        }
+        return feasible;
+    }
+
+    /**
+     * Check conditions as they are produced, a chunk at a time, so that a
+     * large product is never held in memory at once
+     *
+     * @param conditions the product conditions
+     * @param types      the type of each variable the conditions mention
+     * @param guards     conditions that hold whenever the mutation site is
+     *                   evaluated
+     * @return the conditions that some values satisfy together with the
+     *         guards, in order
+     */
+    public List<Expression> prune(Iterable<Expression> conditions, Map<String, ResolvedType> types,
+            List<Expression> guards) {
+        List<Expression> feasible = new ArrayList<>();
+        List<Expression> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (Expression condition : conditions) {
+            chunk.add(condition);
+            if (chunk.size() == CHUNK_SIZE) {
+                feasible.addAll(prune(chunk, types, guards));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            feasible.addAll(prune(chunk, types, guards));
+        }
+        return feasible;
+    }
+
+    /**
+     * @param condition a condition over store variables
+     * @param types     the type of each variable the condition mentions
+     * @return false only if Z3 shows that no values satisfy the condition
+     */
+    public boolean isSatisfiable(Expression condition, Map<String, ResolvedType> types) {
+        return isSatisfiable(condition, types, Collections.emptyList());
+    }
+
+    /**
+     * @param condition a condition over store variables
+     * @param types     the type of each variable the condition mentions
+     * @param guards    conditions that hold whenever the condition is
+     *                  evaluated
+     * @return false only if Z3 shows that no values satisfy the condition
+     *         and the guards together
+     */
+    public boolean isSatisfiable(Expression condition, Map<String, ResolvedType> types,
+            List<Expression> guards) {
+        SolverService.Verdict verdict = service.check(Collections.singletonList(condition), types, guards).get(0);
+        count(verdict);
+        return verdict == SolverService.Verdict.FEASIBLE;
+    }
+
+    private void count(SolverService.Verdict verdict) {
+        numChecked.incrementAndGet();
+        if (verdict != SolverService.Verdict.FEASIBLE) {
+            numPruned.incrementAndGet();
+        }
+        if (verdict == SolverService.Verdict.INFEASIBLE_ON_PATH) {
+            numPrunedByPath.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return how many conditions have been checked
+     */
+    public int getNumChecked() {
+        return numChecked.get();
+    }
+
+    /**
+     * @return how many conditions have been dropped as unsatisfiable
+     */
+    public int getNumPruned() {
+        return numPruned.get();
+    }
+
+    /**
+     * @return how many of the pruned conditions are satisfiable alone, and
+     *         were dropped because they contradict their site's guards
+     */
+    public int getNumPrunedByPath() {
+        return numPrunedByPath.get();
+    }
+
+    /**
+     * @return the solver service that decides the conditions
+     */
+    public SolverService getService() {
+        return service;
+    }
+
+    @Override
+    public void close() {
+        service.close();
+    }
+}
@@ -0,0 +1,230 @@
+package org.mutation_testing.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.resolution.types.ResolvedType;
+import com.microsoft.z3.ArithExpr;
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Expr;
+import com.microsoft.z3.IntExpr;
+import com.microsoft.z3.SeqExpr;
+
+/**
+ * Translate mutation conditions to Z3 formulas.
+ *
+ * <p>
+ * Names are translated by the type of their store state: integral types to
+ * integers bounded by the type's range, booleans to booleans and strings to
+ * strings. Comparisons, {@code !}, {@code &&}, {@code ||} and
+ * {@code String.equals} are translated exactly, except that {@code ==} on
+ * references is an atom, since it compares identity. Any other
+ * boolean subexpression, such as an arbitrary method call, becomes an opaque
+ * boolean atom named by its text, so the same call is the same atom
+ * everywhere in a formula. Arithmetic is not translated, since Java's
+ * overflowing arithmetic is not integer arithmetic; a comparison involving
+ * arithmetic is an atom too. Atoms can only make a formula easier to
+ * satisfy, so an unsatisfiable translation means an infeasible condition.
+ */
+class ConditionTranslator {
+    private final Context ctx;
+    private final Map<String, ResolvedType> types;
+    private final Map<String, Expr<?>> names = new HashMap<>();
+
+    /**
+     * Range constraints for the integral names translated so far
+     */
+    private final List<BoolExpr> ranges = new ArrayList<>();
+
+    /**
+     * @param ctx   the context to build formulas in
+     * @param types the type of each name that conditions may mention
+     */
+    ConditionTranslator(Context ctx, Map<String, ResolvedType> types) {
+        this.ctx = ctx;
+        this.types = types;
+    }
+
+    /**
+     * Translate every name that has a type, so that the range constraints of
+     * all the names are known up front
+     *
+     * @return the range constraints of the integral names
+     */
+    List<BoolExpr> declare() {
+        for (String name : types.keySet()) {
+            name(name);
+        }
+        return new ArrayList<>(ranges);
+    }
+
+    /**
+     * @return the formula for a boolean expression, without the range
+     *         constraints of the names it mentions; names that were not
+     *         declared by {@link #declare()} have their constraints added
+     *         to the result
+     */
+    BoolExpr formula(Expression condition) {
+        int numRanges = ranges.size();
+        BoolExpr formula = bool(condition);
+        if (ranges.size() == numRanges) {
+            return formula;
+        }
+        List<BoolExpr> conjuncts = new ArrayList<>(ranges.subList(numRanges, ranges.size()));
+        conjuncts.add(formula);
+        return ctx.mkAnd(conjuncts.toArray(new BoolExpr[0]));
+    }
+
+    private BoolExpr bool(Expression e) {
+        if (e.isEnclosedExpr()) {
+            return bool(e.asEnclosedExpr().getInner());
+        } else if (e.isBooleanLiteralExpr()) {
+            return ctx.mkBool(e.asBooleanLiteralExpr().getValue());
+        } else if (e.isUnaryExpr() && e.asUnaryExpr().getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+            return ctx.mkNot(bool(e.asUnaryExpr().getExpression()));
+        } else if (e.isBinaryExpr()) {
+            BinaryExpr b = e.asBinaryExpr();
+            switch (b.getOperator()) {
+                case AND:
+                    return ctx.mkAnd(bool(b.getLeft()), bool(b.getRight()));
+                case OR:
+                    return ctx.mkOr(bool(b.getLeft()), bool(b.getRight()));
+                default:
+                    return comparison(b);
+            }
+        } else if (e.isNameExpr()) {
+            Expr<?> name = termOrNull(e);
+            if (name instanceof BoolExpr) {
+                return (BoolExpr) name;
+            }
+        } else if (e.isMethodCallExpr()) {
+            BoolExpr equals = stringEquals(e.asMethodCallExpr());
+            if (equals != null) {
+                return equals;
+            }
+        }
+        return atom(e);
+    }
+
+    private BoolExpr comparison(BinaryExpr b) {
+        Expr<?> left = termOrNull(b.getLeft());
+        Expr<?> right = termOrNull(b.getRight());
+        if (left == null || right == null || left instanceof SeqExpr
+                || isReference(b.getLeft()) && isReference(b.getRight())) {
+            // == on strings and between boxed values compares references
+            return atom(b);
+        }
+        boolean arith = left instanceof ArithExpr && right instanceof ArithExpr;
+        switch (b.getOperator()) {
+            case EQUALS:
+                return arith || left.getSort().equals(right.getSort()) ? ctx.mkEq(left, right) : atom(b);
+            case NOT_EQUALS:
+                return arith || left.getSort().equals(right.getSort()) ? ctx.mkNot(ctx.mkEq(left, right)) : atom(b);
+            case LESS:
+                return arith ? ctx.mkLt(arith(left), arith(right)) : atom(b);
+            case LESS_EQUALS:
+                return arith ? ctx.mkLe(arith(left), arith(right)) : atom(b);
+            case GREATER:
+                return arith ? ctx.mkGt(arith(left), arith(right)) : atom(b);
+            case GREATER_EQUALS:
+                return arith ? ctx.mkGe(arith(left), arith(right)) : atom(b);
+            default:
+                return atom(b);
+        }
+    }
+
+    /**
+     * @return {@code s.equals("lit")} or {@code "lit".equals(s)} as string
+     *         equality, or null for any other call
+     */
+    private BoolExpr stringEquals(MethodCallExpr call) {
+        if (!"equals".equals(call.getNameAsString()) || call.getArguments().size() != 1
+                || !call.getScope().isPresent()) {
+            return null;
+        }
+        Expr<?> scope = termOrNull(call.getScope().get());
+        Expr<?> argument = termOrNull(call.getArgument(0));
+        if (scope instanceof SeqExpr && argument instanceof SeqExpr) {
+            return ctx.mkEq(scope, argument);
+        }
+        return null;
+    }
+
+    /**
+     * @return the term for a non-boolean-connective expression, or null if it
+     *         cannot be translated
+     */
+    private Expr<?> termOrNull(Expression e) {
+        if (e.isEnclosedExpr()) {
+            return termOrNull(e.asEnclosedExpr().getInner());
+        } else if (e.isIntegerLiteralExpr()) {
+            return ctx.mkInt(e.asIntegerLiteralExpr().asNumber().longValue());
+        } else if (e.isLongLiteralExpr()) {
+            return ctx.mkInt(e.asLongLiteralExpr().asNumber().longValue());
+        } else if (e.isCharLiteralExpr()) {
+            return ctx.mkInt(e.asCharLiteralExpr().asChar());
+        } else if (e.isStringLiteralExpr()) {
+            return ctx.mkString(e.asStringLiteralExpr().asString());
+        } else if (e.isBooleanLiteralExpr()) {
+            return ctx.mkBool(e.asBooleanLiteralExpr().getValue());
+        } else if (e.isUnaryExpr() && e.asUnaryExpr().getOperator() == UnaryExpr.Operator.MINUS) {
+            Expr<?> operand = termOrNull(e.asUnaryExpr().getExpression());
+            return operand instanceof ArithExpr ? ctx.mkUnaryMinus(arith(operand)) : null;
+        } else if (e.isNameExpr()) {
+            return name(e.asNameExpr().getNameAsString());
+        }
+        return null;
+    }
+
+    private Expr<?> name(String name) {
+        Expr<?> term = names.get(name);
+        if (term != null) {
+            return term;
+        }
+        ResolvedType type = types.get(name);
+        if (type == null) {
+            return null;
+        }
+        long[] range = TypeRanges.rangeOf(type);
+        if (range != null) {
+            IntExpr var = ctx.mkIntConst(name);
+            ranges.add(ctx.mkGe(var, ctx.mkInt(range[0])));
+            ranges.add(ctx.mkLe(var, ctx.mkInt(range[1])));
+            term = var;
+        } else if (TypeRanges.isBoolean(type)) {
+            term = ctx.mkBoolConst(name);
+        } else if (TypeRanges.isString(type)) {
+            term = ctx.mkConst(name, ctx.mkStringSort());
+        } else {
+            return null;
+        }
+        names.put(name, term);
+        return term;
+    }
+
+    private boolean isReference(Expression e) {
+        while (e.isEnclosedExpr()) {
+            e = e.asEnclosedExpr().getInner();
+        }
+        if (!e.isNameExpr()) {
+            return false;
+        }
+        ResolvedType type = types.get(e.asNameExpr().getNameAsString());
+        return type != null && !type.isPrimitive();
+    }
+
+    private BoolExpr atom(Expression e) {
+        return ctx.mkBoolConst("atom:" + e);
+    }
+
+    private static ArithExpr<?> arith(Expr<?> e) {
+        return (ArithExpr<?>) e;
+    }
+}
@@ -0,0 +1,257 @@
+package org.mutation_testing.solver;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.resolution.types.ResolvedType;
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Params;
+import com.microsoft.z3.Solver;
+import com.microsoft.z3.Status;
+import com.microsoft.z3.Z3Exception;
+
+/**
+ * Decide the feasibility of a mutation site's conditions with Z3.
+ *
+ * <p>
+ * Z3 contexts are not thread safe, so each thread that checks conditions
+ * gets its own context and solver, created on its first check and closed
+ * with the service. Every condition at a site shares the site's variables
+ * and guards, so the range constraints of the variables are asserted once
+ * per site in a solver scope, the guards are passed as assumptions, and
+ * each condition is checked in a nested scope. Verdicts are memoized by the
+ * text of the condition, the guards and the types of the site's variables,
+ * which the pretty printer renders canonically, so a condition that recurs
+ * at another site with the same variables is not solved again.
+ */
+public class SolverService implements Closeable {
+    /**
+     * How long Z3 may take to decide one condition
+     */
+    static final int TIMEOUT_MILLIS = 1000;
+
+    /**
+     * How many verdicts to memoize before starting over
+     */
+    static final int MAX_CACHED = 100_000;
+
+    public enum Verdict {
+        /**
+         * Some values satisfy the condition on some path to its site, or Z3
+         * could not tell
+         */
+        FEASIBLE,
+
+        /**
+         * No values satisfy the condition
+         */
+        INFEASIBLE,
+
+        /**
+         * Some values satisfy the condition, but none on a path to its site
+         */
+        INFEASIBLE_ON_PATH
+    }
+
+    private static class ThreadSolver {
+        final Context context;
+        final Solver solver;
+
+        ThreadSolver() {
+            context = new Context();
+            solver = context.mkSolver();
+            Params params = context.mkParams();
+            params.add("timeout", TIMEOUT_MILLIS);
+            solver.setParameters(params);
+        }
+    }
+
+    private final ThreadLocal<ThreadSolver> solvers = new ThreadLocal<>();
+    private final List<ThreadSolver> allSolvers = new ArrayList<>();
+    private final Map<String, Verdict> verdicts = new ConcurrentHashMap<>();
+    private final AtomicBoolean unavailable = new AtomicBoolean(false);
+    private final AtomicInteger numSolved = new AtomicInteger();
+    private final AtomicInteger numCached = new AtomicInteger();
+    private final AtomicLong solverNanos = new AtomicLong();
+
+    /**
+     * @param conditions the conditions at a site
+     * @param types      the type of each of the site's variables
+     * @param guards     conditions that hold whenever the site is evaluated
+     * @return the verdict for each condition, in order
+     */
+    public List<Verdict> check(List<Expression> conditions, Map<String, ResolvedType> types,
+            List<Expression> guards) {
+        List<Verdict> result = new ArrayList<>(conditions.size());
+        String prefix = key(types, guards);
+        List<Integer> unsolved = new ArrayList<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            Verdict verdict = verdicts.get(prefix + conditions.get(i));
+            if (verdict != null) {
+                numCached.incrementAndGet();
+            } else {
+                unsolved.add(i);
+            }
+            result.add(verdict);
+        }
+        if (unsolved.isEmpty()) {
+            return result;
+        }
+
+        ThreadSolver ts = start();
+        if (ts == null) {
+            for (int i : unsolved) {
+                result.set(i, Verdict.FEASIBLE);
+            }
+            return result;
+        }
+        long start = System.nanoTime();
+        ts.solver.push();
+        try {
+            ConditionTranslator translator = new ConditionTranslator(ts.context, types);
+            ts.solver.add(translator.declare().toArray(new BoolExpr[0]));
+            List<BoolExpr> assumptions = new ArrayList<>();
+            for (Expression guard : guards) {
+                assumptions.add(translator.formula(guard));
+            }
+            for (int i : unsolved) {
+                Verdict verdict = solve(ts.solver, translator.formula(conditions.get(i)), assumptions);
+                if (verdicts.size() >= MAX_CACHED) {
+                    verdicts.clear();
+                }
+                verdicts.put(prefix + conditions.get(i), verdict);
+                result.set(i, verdict);
+            }
+        } catch (Z3Exception e) {
+            for (int i : unsolved) {
+                if (result.get(i) == null) {
+                    result.set(i, Verdict.FEASIBLE);
+                }
+            }
+        } finally {
+            ts.solver.pop();
+            solverNanos.addAndGet(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /**
+     * @param premise    a condition over the variables
+     * @param conclusion a condition over the variables
+     * @param types      the type of each variable either condition mentions
+     * @return true only if Z3 shows that every value satisfying the premise
+     *         satisfies the conclusion
+     */
+    public boolean implies(Expression premise, Expression conclusion, Map<String, ResolvedType> types) {
+        // The conditions belong to mutants, so the new expression must not
+        // adopt them
+        Expression counterexample = new BinaryExpr(new EnclosedExpr(premise.clone()),
+                new UnaryExpr(new EnclosedExpr(conclusion.clone()), UnaryExpr.Operator.LOGICAL_COMPLEMENT),
+                BinaryExpr.Operator.AND);
+        return check(Collections.singletonList(counterexample), types, Collections.emptyList())
+                .get(0) == Verdict.INFEASIBLE;
+    }
+
+    private Verdict solve(Solver solver, BoolExpr condition, List<BoolExpr> assumptions) {
+        numSolved.incrementAndGet();
+        solver.push();
+        try {
+            solver.add(new BoolExpr[] { condition });
+            if (solver.check(assumptions.toArray(new BoolExpr[0])) != Status.UNSATISFIABLE) {
+                return Verdict.FEASIBLE;
+            }
+            if (assumptions.isEmpty() || solver.check() == Status.UNSATISFIABLE) {
+                return Verdict.INFEASIBLE;
+            }
+            return Verdict.INFEASIBLE_ON_PATH;
+        } finally {
+            solver.pop();
+        }
+    }
+
+    /**
+     * @return the memoization key prefix for a site: its variables' types
+     *         and its guards
+     */
+    private static String key(Map<String, ResolvedType> types, List<Expression> guards) {
+        StringBuilder key = new StringBuilder();
+        for (Map.Entry<String, ResolvedType> e : new TreeMap<>(types).entrySet()) {
+            key.append(e.getKey()).append(':').append(e.getValue().describe()).append(';');
+        }
+        key.append('|');
+        for (Expression guard : guards) {
+            key.append(guard).append(';');
+        }
+        return key.append('|').toString();
+    }
+
+    /**
+     * @return this thread's solver, or null if Z3 is not available
+     */
+    private ThreadSolver start() {
+        ThreadSolver ts = solvers.get();
+        if (ts != null || unavailable.get()) {
+            return ts;
+        }
+        try {
+            ts = new ThreadSolver();
+        } catch (LinkageError | Z3Exception e) {
+            if (!unavailable.getAndSet(true)) {
+                System.err.println("Z3 is not available; keeping every product condition (" + e + ")");
+            }
+            return null;
+        }
+        synchronized (allSolvers) {
+            allSolvers.add(ts);
+        }
+        solvers.set(ts);
+        return ts;
+    }
+
+    /**
+     * @return how many conditions were given to Z3
+     */
+    public int getNumSolved() {
+        return numSolved.get();
+    }
+
+    /**
+     * @return how many conditions were answered from memoized verdicts
+     */
+    public int getNumCached() {
+        return numCached.get();
+    }
+
+    /**
+     * @return the total time threads spent in Z3, in milliseconds
+     */
+    public long getSolverMillis() {
+        return solverNanos.get() / 1_000_000;
+    }
+
+    /**
+     * Close every thread's context. The service must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        synchronized (allSolvers) {
+            for (ThreadSolver ts : allSolvers) {
+                ts.context.close();
+            }
+            allSolvers.clear();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.mutation_testing.solver;
+
+import com.github.javaparser.resolution.types.ResolvedType;
+
+/**
+ * The values each type recorded in a store state can take
+ */
+class TypeRanges {
+    private TypeRanges() {
+        throw new UnsupportedOperationException("This class should not be instantiated");
+    }
+
+    /**
+     * @return the inclusive {@code {min, max}} range of an integral
+     *         primitive or boxed type, or null for any other type
+     */
+    static long[] rangeOf(ResolvedType type) {
+        String name;
+        if (type.isPrimitive()) {
+            name = type.asPrimitive().name();
+        } else if (type.isReferenceType()) {
+            name = type.asReferenceType().getQualifiedName();
+        } else {
+            return null;
+        }
+        switch (name) {
+            case "BYTE":
+            case "java.lang.Byte":
+                return new long[] { Byte.MIN_VALUE, Byte.MAX_VALUE };
+            case "SHORT":
+            case "java.lang.Short":
+                return new long[] { Short.MIN_VALUE, Short.MAX_VALUE };
+            case "CHAR":
+            case "java.lang.Character":
+                return new long[] { Character.MIN_VALUE, Character.MAX_VALUE };
+            case "INT":
+            case "java.lang.Integer":
+                return new long[] { Integer.MIN_VALUE, Integer.MAX_VALUE };
+            case "LONG":
+            case "java.lang.Long":
+                return new long[] { Long.MIN_VALUE, Long.MAX_VALUE };
+            default:
+                return null;
+        }
+    }
+
+    static boolean isBoolean(ResolvedType type) {
+        return type.isPrimitive() && "BOOLEAN".equals(type.asPrimitive().name())
+                || type.isReferenceType() && "java.lang.Boolean".equals(type.asReferenceType().getQualifiedName());
+    }
+
+    static boolean isString(ResolvedType type) {
+        return type.isReferenceType() && "java.lang.String".equals(type.asReferenceType().getQualifiedName());
+    }
+}
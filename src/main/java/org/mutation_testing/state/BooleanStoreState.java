@@ -22,6 +22,11 @@ public class BooleanStoreState extends StoreState {
         return Arrays.asList(name, new UnaryExpr(name, UnaryExpr.Operator.LOGICAL_COMPLEMENT));
     }
 
+    @Override
+    int numTypeSpecificConditions() {
+        return 2;
+    }
+
     @Override
     String pretty(String expr) {
         return "[" + expr + ", !" + expr + "]";
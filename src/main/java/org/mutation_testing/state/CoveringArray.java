@@ -0,0 +1,216 @@
+package org.mutation_testing.state;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Build t-way covering arrays with the IPOG strategy: a set of rows, each
+ * choosing one value for every variable, such that every combination of
+ * values of every t variables appears in some row.
+ *
+ * <p>
+ * The rows start as the full product of the first t variables. Each further
+ * variable is added by first giving every row the value that covers the most
+ * uncovered combinations with the earlier variables, and then covering
+ * the combinations still uncovered in rows whose other positions are still
+ * free, adding rows as needed. Positions that no combination needs are
+ * filled with each variable's first value at the end. The construction is
+ * deterministic.
+ */
+class CoveringArray {
+    private CoveringArray() {
+        throw new UnsupportedOperationException("This class should not be instantiated");
+    }
+
+    /**
+     * @param sizes    the number of values of each variable
+     * @param strength t, the number of variables whose combinations must all
+     *                 be covered
+     * @return the rows, each holding the index of a value for every variable
+     */
+    static List<int[]> build(int[] sizes, int strength) {
+        List<int[]> rows = new ArrayList<>();
+        if (sizes.length == 0) {
+            return rows;
+        }
+        for (int size : sizes) {
+            if (size == 0) {
+                return rows;
+            }
+        }
+        if (strength < 1) {
+            throw new IllegalArgumentException("Invalid strength: " + strength);
+        }
+
+        // The full product of the first t variables, first variable fastest
+        int t = Math.min(strength, sizes.length);
+        int[] row = new int[sizes.length];
+        do {
+            rows.add(row.clone());
+        } while (increment(row, sizes, t));
+
+        for (int i = t; i < sizes.length; i++) {
+            extend(rows, sizes, i, t);
+        }
+        for (int[] r : rows) {
+            for (int i = 0; i < r.length; i++) {
+                if (r[i] < 0) {
+                    r[i] = 0;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Add variable i to the rows so that its combinations with every t-1 of
+     * the earlier variables are covered
+     */
+    private static void extend(List<int[]> rows, int[] sizes, int i, int t) {
+        List<int[]> combinations = combinations(i, t - 1);
+        List<BitSet> uncovered = new ArrayList<>();
+        for (int[] combination : combinations) {
+            BitSet tuples = new BitSet();
+            tuples.set(0, numAssignments(combination, sizes) * sizes[i]);
+            uncovered.add(tuples);
+        }
+
+        // Horizontal growth
+        for (int[] row : rows) {
+            int best = 0;
+            int bestCovered = -1;
+            for (int v = 0; v < sizes[i]; v++) {
+                int covered = 0;
+                for (int c = 0; c < combinations.size(); c++) {
+                    int tuple = tupleIndex(row, combinations.get(c), sizes, i, v);
+                    if (tuple >= 0 && uncovered.get(c).get(tuple)) {
+                        covered += 1;
+                    }
+                }
+                if (covered > bestCovered) {
+                    best = v;
+                    bestCovered = covered;
+                }
+            }
+            row[i] = best;
+            for (int c = 0; c < combinations.size(); c++) {
+                int tuple = tupleIndex(row, combinations.get(c), sizes, i, best);
+                if (tuple >= 0) {
+                    uncovered.get(c).clear(tuple);
+                }
+            }
+        }
+
+        // Vertical growth; -1 marks a position that no combination needs yet
+        for (int c = 0; c < combinations.size(); c++) {
+            int[] combination = combinations.get(c);
+            BitSet tuples = uncovered.get(c);
+            for (int tuple = tuples.nextSetBit(0); tuple >= 0; tuple = tuples.nextSetBit(tuple + 1)) {
+                int v = tuple % sizes[i];
+                int[] values = new int[combination.length];
+                int assignment = tuple / sizes[i];
+                for (int k = 0; k < combination.length; k++) {
+                    values[k] = assignment % sizes[combination[k]];
+                    assignment /= sizes[combination[k]];
+                }
+                int[] target = null;
+                for (int[] candidate : rows) {
+                    if (fits(candidate, combination, values, i, v)) {
+                        target = candidate;
+                        break;
+                    }
+                }
+                if (target == null) {
+                    target = new int[sizes.length];
+                    Arrays.fill(target, -1);
+                    rows.add(target);
+                }
+                for (int k = 0; k < combination.length; k++) {
+                    target[combination[k]] = values[k];
+                }
+                target[i] = v;
+            }
+        }
+    }
+
+    private static boolean fits(int[] row, int[] combination, int[] values, int i, int v) {
+        if (row[i] >= 0 && row[i] != v) {
+            return false;
+        }
+        for (int k = 0; k < combination.length; k++) {
+            int current = row[combination[k]];
+            if (current >= 0 && current != values[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the index of a row's combination of values for some earlier
+     *         variables and value v for variable i, or -1 if the row has no
+     *         value yet for one of the variables
+     */
+    private static int tupleIndex(int[] row, int[] combination, int[] sizes, int i, int v) {
+        int assignment = 0;
+        for (int k = combination.length - 1; k >= 0; k--) {
+            if (row[combination[k]] < 0) {
+                return -1;
+            }
+            assignment = assignment * sizes[combination[k]] + row[combination[k]];
+        }
+        return assignment * sizes[i] + v;
+    }
+
+    private static int numAssignments(int[] combination, int[] sizes) {
+        int n = 1;
+        for (int k : combination) {
+            n = Math.multiplyExact(n, sizes[k]);
+        }
+        return n;
+    }
+
+    /**
+     * @return every k-subset of {0, ..., n-1}, each in increasing order
+     */
+    private static List<int[]> combinations(int n, int k) {
+        List<int[]> result = new ArrayList<>();
+        int[] combination = new int[k];
+        for (int j = 0; j < k; j++) {
+            combination[j] = j;
+        }
+        while (true) {
+            result.add(combination.clone());
+            int j = k - 1;
+            while (j >= 0 && combination[j] == n - k + j) {
+                j -= 1;
+            }
+            if (j < 0) {
+                return result;
+            }
+            combination[j] += 1;
+            for (int m = j + 1; m < k; m++) {
+                combination[m] = combination[m - 1] + 1;
+            }
+        }
+    }
+
+    /**
+     * Advance the first t positions of a row in mixed radix, first position
+     * fastest
+     *
+     * @return false once every combination has been produced
+     */
+    private static boolean increment(int[] row, int[] sizes, int t) {
+        for (int i = 0; i < t; i++) {
+            row[i] += 1;
+            if (row[i] < sizes[i]) {
+                return true;
+            }
+            row[i] = 0;
+        }
+        return false;
+    }
+}
@@ -33,6 +33,11 @@ class IntStoreState extends StoreState {
         return conditions;
     }
 
+    @Override
+    int numTypeSpecificConditions() {
+        return intervals.numConditions() + additionalRelations.size();
+    }
+
     @Override
     String pretty(String expr) {
         return intervals.pretty(expr);
@@ -20,6 +20,11 @@ public class ObjectStoreState extends StoreState {
         return new ArrayList<>();
     }
 
+    @Override
+    int numTypeSpecificConditions() {
+        return 0;
+    }
+
     @Override
     String pretty(String expr) {
         StringJoiner sj = new StringJoiner(", ", "[", "]");
@@ -65,6 +65,18 @@ public class PuncturedIntervals implements AbstractStates {
         return stringConditions;
     }
 
+    /**
+     * @return how many conditions {@link #asConditions(Expression)} builds,
+     *         without building them
+     */
+    public int numConditions() {
+        int numConditions = 0;
+        for (PuncturedIntervals.Interval interval : intervals) {
+            numConditions += interval.numConditions();
+        }
+        return numConditions;
+    }
+
     public int numAbstractValues() {
         int numValues = 0;
         for (PuncturedIntervals.Interval interval : intervals) {
@@ -159,6 +171,24 @@ public class PuncturedIntervals implements AbstractStates {
             return cond;
         }
 
+        /**
+         * @return how many conditions {@link #asConditions(Expression)}
+         *         builds, without building them
+         */
+        public int numConditions() {
+            if (lowerBound.equals(upperBound)) {
+                return 1;
+            }
+            boolean hasIntervalCondition;
+            if (lowerBound + punctures.size() < upperBound) {
+                hasIntervalCondition = lowerBound != Long.MIN_VALUE || upperBound != Long.MAX_VALUE
+                        || !punctures.isEmpty();
+            } else {
+                hasIntervalCondition = !punctures.isEmpty();
+            }
+            return (hasIntervalCondition ? 1 : 0) + punctures.size();
+        }
+
         public List<Expression> asConditions(Expression expr) {
             List<Expression> conditions = new ArrayList<>();
             // The general case
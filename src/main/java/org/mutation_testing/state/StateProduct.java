@@ -1,13 +1,20 @@
 package org.mutation_testing.state;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.EnclosedExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
 
 /**
  * Compute the product of states
@@ -18,7 +25,70 @@ public class StateProduct {
     }
 
     public static List<Expression> getProductConditions(Map<String, StoreState> localStore) {
+        return getProduct(localStore).toList();
+    }
+
+    /**
+     * @return the lazy product of the conditions of each variable's abstract
+     *         values
+     */
+    public static Product getProduct(Map<String, StoreState> localStore) {
+        return new Product(getVariableConditions(localStore));
+    }
+
+    /**
+     * @param strength t, or 0 for the full product
+     * @return the full product, or a t-way covering subset of it: for every
+     *         t variables, every combination of their abstract values
+     *         appears in some condition
+     */
+    public static Product getProduct(Map<String, StoreState> localStore, int strength) {
+        if (strength <= 0 || localStore.size() <= strength) {
+            return getProduct(localStore);
+        }
+        List<List<Expression>> conditionsToProduct = getVariableConditions(localStore);
+        int[] sizes = new int[conditionsToProduct.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = conditionsToProduct.get(i).size();
+        }
+        return new Product(conditionsToProduct, CoveringArray.build(sizes, strength));
+    }
+
+    /**
+     * Count the conditions {@link #getProduct(Map, int)} would produce from
+     * the number of each variable's abstract values, without building any.
+     * A covering product's rows are still computed, but not its conditions.
+     *
+     * @param strength t, or 0 for the full product
+     * @return the number of conditions, or {@link Long#MAX_VALUE} if there
+     *         are more
+     */
+    public static long getProductSize(Map<String, StoreState> localStore, int strength) {
+        int[] sizes = new int[localStore.size()];
+        int i = 0;
+        for (StoreState state : localStore.values()) {
+            sizes[i++] = state.numConditions();
+        }
+        if (strength > 0 && sizes.length > strength) {
+            return CoveringArray.build(sizes, strength).size();
+        }
+        long size = sizes.length == 0 ? 0 : 1;
+        for (int n : sizes) {
+            if (n == 0) {
+                return 0;
+            }
+            if (size < Long.MAX_VALUE) {
+                try {
+                    size = Math.multiplyExact(size, n);
+                } catch (ArithmeticException e) {
+                    size = Long.MAX_VALUE;
+                }
+            }
+        }
+        return size;
+    }
 
+    private static List<List<Expression>> getVariableConditions(Map<String, StoreState> localStore) {
         List<List<Expression>> conditionsToProduct = new ArrayList<>();
 
         for (Map.Entry<String, StoreState> e : localStore.entrySet()) {
@@ -26,45 +96,357 @@ public class StateProduct {
             NameExpr name = new NameExpr(ident);
             conditionsToProduct.add(e.getValue().getConditions(name));
         }
-
-        return conditionProductHelper(conditionsToProduct);
+        return conditionsToProduct;
     }
 
-    private static void incrementIndices(int[] indices, int[] sizes) {
-        for (int i = 0; i < indices.length; i++) {
-            indices[i] += 1;
-            if (indices[i] < sizes[i]) {
-                break;
+    /**
+     * The conjunctions of one condition from each variable, built only as
+     * they are requested. The first variable's condition varies fastest.
+     *
+     * <p>
+     * A product is indexed by a {@code long}, and its size is checked for
+     * overflow. A product of more than {@link Long#MAX_VALUE} conditions can
+     * still be iterated, but only its first {@link Long#MAX_VALUE}
+     * conditions are reachable and it reports no exact size.
+     *
+     * <p>
+     * A covering product holds only the rows of a covering array, each
+     * choosing one condition for every variable.
+     */
+    public static class Product implements Iterable<Expression> {
+        private final List<List<Expression>> abstractValueConditions;
+
+        /**
+         * The number of conditions, or -1 if it does not fit in a long
+         */
+        private final long size;
+
+        /**
+         * The rows of a covering product, or null for the full product
+         */
+        private final List<int[]> rows;
+
+        Product(List<List<Expression>> abstractValueConditions, List<int[]> rows) {
+            this.abstractValueConditions = abstractValueConditions;
+            this.rows = rows;
+            this.size = rows.size();
+        }
+
+        Product(List<List<Expression>> abstractValueConditions) {
+            this.abstractValueConditions = abstractValueConditions;
+            this.rows = null;
+            long size = abstractValueConditions.isEmpty() ? 0 : 1;
+            for (List<Expression> conditions : abstractValueConditions) {
+                if (conditions.isEmpty()) {
+                    size = 0;
+                    break;
+                }
+                if (size > 0) {
+                    try {
+                        size = Math.multiplyExact(size, conditions.size());
+                    } catch (ArithmeticException e) {
+                        size = -1;
+                    }
+                }
             }
-            indices[i] = 0;
+            this.size = size;
+        }
+
+        /**
+         * @return the number of conditions
+         * @throws ArithmeticException if there are more than
+         *                             {@link Long#MAX_VALUE}
+         */
+        public long size() {
+            if (size < 0) {
+                throw new ArithmeticException("The product has more than " + Long.MAX_VALUE + " conditions");
+            }
+            return size;
+        }
+
+        /**
+         * @return the number of conditions, or {@link Long#MAX_VALUE} if there
+         *         are more
+         */
+        public long boundedSize() {
+            return size < 0 ? Long.MAX_VALUE : size;
+        }
+
+        /**
+         * @return the conjunction at an index of the product
+         */
+        public Expression get(long index) {
+            if (index < 0 || index >= boundedSize()) {
+                throw new IndexOutOfBoundsException("Index " + index + " of a product of " + boundedSize());
+            }
+            if (rows != null) {
+                return rowCondition(rows.get((int) index));
+            }
+            Expression condition = null;
+            for (List<Expression> conditions : abstractValueConditions) {
+                condition = and(condition, conditions.get((int) (index % conditions.size())));
+                index /= conditions.size();
+            }
+            return condition;
+        }
+
+        @Override
+        public Iterator<Expression> iterator() {
+            return new Iterator<Expression>() {
+                long next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < boundedSize();
+                }
+
+                @Override
+                public Expression next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return get(next++);
+                }
+            };
+        }
+
+        @Override
+        public Spliterator<Expression> spliterator() {
+            return new ProductSpliterator(0, boundedSize());
+        }
+
+        public Stream<Expression> stream() {
+            return StreamSupport.stream(spliterator(), false);
         }
-    }
 
-    private static List<Expression> conditionProductHelper(List<List<Expression>> abstractValueConditions) {
-        int[] indices = new int[abstractValueConditions.size()]; // Track the current index for each list of conditions
-        int[] sizes = new int[abstractValueConditions.size()]; // Track the size of each list of conditions
-        int totalSize = 1;
+        /**
+         * @return every condition, in order
+         * @throws IllegalStateException if the product is too large for a
+         *                               list
+         */
+        public List<Expression> toList() {
+            if (size < 0 || size > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("The product is too large to materialize");
+            }
+            List<Expression> product = new ArrayList<>((int) size);
+            for (Expression condition : this) {
+                product.add(condition);
+            }
+            return product;
+        }
+
+        /**
+         * Choose at most {@code limit} conditions by priority. Each abstract
+         * value has a rank: equalities to a single value, such as the
+         * boundary points and punctures of punctured intervals and boolean
+         * values, rank 0; intervals and other relations rank 1; method
+         * predicates rank 2. Conditions whose values have the lowest total
+         * rank come first, and ties keep the product's order. Only the
+         * chosen conditions are built.
+         *
+         * @return the chosen conditions, in order of priority
+         */
+        public List<Expression> prioritized(int limit) {
+            List<Expression> chosen = new ArrayList<>();
+            if (limit <= 0 || boundedSize() == 0) {
+                return chosen;
+            }
+            int k = abstractValueConditions.size();
+            int[][] ranks = new int[k][];
+            for (int i = 0; i < k; i++) {
+                List<Expression> conditions = abstractValueConditions.get(i);
+                ranks[i] = new int[conditions.size()];
+                for (int v = 0; v < conditions.size(); v++) {
+                    ranks[i][v] = rank(conditions.get(v));
+                }
+            }
+
+            if (rows != null) {
+                List<int[]> sorted = new ArrayList<>(rows);
+                sorted.sort((a, b) -> Integer.compare(score(a, ranks), score(b, ranks)));
+                for (int[] row : sorted.subList(0, Math.min(limit, sorted.size()))) {
+                    chosen.add(rowCondition(row));
+                }
+                return chosen;
+            }
 
-        for (int i = 0; i < abstractValueConditions.size(); i++) {
-            sizes[i] = abstractValueConditions.get(i).size();
-            totalSize *= sizes[i];
+            // Group each variable's values by rank, then visit the rank
+            // vectors in order of their total and expand each into the
+            // product of its groups
+            List<List<List<Integer>>> groups = new ArrayList<>();
+            int[] minRest = new int[k + 1];
+            int[] maxRest = new int[k + 1];
+            for (int i = k - 1; i >= 0; i--) {
+                List<List<Integer>> byRank = new ArrayList<>();
+                for (int r = 0; r <= MAX_RANK; r++) {
+                    byRank.add(new ArrayList<>());
+                }
+                for (int v = 0; v < ranks[i].length; v++) {
+                    byRank.get(ranks[i][v]).add(v);
+                }
+                groups.add(0, byRank);
+            }
+            for (int i = k - 1; i >= 0; i--) {
+                int min = MAX_RANK;
+                int max = 0;
+                for (int r = 0; r <= MAX_RANK; r++) {
+                    if (!groups.get(i).get(r).isEmpty()) {
+                        min = Math.min(min, r);
+                        max = Math.max(max, r);
+                    }
+                }
+                minRest[i] = minRest[i + 1] + min;
+                maxRest[i] = maxRest[i + 1] + max;
+            }
+            int[] rankVector = new int[k];
+            for (int total = minRest[0]; total <= maxRest[0] && chosen.size() < limit; total++) {
+                chooseRanks(0, total, rankVector, groups, minRest, maxRest, chosen, limit);
+            }
+            return chosen;
         }
 
-        List<Expression> product = new ArrayList<>();
+        private void chooseRanks(int i, int remaining, int[] rankVector, List<List<List<Integer>>> groups,
+                int[] minRest, int[] maxRest, List<Expression> chosen, int limit) {
+            if (i == rankVector.length) {
+                expand(rankVector, groups, chosen, limit);
+                return;
+            }
+            for (int r = 0; r <= MAX_RANK && chosen.size() < limit; r++) {
+                int rest = remaining - r;
+                if (!groups.get(i).get(r).isEmpty() && rest >= minRest[i + 1] && rest <= maxRest[i + 1]) {
+                    rankVector[i] = r;
+                    chooseRanks(i + 1, rest, rankVector, groups, minRest, maxRest, chosen, limit);
+                }
+            }
+        }
 
-        for (int i = 0; i < totalSize; i++) {
-            Expression thisCondition = null;
+        /**
+         * Add the product of the groups a rank vector selects, first variable
+         * fastest
+         */
+        private void expand(int[] rankVector, List<List<List<Integer>>> groups, List<Expression> chosen,
+                int limit) {
+            int k = rankVector.length;
+            int[] indices = new int[k];
+            int[] row = new int[k];
+            while (chosen.size() < limit) {
+                for (int i = 0; i < k; i++) {
+                    row[i] = groups.get(i).get(rankVector[i]).get(indices[i]);
+                }
+                chosen.add(rowCondition(row));
+                int i = 0;
+                while (i < k) {
+                    indices[i] += 1;
+                    if (indices[i] < groups.get(i).get(rankVector[i]).size()) {
+                        break;
+                    }
+                    indices[i] = 0;
+                    i += 1;
+                }
+                if (i == k) {
+                    return;
+                }
+            }
+        }
 
-            for (int j = 0; j < abstractValueConditions.size(); j++) {
-                thisCondition = and(thisCondition, abstractValueConditions.get(j).get(indices[j]));
+        private Expression rowCondition(int[] row) {
+            Expression condition = null;
+            for (int i = 0; i < row.length; i++) {
+                condition = and(condition, abstractValueConditions.get(i).get(row[i]));
             }
-            if (thisCondition != null) {
-                product.add(thisCondition);
+            return condition;
+        }
+
+        private static int score(int[] row, int[][] ranks) {
+            int score = 0;
+            for (int i = 0; i < row.length; i++) {
+                score += ranks[i][row[i]];
             }
-            incrementIndices(indices, sizes);
+            return score;
+        }
+
+        /**
+         * Describe the product by its size only, since listing its
+         * conditions would build every one of them
+         */
+        @Override
+        public String toString() {
+            return (size < 0 ? "more than " + Long.MAX_VALUE : Long.toString(size)) + " conditions";
         }
 
-        return product;
+        /**
+         * Splits the product's index range in halves
+         */
+        private class ProductSpliterator implements Spliterator<Expression> {
+            private long next;
+            private final long end;
+
+            ProductSpliterator(long next, long end) {
+                this.next = next;
+                this.end = end;
+            }
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Expression> action) {
+                if (next >= end) {
+                    return false;
+                }
+                action.accept(get(next++));
+                return true;
+            }
+
+            @Override
+            public Spliterator<Expression> trySplit() {
+                long mid = next + (end - next) / 2;
+                if (mid <= next) {
+                    return null;
+                }
+                Spliterator<Expression> prefix = new ProductSpliterator(next, mid);
+                next = mid;
+                return prefix;
+            }
+
+            @Override
+            public long estimateSize() {
+                return end - next;
+            }
+
+            @Override
+            public int characteristics() {
+                int characteristics = ORDERED | NONNULL | IMMUTABLE;
+                return size < 0 ? characteristics : characteristics | SIZED | SUBSIZED;
+            }
+        }
+    }
+
+    /**
+     * The lowest priority an abstract value can have
+     */
+    static final int MAX_RANK = 2;
+
+    /**
+     * @return 0 for an abstract value that is a single value, 2 for a
+     *         method predicate, and 1 for any other
+     */
+    static int rank(Expression condition) {
+        while (condition.isEnclosedExpr()) {
+            condition = condition.asEnclosedExpr().getInner();
+        }
+        if (condition.isUnaryExpr() && condition.asUnaryExpr().getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+            condition = condition.asUnaryExpr().getExpression();
+        }
+        if (condition.isMethodCallExpr()) {
+            return 2;
+        }
+        if (condition.isNameExpr()) {
+            return 0;
+        }
+        if (condition.isBinaryExpr() && condition.asBinaryExpr().getOperator() == BinaryExpr.Operator.EQUALS
+                && (condition.asBinaryExpr().getLeft().isLiteralExpr()
+                        || condition.asBinaryExpr().getRight().isLiteralExpr())) {
+            return 0;
+        }
+        return 1;
     }
 
     private static Expression enclose(Expression expr) {
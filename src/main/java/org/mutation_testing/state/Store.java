@@ -66,6 +66,43 @@ public class Store {
         return StateProduct.getProductConditions(localStore);
     }
 
+    /**
+     * @return the product conditions, built as they are iterated
+     */
+    public StateProduct.Product getProduct() {
+        return StateProduct.getProduct(localStore);
+    }
+
+    /**
+     * @param strength t for a t-way covering subset of the product, or 0 for
+     *                 the full product
+     * @return the product conditions, built as they are iterated
+     */
+    public StateProduct.Product getProduct(int strength) {
+        return StateProduct.getProduct(localStore, strength);
+    }
+
+    /**
+     * @param strength t for a t-way covering subset of the product, or 0 for
+     *                 the full product
+     * @return the number of product conditions, counted without building
+     *         them, or {@link Long#MAX_VALUE} if there are more
+     */
+    public long getProductSize(int strength) {
+        return StateProduct.getProductSize(localStore, strength);
+    }
+
+    /**
+     * @return the type recorded for each local variable in the product
+     */
+    public Map<String, ResolvedType> getVariableTypes() {
+        Map<String, ResolvedType> types = new HashMap<>();
+        for (Map.Entry<String, StoreState> e : localStore.entrySet()) {
+            types.put(e.getKey(), e.getValue().type);
+        }
+        return types;
+    }
+
     static final int UNKNOWN = 0;
     static final int ORDERED = 1;
     static final int UNORDERED = 2;
@@ -27,6 +27,20 @@ abstract class StoreState {
      */
     abstract List<Expression> getTypeSpecificConditions(Expression name);
 
+    /**
+     * @return how many conditions {@link #getTypeSpecificConditions} builds,
+     *         without building them
+     */
+    abstract int numTypeSpecificConditions();
+
+    /**
+     * @return how many conditions {@link #getConditions} builds, without
+     *         building them
+     */
+    public int numConditions() {
+        return numTypeSpecificConditions() + 2 * methodPredicates.size();
+    }
+
     public List<Expression> getConditions(Expression name) {
         List<Expression> conditions = new ArrayList<>();
         conditions.addAll(getTypeSpecificConditions(name));
@@ -62,6 +62,11 @@ class StringStoreState extends StoreState {
         return cs;
     }
 
+    @Override
+    int numTypeSpecificConditions() {
+        return comparedValues.isEmpty() ? 0 : comparedValues.size() + 1;
+    }
+
     @Override
     String pretty(String expr) {
         throw new UnsupportedOperationException("Unimplemented method 'pretty'");
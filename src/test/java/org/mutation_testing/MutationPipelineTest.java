@@ -0,0 +1,79 @@
+package org.mutation_testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.mutation_testing.mutate.CompactMutant;
+import org.mutation_testing.mutate.MutationSession;
+import org.mutation_testing.output.MutantWriter;
+
+public class MutationPipelineTest {
+
+    /**
+     * Records the file and mutant ids it sees, in order
+     */
+    static class RecordingWriter implements MutantWriter {
+        List<String> files = new ArrayList<>();
+        List<Integer> mids = new ArrayList<>();
+        boolean closed = false;
+
+        @Override
+        public void write(List<CompactMutant> mutants) {
+            for (CompactMutant mutant : mutants) {
+                files.add(mutant.getSource().getFilename());
+                mids.add(mutant.getMid());
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testMutantsAreWrittenInFileOrder() throws IOException {
+        Path dir = Files.createTempDirectory("msav-pipeline");
+        List<String> filenames = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Path file = dir.resolve("TestClass" + i + ".java");
+            Files.write(file, TestUtils.makeClass("x == " + i, "int x").getBytes());
+            filenames.add(file.toString());
+        }
+
+        RecordingWriter first = new RecordingWriter();
+        RecordingWriter second = new RecordingWriter();
+        int numMutants = new MutationPipeline(MutationSession::new, 3, Arrays.asList(first, second))
+                .run(filenames);
+
+        assertEquals(20, numMutants);
+        for (RecordingWriter writer : Arrays.asList(first, second)) {
+            assertTrue(writer.closed);
+            assertEquals(20, writer.mids.size());
+            for (int i = 0; i < 20; i++) {
+                assertEquals(i + 1, (int) writer.mids.get(i));
+                assertEquals(filenames.get(i / 2), writer.files.get(i));
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriterFailureIsReported() throws IOException {
+        Path file = Files.createTempFile("TestClass", ".java");
+        Files.write(file, TestUtils.makeClass("x == 1", "int x").getBytes());
+
+        MutantWriter failing = mutants -> {
+            throw new IOException("disk full");
+        };
+        new MutationPipeline(MutationSession::new, 2, Arrays.asList(failing))
+                .run(Arrays.asList(file.toString(), file.toString()));
+    }
+}
@@ -0,0 +1,51 @@
+package org.mutation_testing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SourceTest {
+
+    @Test
+    public void testOffsets() {
+        Source source = new Source("A.java", "ab\ncd\r\nef\rg");
+        assertEquals(4, source.numLines());
+        assertEquals(0, source.offsetOf(1, 1));
+        assertEquals(4, source.offsetOf(2, 2));
+        assertEquals(7, source.offsetOf(3, 1));
+        assertEquals(10, source.offsetOf(4, 1));
+
+        for (int line = 1; line <= source.numLines(); line++) {
+            int offset = source.offsetOf(line, 1);
+            assertEquals(line, source.lineOf(offset));
+            assertEquals(1, source.columnOf(offset));
+        }
+        assertEquals(2, source.lineOf(5));
+        assertEquals(3, source.columnOf(5));
+    }
+
+    @Test
+    public void testSlice() {
+        Source source = new Source("A.java", "class A {}\n");
+        assertEquals("A", source.slice(6, 7).toString());
+        assertEquals("class A {}\n", source.slice(0, source.length()).toString());
+        assertEquals("", source.slice(11, 11).toString());
+        assertEquals("class A {}\n", source.getContents());
+        assertSame(source.getContents(), source.getContents());
+        assertTrue(source.slice(0, 5).isReadOnly());
+    }
+
+    @Test
+    public void testLines() {
+        assertArrayEquals(new String[] { "ab", "cd\r", "ef\rg" },
+                new Source("A.java", "ab\ncd\r\nef\rg\n").getLines());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSliceOutOfBounds() {
+        new Source("A.java", "class A {}").slice(5, 20);
+    }
+}
@@ -0,0 +1,56 @@
+package org.mutation_testing.compile;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BaselineTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testMutantCompilesAgainstBaseline() throws IOException {
+        Path root = tmp.newFolder("src").toPath();
+        Files.createDirectories(root.resolve("p"));
+        Files.write(root.resolve("p/A.java"),
+                "package p; public class A { int f() { return B.x + 1; } static class C {} }".getBytes());
+        Files.write(root.resolve("p/B.java"), "package p; public class B { static int x = 2; }".getBytes());
+
+        Path classes = tmp.getRoot().toPath().resolve("baseline");
+        Baseline baseline = Baseline.compile(Collections.singletonList(root.toString()), new ArrayList<>(),
+                new ArrayList<>(), classes);
+        assertTrue(Files.isRegularFile(classes.resolve("p/A.class")));
+        assertTrue(Files.isRegularFile(classes.resolve("p/B.class")));
+
+        // B is only on the classpath, not the source path, so it comes from
+        // the baseline and is not recompiled
+        List<String> classpath = Arrays.asList(classes.toString());
+        try (MutantCompiler compiler = new MutantCompiler(classpath, new ArrayList<>())) {
+            MutantCompiler.Result result = compiler.compile("p/A.java",
+                    "package p; public class A { int f() { return B.x + 97; } static class C {} }");
+            assertTrue(result.getDiagnostics(), result.isSuccess());
+            assertFalse(result.getClasses().containsKey("p.B"));
+            assertFalse(baseline.isUnchanged("p.A", result.getClasses().get("p.A")));
+            assertTrue(baseline.isUnchanged("p.A$C", result.getClasses().get("p.A$C")));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testBrokenOriginalFails() throws IOException {
+        Path root = tmp.newFolder("src").toPath();
+        Files.write(root.resolve("A.java"), "class A { int x = true; }".getBytes());
+        Baseline.compile(Collections.singletonList(root.toString()), new ArrayList<>(), new ArrayList<>(),
+                tmp.getRoot().toPath().resolve("baseline"));
+    }
+}
@@ -0,0 +1,39 @@
+package org.mutation_testing.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+public class MutantCompilerTest {
+
+    @Test
+    public void testCompilesInMemory() throws IOException {
+        try (MutantCompiler compiler = new MutantCompiler(new ArrayList<>(), new ArrayList<>())) {
+            MutantCompiler.Result result = compiler.compile("src/p/A.java",
+                    "package p; public class A { Runnable r = () -> {}; class B {} }");
+            assertTrue(result.getDiagnostics(), result.isSuccess());
+            assertEquals(2, result.getClasses().size());
+            assertTrue(result.getClasses().containsKey("p.A"));
+            assertTrue(result.getClasses().containsKey("p.A$B"));
+
+            // The same file manager is reused for the next compilation
+            MutantCompiler.Result again = compiler.compile("src/p/A.java", "package p; public class A { int x; }");
+            assertTrue(again.isSuccess());
+            assertEquals(1, again.getClasses().size());
+        }
+    }
+
+    @Test
+    public void testReportsErrors() throws IOException {
+        try (MutantCompiler compiler = new MutantCompiler(new ArrayList<>(), new ArrayList<>())) {
+            MutantCompiler.Result result = compiler.compile("A.java", "class A { int x = true; }");
+            assertFalse(result.isSuccess());
+            assertTrue(result.getDiagnostics().startsWith("A.java:1: "));
+        }
+    }
+}
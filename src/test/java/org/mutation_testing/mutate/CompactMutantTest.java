@@ -0,0 +1,58 @@
+package org.mutation_testing.mutate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.mutation_testing.Source;
+import org.mutation_testing.TestUtils;
+
+public class CompactMutantTest {
+
+    @Test
+    public void testAsFileString() {
+        String prog = TestUtils.makeClass("x == 32", "int x");
+        List<Mutant> mutants = new Mutator().mutate("TestClass.java", prog);
+        CompactMutant mutant = mutants.get(0).compact();
+
+        String expected = prog.replace("return x == 32;",
+                "return " + mutant.getReplacement() + ";");
+        assertEquals(expected, mutant.asFileString());
+        assertEquals("x == 32", mutant.getOriginal());
+        assertEquals("((" + mutant.getCondition() + ") ? !(x == 32) : (x == 32))", mutant.getReplacement());
+    }
+
+    @Test
+    public void testLogItems() {
+        String prog = TestUtils.makeClass("x == 32", "int x");
+        Mutant mutant = new Mutator().mutate("TestClass.java", prog).get(0);
+        CompactMutant compact = mutant.compact();
+
+        assertEquals("1:MSAV:::TestClass.java:(line 3,col 8):x == 32 |==> " + compact.getReplacement(),
+                compact.asMajorLogItem());
+        assertEquals("1,TestClass.java,(line 3,col 8),(line 3,col 14),x == 32," + compact.getReplacement(),
+                compact.toString());
+        assertEquals(compact.toString(), mutant.toString());
+    }
+
+    @Test
+    public void testCarriageReturnLineEndings() {
+        String prog = TestUtils.makeClass("x == 32", "int x").replace("\n", "\r\n") + "\r\n";
+        CompactMutant mutant = new Mutator().mutate("TestClass.java", prog).get(0).compact();
+
+        String fileString = mutant.asFileString();
+        assertTrue(fileString.endsWith("}\r\n"));
+        assertTrue(fileString.contains("return " + mutant.getReplacement() + ";\r\n"));
+    }
+
+    @Test
+    public void testVerbatimReplacement() {
+        Source source = new Source("A.java", "class A { int x = 1 + 2; }");
+        CompactMutant mutant = new CompactMutant(7, source, 18, 23, "1 + 2", "1 - 2", null);
+
+        assertEquals("1 - 2", mutant.getReplacement());
+        assertEquals("class A { int x = 1 - 2; }", mutant.asFileString());
+    }
+}
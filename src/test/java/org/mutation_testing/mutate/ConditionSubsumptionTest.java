@@ -0,0 +1,54 @@
+package org.mutation_testing.mutate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mutation_testing.solver.SolverService;
+
+public class ConditionSubsumptionTest {
+    static final String PROGRAM = "class A {\n"
+            + "  int f(int x, int y) {\n"
+            + "    if (x > 5) { return 1; }\n"
+            + "    if (x > 3) { return 2; }\n"
+            + "    return y == 0 ? 3 : 4;\n"
+            + "  }\n"
+            + "}\n";
+
+    @Test
+    public void testNarrowerConditionsSubsumeWiderOnes() {
+        Map<String, List<String>> subsumers = new HashMap<>();
+        MutationSession session = new MutationSession();
+        try (SolverService solver = new SolverService()) {
+            session.setSubsumptionSolver(solver);
+            for (Mutant mutant : session.mutate("A.java", PROGRAM)) {
+                List<String> conditions = new ArrayList<>();
+                for (Mutant subsumer : mutant.getSubsumers()) {
+                    conditions.add(subsumer.getMutationCondition().toString());
+                }
+                subsumers.put(mutant.getMutationCondition().toString(), conditions);
+            }
+        }
+        // x <= 4 implies x <= 2 or x == 3, which are minimal
+        assertEquals(Arrays.asList("x <= 2", "x == 3"), subsumers.get("x <= 4"));
+        assertEquals(Arrays.asList("x == 5", "x >= 6"), subsumers.get("x >= 4"));
+        assertTrue(subsumers.get("x == 5").isEmpty());
+        assertTrue(subsumers.get("x <= 2").isEmpty());
+        // y shares no variable with the other sites
+        assertTrue(subsumers.get("y == 0").isEmpty());
+        assertTrue(subsumers.get("y != 0").isEmpty());
+    }
+
+    @Test
+    public void testUnlinkedWithoutSolver() {
+        for (Mutant mutant : new MutationSession().mutate("A.java", PROGRAM)) {
+            assertTrue(mutant.getSubsumers().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.mutation_testing.mutate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CoverageFilterTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    static final String PROG = "package p;\n"
+            + "class TestClass {\n"
+            + "    boolean f(int x) {\n"
+            + "        return x == 32;\n"
+            + "    }\n"
+            + "    boolean g(int x) {\n"
+            + "        return x\n"
+            + "            < 127;\n"
+            + "    }\n"
+            + "}\n";
+
+    @Test
+    public void testUncoveredSitesAreSkipped() throws Exception {
+        Path report = tmp.newFile("lines.txt").toPath();
+        Files.write(report, "# covered lines\np/TestClass.java:4\n".getBytes());
+
+        MutationSession session = new MutationSession();
+        session.setCoverage(CoverageFilter.read(report));
+        List<Mutant> mutants = session.mutate("src/p/TestClass.java", PROG);
+        assertEquals(2, mutants.size());
+        for (Mutant mutant : mutants) {
+            assertTrue(mutant.getMutationCondition().toString().contains("32"));
+        }
+        assertEquals(1, session.getCoverage().getNumSkipped());
+
+        // Files the report does not mention are mutated in full
+        assertEquals(5, session.mutate("src/q/TestClass.java", PROG.replace("package p", "package q")).size());
+    }
+
+    @Test
+    public void testJacocoReport() throws Exception {
+        Path report = tmp.newFile("jacoco.xml").toPath();
+        Files.write(report, ("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<!DOCTYPE report PUBLIC \"-//JACOCO//DTD Report 1.1//EN\" \"report.dtd\">"
+                + "<report name=\"r\"><package name=\"p\">"
+                + "<class name=\"p/TestClass\" sourcefilename=\"TestClass.java\"/>"
+                + "<sourcefile name=\"TestClass.java\">"
+                + "<line nr=\"4\" mi=\"3\" ci=\"0\" mb=\"2\" cb=\"0\"/>"
+                + "<line nr=\"8\" mi=\"0\" ci=\"4\" mb=\"0\" cb=\"2\"/>"
+                + "</sourcefile></package></report>").getBytes());
+
+        CoverageFilter coverage = CoverageFilter.read(report);
+        assertFalse(coverage.isCovered("p/TestClass.java", 4, 4));
+        // A site spanning several lines is covered if any of them is
+        assertTrue(coverage.isCovered("p/TestClass.java", 7, 8));
+        assertTrue(coverage.isCovered("q/Other.java", 1, 1));
+        assertEquals(1, coverage.getNumSkipped());
+    }
+}
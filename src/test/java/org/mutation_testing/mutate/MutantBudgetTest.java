@@ -0,0 +1,94 @@
+package org.mutation_testing.mutate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mutation_testing.TestUtils;
+import org.mutation_testing.solver.ConditionPruner;
+
+public class MutantBudgetTest {
+    static final String PROGRAM = "class A {\n"
+            + "  boolean f(int x, int y) {\n"
+            + "    return x == 1 || y > 5;\n"
+            + "  }\n"
+            + "  boolean g(int x) {\n"
+            + "    return x == 1 || x > 5;\n"
+            + "  }\n"
+            + "}\n";
+
+    @Test
+    public void testAllowance() {
+        MutantBudget budget = new MutantBudget(3, 5, 7);
+        assertEquals(3, budget.allowance(0, 0));
+        assertEquals(1, budget.allowance(4, 4));
+        assertEquals(1, budget.allowance(-1, 6));
+        assertEquals(0, budget.allowance(5, 5));
+        assertEquals(0, budget.allowance(0, 9));
+    }
+
+    @Test
+    public void testSiteBudgetKeepsHighestPriorityConditions() {
+        List<Mutant> all = mutate(null);
+        MutantBudget budget = new MutantBudget(2, MutantBudget.UNLIMITED, MutantBudget.UNLIMITED);
+        List<Mutant> bounded = mutate(budget);
+        assertTrue(bounded.size() < all.size());
+        assertEquals(all.size() - bounded.size(), budget.getNumDropped());
+
+        List<String> conditions = conditions(bounded, "x == 1 || x > 5");
+        assertEquals(2, conditions.size());
+        assertTrue(conditions.contains("x == 1"));
+        assertTrue(conditions.contains("x == 5"));
+        for (String condition : conditions(bounded, "x == 1 || y > 5")) {
+            assertTrue(condition.startsWith("x == 1 && "));
+        }
+    }
+
+    @Test
+    public void testMethodAndFileBudgets() {
+        MutantBudget perMethod = new MutantBudget(MutantBudget.UNLIMITED, 4, MutantBudget.UNLIMITED);
+        List<Mutant> mutants = mutate(perMethod);
+        assertEquals(4, conditions(mutants, "x == 1 || y > 5").size());
+        assertEquals(4, conditions(mutants, "x == 1 || x > 5").size());
+        assertEquals(2, perMethod.getNumDropped());
+
+        MutantBudget perFile = new MutantBudget(MutantBudget.UNLIMITED, MutantBudget.UNLIMITED, 6);
+        assertEquals(6, mutate(perFile).size());
+        assertEquals(mutate(null).size() - 6, perFile.getNumDropped());
+    }
+
+    @Test
+    public void testBudgetCountsOnlyFeasibleConditions() {
+        // s == 40000 ranks first but no short satisfies it
+        String program = TestUtils.makeClass("s == 40000", "short s");
+        MutantBudget budget = new MutantBudget(1, MutantBudget.UNLIMITED, MutantBudget.UNLIMITED);
+        MutationSession session = new MutationSession();
+        session.setBudget(budget);
+        try (ConditionPruner pruner = new ConditionPruner()) {
+            session.setPruner(pruner);
+            List<Mutant> mutants = session.mutate("A.java", program);
+            assertEquals(1, mutants.size());
+            assertEquals("s != 40000", mutants.get(0).getMutationCondition().toString());
+            assertEquals(0, budget.getNumDropped());
+        }
+    }
+
+    private static List<String> conditions(List<Mutant> mutants, String site) {
+        List<String> conditions = new ArrayList<>();
+        for (Mutant mutant : mutants) {
+            if (mutant.getOrigNode().toString().equals(site)) {
+                conditions.add(mutant.getMutationCondition().toString());
+            }
+        }
+        return conditions;
+    }
+
+    private static List<Mutant> mutate(MutantBudget budget) {
+        MutationSession session = new MutationSession();
+        session.setBudget(budget);
+        return session.mutate("A.java", PROGRAM);
+    }
+}
@@ -0,0 +1,64 @@
+package org.mutation_testing.mutate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class MutationPlannerTest {
+    static final String PROGRAM = "class A {\n"
+            + "  boolean f(int x, int y, int z) {\n"
+            + "    return x == 1 || y > 5 || z != 3;\n"
+            + "  }\n"
+            + "  boolean g(int x, String s) {\n"
+            + "    if (s.equals(\"a\") || s.equals(\"b\")) {\n"
+            + "      return x >= 2 && x <= 3 && x != 2;\n"
+            + "    }\n"
+            + "    return x > 4;\n"
+            + "  }\n"
+            + "  boolean h(char c, int a, int b, int d, String t) {\n"
+            + "    return c == 'a' || a < 0 || b > 1 || d == 7 || t.isEmpty();\n"
+            + "  }\n"
+            + "}\n";
+
+    @Test
+    public void testPlanMatchesGeneratedMutants() {
+        assertPlanMatches(new MutationSession());
+
+        MutationSession pairwise = new MutationSession();
+        pairwise.setProductStrength(2);
+        assertPlanMatches(pairwise);
+
+        MutationSession budgeted = new MutationSession();
+        budgeted.setBudget(new MutantBudget(5, 8, 20));
+        MutationPlanner.FilePlan plan = assertPlanMatches(budgeted);
+        assertEquals(budgeted.getBudget().getNumDropped(), plan.getNumDropped());
+        assertTrue(plan.getNumDropped() > 0);
+    }
+
+    @Test
+    public void testEstimateBytes() {
+        MutationPlanner.FilePlan plan = new MutationPlanner(new MutationSession()).plan("A.java", PROGRAM);
+        long files = plan.estimateBytes("files");
+        long patch = plan.estimateBytes("patch");
+        assertTrue(files > plan.getNumMutants() * PROGRAM.length());
+        assertTrue(patch > PROGRAM.length());
+        assertTrue(patch < files);
+        assertEquals(patch, plan.estimateBytes("schemata"));
+    }
+
+    private static MutationPlanner.FilePlan assertPlanMatches(MutationSession session) {
+        MutationPlanner.FilePlan plan = new MutationPlanner(session).plan("A.java", PROGRAM);
+        List<Mutant> mutants = session.mutate("A.java", PROGRAM);
+        assertEquals(mutants.size(), plan.getNumMutants());
+        long inMethods = 0;
+        for (MutationPlanner.MethodPlan method : plan.getMethods()) {
+            inMethods += method.getNumMutants();
+        }
+        assertEquals(mutants.size(), inMethods);
+        assertEquals(3, plan.getMethods().size());
+        return plan;
+    }
+}
@@ -0,0 +1,77 @@
+package org.mutation_testing.mutate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.mutation_testing.TestUtils;
+
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+public class MutationSessionTest {
+
+    @Test
+    public void testMidsContinueAcrossFiles() {
+        MutationSession session = new MutationSession();
+        List<Mutant> first = session.mutate("A.java", TestUtils.makeClass("x == 32", "int x"));
+        List<Mutant> second = session.mutate("B.java", TestUtils.makeClass("x == 32", "int x"));
+
+        assertEquals(2, first.size());
+        assertEquals(2, second.size());
+        assertEquals(1, first.get(0).getMid());
+        assertEquals(2, first.get(1).getMid());
+        assertEquals(3, second.get(0).getMid());
+        assertEquals(4, second.get(1).getMid());
+
+        session.resetMids();
+        List<Mutant> third = session.mutate("C.java", TestUtils.makeClass("x == 32", "int x"));
+        assertEquals(1, third.get(0).getMid());
+    }
+
+    @Test
+    public void testTypeSolversAreBuiltOnFirstUse() {
+        LazyTypeSolver reflection = new LazyTypeSolver(ReflectionTypeSolver::new);
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+        typeSolver.add(reflection);
+
+        MutationSession session = new MutationSession(typeSolver);
+        assertFalse(reflection.isInitialized());
+        List<Mutant> mutants = session.mutate("A.java", TestUtils.makeClass("s.equals(\"foo\")", "String s"));
+        assertTrue(reflection.isInitialized());
+        assertEquals(2, mutants.size());
+    }
+
+    @Test
+    public void testConcurrentSessions() throws Exception {
+        String prog = TestUtils.makeClass("x >= 32 && x < 127", "int x");
+        List<String> expected = conditions(new MutationSession().mutate("TestClass.java", prog));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Mutant>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> new MutationSession().mutate("TestClass.java", prog)));
+            }
+            for (Future<List<Mutant>> future : futures) {
+                List<Mutant> mutants = future.get();
+                assertEquals(expected, conditions(mutants));
+                assertEquals(1, mutants.get(0).getMid());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<String> conditions(List<Mutant> mutants) {
+        return mutants.stream().map(m -> m.getMutationCondition().toString()).collect(Collectors.toList());
+    }
+}
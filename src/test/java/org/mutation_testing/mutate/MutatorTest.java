@@ -49,6 +49,32 @@ public class MutatorTest {
                 "!s.equals(\"foo\") && !t.startsWith(\"bar\")");
     }
 
+    @Test
+    public void testConditionEvaluation() {
+        String prog = "class A {\n"
+                + "  boolean f(String s, int x) {\n"
+                + "    for (int i = 0; i < 10; i++) { if (i > 3 && s.isEmpty()) return true; }\n"
+                + "    return s != null && s.isEmpty() && x > 2;\n"
+                + "  }\n"
+                + "}\n";
+        for (Mutant mutant : new Mutator().mutate("A.java", prog)) {
+            String site = mutant.getOrigNode().toString();
+            ConditionEvaluation expected;
+            if (site.equals("i < 10")) {
+                // Compares a primitive, which cannot throw
+                expected = ConditionEvaluation.INLINE;
+            } else if (site.equals("i > 3 && s.isEmpty()")) {
+                // Calls a method and reads a local that a lambda cannot capture
+                expected = ConditionEvaluation.SKIPPED;
+            } else {
+                // Calls a method on s, which the original guards against null
+                expected = ConditionEvaluation.DEFERRED;
+            }
+            assertEquals(site + ": " + mutant.getMutationCondition(), expected, mutant.getConditionEvaluation());
+            assertEquals(expected, mutant.compact().getConditionEvaluation());
+        }
+    }
+
     /**
      * Assert that the returned mutation conditions are as expected.
      * 
@@ -0,0 +1,79 @@
+package org.mutation_testing.mutate;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mutation_testing.solver.ConditionPruner;
+
+public class PathConditionsTest {
+    ConditionPruner pruner;
+    MutationSession session;
+
+    @Before
+    public void setUp() {
+        pruner = new ConditionPruner();
+        session = new MutationSession();
+        session.setPruner(pruner);
+    }
+
+    @After
+    public void tearDown() {
+        pruner.close();
+    }
+
+    @Test
+    public void testEnclosingBranchPrunesConditions() {
+        List<String> conditions = conditions(
+                "if (x < 0) {",
+                "  return x > 5;",
+                "}",
+                "return false;");
+        assertEquals(1, conditions.size());
+        assertEquals("x <= 4", conditions.get(0));
+        assertEquals(2, pruner.getNumPrunedByPath());
+    }
+
+    @Test
+    public void testElseBranchAndEarlyExitPruneConditions() {
+        assertEquals(1, conditions(
+                "if (x <= 5) {",
+                "  return true;",
+                "} else {",
+                "  return x < 3;",
+                "}").size());
+        assertEquals(1, conditions(
+                "if (x < 10) {",
+                "  return false;",
+                "}",
+                "return x < 3;").size());
+        assertEquals(1, conditions("return x < 0 ? x > 5 : false;").size());
+    }
+
+    @Test
+    public void testReassignedVariablesAreNotGuards() {
+        assertEquals(3, conditions(
+                "if (x < 0) {",
+                "  x = x + 10;",
+                "  return x > 5;",
+                "}",
+                "return false;").size());
+        assertEquals(0, pruner.getNumPrunedByPath());
+    }
+
+    private List<String> conditions(String... body) {
+        String program = "class A {\n  boolean f(int x) {\n    " + String.join("\n    ", body) + "\n  }\n}\n";
+        List<String> conditions = new ArrayList<>();
+        for (Mutant mutant : session.mutate("A.java", program)) {
+            String original = mutant.getOrigNode().toString();
+            if (original.equals("x > 5") || original.equals("x < 3")) {
+                conditions.add(mutant.getMutationCondition().toString());
+            }
+        }
+        return conditions;
+    }
+}
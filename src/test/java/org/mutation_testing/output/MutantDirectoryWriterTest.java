@@ -0,0 +1,37 @@
+package org.mutation_testing.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mutation_testing.TestUtils;
+import org.mutation_testing.mutate.CompactMutant;
+import org.mutation_testing.mutate.Mutant;
+import org.mutation_testing.mutate.Mutator;
+
+public class MutantDirectoryWriterTest {
+
+    @Test
+    public void testWritesSplicedFiles() throws IOException {
+        String prog = TestUtils.makeClass("x >= 32 && x < 127", "int x") + "\n";
+        List<CompactMutant> mutants = new ArrayList<>();
+        for (Mutant mutant : new Mutator().mutate("TestClass.java", prog)) {
+            mutants.add(mutant.compact());
+        }
+
+        Path dir = Files.createTempDirectory("msav-mutants");
+        try (MutantDirectoryWriter writer = new MutantDirectoryWriter(dir)) {
+            writer.write(mutants);
+        }
+
+        for (CompactMutant mutant : mutants) {
+            Path file = dir.resolve(mutant.getMid() + "").resolve("TestClass.java");
+            assertEquals(mutant.asFileString(), new String(Files.readAllBytes(file)));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.mutation_testing.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mutation_testing.TestUtils;
+import org.mutation_testing.mutate.CompactMutant;
+import org.mutation_testing.mutate.Mutant;
+import org.mutation_testing.mutate.MutationSession;
+
+public class PatchMutantWriterTest {
+
+    @Test
+    public void testMaterializedPatchesMatchFullFiles() throws IOException {
+        MutationSession session = new MutationSession();
+        List<List<CompactMutant>> files = new ArrayList<>();
+        files.add(compact(session.mutate("A.java", TestUtils.makeClass("x >= 32 && x < 127", "int x"))));
+        files.add(compact(session.mutate("B.java", TestUtils.makeClass("s.equals(\"a\\tb\")", "String s"))));
+
+        Path dir = Files.createTempDirectory("msav-patches");
+        try (PatchMutantWriter writer = new PatchMutantWriter(dir)) {
+            for (List<CompactMutant> mutants : files) {
+                writer.write(mutants);
+            }
+        }
+
+        PatchMaterializer materializer = new PatchMaterializer(dir);
+        for (List<CompactMutant> mutants : files) {
+            for (CompactMutant mutant : mutants) {
+                assertEquals(mutant.asFileString(), materializer.materialize(mutant.getMid()));
+            }
+        }
+
+        // Lookups seek to each record, in any order
+        CompactMutant first = files.get(0).get(0);
+        assertEquals(first.asFileString(), materializer.materialize(first.getMid()));
+        try {
+            materializer.find(Integer.MAX_VALUE);
+            throw new AssertionError("There is no such mutant");
+        } catch (NoSuchFileException e) {
+            // expected
+        }
+
+        CompactMutant last = files.get(1).get(1);
+        Path file = materializer.materialize(last.getMid(), dir.resolve("out"));
+        assertEquals("B.java", file.getFileName().toString());
+        assertEquals(last.asFileString(), new String(Files.readAllBytes(file)));
+    }
+
+    @Test
+    public void testEscaping() {
+        PatchRecord record = new PatchRecord(3, 1, 10, 4, "a\tb\\n\nc\r");
+        PatchRecord parsed = PatchRecord.parse(record.format());
+        assertEquals(record.replacement, parsed.replacement);
+        assertEquals(3, parsed.mid);
+        assertEquals(1, parsed.fileIndex);
+        assertEquals(10, parsed.offset);
+        assertEquals(4, parsed.length);
+    }
+
+    private List<CompactMutant> compact(List<Mutant> mutants) {
+        List<CompactMutant> compacted = new ArrayList<>();
+        for (Mutant mutant : mutants) {
+            compacted.add(mutant.compact());
+        }
+        return compacted;
+    }
+}
@@ -0,0 +1,79 @@
+package org.mutation_testing.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+import org.mutation_testing.TestUtils;
+import org.mutation_testing.mutate.CompactMutant;
+import org.mutation_testing.mutate.Mutant;
+import org.mutation_testing.mutate.Mutator;
+
+public class SchemataMutantWriterTest {
+
+    @Test
+    public void testSchemaBehavesLikeEachMutant() throws Exception {
+        String prog = TestUtils.makeClass("x >= 32 && x < 127", "int x")
+                .replace("class TestClass", "public class TestClass")
+                .replace("boolean f", "public boolean f");
+        List<CompactMutant> mutants = new ArrayList<>();
+        for (Mutant mutant : new Mutator().mutate("TestClass.java", prog)) {
+            mutants.add(mutant.compact());
+        }
+        assertEquals(5, mutants.size());
+
+        Path dir = Files.createTempDirectory("msav-schemata");
+        try (SchemataMutantWriter writer = new SchemataMutantWriter(dir)) {
+            writer.write(mutants);
+        }
+        Path schema = dir.resolve("sources").resolve("1").resolve("TestClass.java");
+        String schemaText = new String(Files.readAllBytes(schema));
+        for (CompactMutant mutant : mutants) {
+            assertTrue(schemaText.contains("msav.Schemata.MID == " + mutant.getMid() + " ? "));
+        }
+
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(javac);
+        Path classes = Files.createDirectory(dir.resolve("classes"));
+        assertEquals(0, javac.run(null, null, null, "-d", classes.toString(), schema.toString(),
+                dir.resolve("msav").resolve("Schemata.java").toString()));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes.toUri().toURL() }, null)) {
+            Field mid = loader.loadClass("msav.Schemata").getField("MID");
+            Class<?> testClass = loader.loadClass("TestClass");
+            Object instance = testClass.getDeclaredConstructor().newInstance();
+            Method f = testClass.getMethod("f", int.class);
+
+            int[] inputs = { -5, 31, 32, 33, 126, 127, 128 };
+            for (int x : inputs) {
+                mid.setInt(null, 0);
+                boolean original = x >= 32 && x < 127;
+                assertEquals(original, f.invoke(instance, x));
+
+                // Exactly one mutant's condition holds for each input, and
+                // that mutant negates the result
+                int infected = 0;
+                for (CompactMutant mutant : mutants) {
+                    mid.setInt(null, mutant.getMid());
+                    if ((Boolean) f.invoke(instance, x) != original) {
+                        infected += 1;
+                    }
+                }
+                assertEquals(1, infected);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.mutation_testing.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CdsArchiveTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testHashFollowsClasspath() throws Exception {
+        Path jar = tmp.newFile("lib.jar").toPath();
+        List<String> jvmArgs = new ArrayList<>();
+        String hash = CdsArchive.hash(jvmArgs, Collections.singletonList(jar));
+        assertEquals(hash, CdsArchive.hash(jvmArgs, Collections.singletonList(jar)));
+
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() - 60000));
+        assertNotEquals(hash, CdsArchive.hash(jvmArgs, Collections.singletonList(jar)));
+        assertNotEquals(hash, CdsArchive.hash(jvmArgs, Arrays.asList(jar, tmp.getRoot().toPath())));
+        assertNotEquals(hash, CdsArchive.hash(Collections.singletonList("-Xmx1g"), Collections.singletonList(jar)));
+    }
+
+    @Test
+    public void testCreatesAndReusesArchive() throws Exception {
+        assumeTrue(CdsArchive.isSupported());
+        RunFixture fixture = new RunFixture(tmp);
+        List<String> workerArgs = new ArrayList<>();
+        for (Path library : fixture.libraries) {
+            workerArgs.addAll(Arrays.asList("--classpath", library.toString()));
+        }
+        workerArgs.addAll(Arrays.asList("--project", fixture.project.toString(), "--project",
+                fixture.tests.toString(), "--test", "p.CalcTest"));
+        List<Path> classpath = new ArrayList<>(fixture.libraries);
+        classpath.add(fixture.project);
+        classpath.add(fixture.tests);
+
+        Path dir = tmp.getRoot().toPath().resolve("cds");
+        CdsArchive cds = new CdsArchive(dir);
+        Path archive = cds.archiveFor(new ArrayList<>(), workerArgs, classpath);
+        assertNotNull(archive);
+        assertTrue(Files.size(archive) > 0);
+        FileTime created = Files.getLastModifiedTime(archive);
+        assertEquals(archive, cds.archiveFor(new ArrayList<>(), workerArgs, classpath));
+        assertEquals(created, Files.getLastModifiedTime(archive));
+
+        // A different configuration replaces the stale archive
+        Path other = cds.archiveFor(Collections.singletonList("-Xmx256m"), workerArgs, classpath);
+        assertNotEquals(archive, other);
+        assertFalse(Files.exists(archive));
+    }
+}
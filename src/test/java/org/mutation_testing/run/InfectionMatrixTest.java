@@ -0,0 +1,95 @@
+package org.mutation_testing.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mutation_testing.mutate.ConditionEvaluation;
+
+public class InfectionMatrixTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    RunFixture fixture;
+
+    @Before
+    public void setUp() throws Exception {
+        fixture = new RunFixture(tmp);
+    }
+
+    @Test
+    public void testProbesSelectInfectingTests() throws Exception {
+        Path probeClasses = fixture.probes(Arrays.asList(
+                RunFixture.calcMutant(1, "b == 0", "a - b"),
+                RunFixture.calcMutant(2, "a == 2", "a * b"),
+                RunFixture.calcMutant(3, "a > 100", "a * b")));
+
+        List<String> tests = Collections.singletonList("p.CalcTest");
+        MutantRunner runner = new MutantRunner(fixture.libraries, Arrays.asList(fixture.project, fixture.tests),
+                tests, 1, 1000);
+        InfectionMatrix matrix = runner.buildInfectionMatrix(probeClasses);
+        assertEquals(Collections.singletonList("testZero(p.CalcTest)"), matrix.testsFor(1));
+        assertEquals(2, matrix.testsFor(2).size());
+        assertFalse(matrix.isInfected(3));
+        assertTrue(matrix.testsFor(3).isEmpty());
+
+        Path file = tmp.getRoot().toPath().resolve("matrix.msav");
+        matrix.write(file);
+        InfectionMatrix read = InfectionMatrix.read(file);
+        assertEquals(matrix.testsFor(1), read.testsFor(1));
+        assertEquals(matrix.testsFor(2), read.testsFor(2));
+        assertEquals(2, read.getNumInfected());
+
+        // a - b equals a + b whenever its only infecting test runs it
+        List<Path> overlays = new ArrayList<>();
+        overlays.add(fixture.mutant(1, "a - b"));
+        overlays.add(fixture.mutant(2, "a * b"));
+        runner.setInfectionMatrix(read);
+        runner.runOriginal();
+        List<MutantResult> results = runner.run(overlays, Arrays.asList(1, 2));
+        assertEquals("1,SURVIVED,", results.get(0).toString());
+        assertEquals(MutantResult.Status.KILLED, results.get(1).getStatus());
+        assertEquals(2, results.get(1).getKillingTests().size());
+    }
+
+    @Test
+    public void testThrowingConditionInfectsTheGuardedTest() throws Exception {
+        String site = "boxed != null && boxed > 1";
+        Path probeClasses = fixture.probes(Arrays.asList(
+                // Unboxes a null in testZero, where the original does not
+                RunFixture.siteMutant(RunFixture.CALC_GUARDED, site, 1, "boxed > 5", "!(" + site + ")",
+                        ConditionEvaluation.DEFERRED),
+                RunFixture.siteMutant(RunFixture.CALC_GUARDED, site, 2, "boxed < 0", "!(" + site + ")",
+                        ConditionEvaluation.SKIPPED),
+                RunFixture.siteMutant(RunFixture.CALC_GUARDED, site, 3, "boxed == null", "!(" + site + ")",
+                        ConditionEvaluation.INLINE)));
+
+        List<String> tests = Collections.singletonList("p.CalcTest");
+        MutantRunner runner = new MutantRunner(fixture.libraries, Arrays.asList(fixture.project, fixture.tests),
+                tests, 1, 1000);
+        InfectionMatrix matrix = runner.buildInfectionMatrix(probeClasses);
+        assertEquals(Collections.singletonList("testZero(p.CalcTest)"), matrix.testsFor(1));
+        // An unevaluated condition must run against every test that reaches it
+        assertEquals(2, matrix.testsFor(2).size());
+        // The conditions after the one that throws are still evaluated
+        assertEquals(Collections.singletonList("testZero(p.CalcTest)"), matrix.testsFor(3));
+
+        // The mutant is killed by the exception, so it must not survive unrun
+        runner.setInfectionMatrix(matrix);
+        runner.runOriginal();
+        Path overlay = fixture.mutantSource(1, RunFixture.CALC_GUARDED.replace(site,
+                "((boxed > 5) ? !(" + site + ") : (" + site + "))"));
+        List<MutantResult> results = runner.run(Collections.singletonList(overlay), Collections.singletonList(1));
+        assertEquals("1,KILLED,testZero(p.CalcTest)", results.get(0).toString());
+    }
+}
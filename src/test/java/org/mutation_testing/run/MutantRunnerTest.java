@@ -0,0 +1,173 @@
+package org.mutation_testing.run;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MutantRunnerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    RunFixture fixture;
+
+    @Before
+    public void setUp() throws Exception {
+        fixture = new RunFixture(tmp);
+    }
+
+    @Test
+    public void testKilledSurvivedTimeout() throws Exception {
+        fixture.mutant(1, "a - b");
+        fixture.mutant(2, "b + a");
+        fixture.mutant(3, "a * b");
+        fixture.mutantSource(4, RunFixture.CALC_LOOP);
+
+        List<Integer> mids = RunCommand.findMutants(fixture.classes);
+        assertEquals(Arrays.asList(1, 2, 3, 4), mids);
+        assertEquals(Collections.singletonList("p.CalcTest"), RunCommand.findTestClasses(fixture.tests));
+
+        MutantRunner runner = new MutantRunner(fixture.libraries, Arrays.asList(fixture.project, fixture.tests),
+                RunCommand.findTestClasses(fixture.tests), 2, 500);
+        assertTrue(runner.runOriginal().isEmpty());
+
+        List<Path> overlays = new ArrayList<>();
+        for (int mid : mids) {
+            overlays.add(fixture.classes.resolve(mid + ""));
+        }
+        List<MutantResult> results = runner.run(overlays, mids);
+        assertEquals("1,KILLED,testAdd(p.CalcTest)", results.get(0).toString());
+        assertEquals("2,SURVIVED,", results.get(1).toString());
+        assertEquals("3,KILLED,testAdd(p.CalcTest);testZero(p.CalcTest)", results.get(2).toString());
+        assertEquals(MutantResult.Status.TIMEOUT, results.get(3).getStatus());
+    }
+
+    @Test
+    public void testRunStopsWhileATimedOutRunIsStillRunning() throws Exception {
+        List<Path> overlays = Arrays.asList(fixture.mutantSource(1, RunFixture.CALC_SPIN), fixture.mutant(2, "a - b"));
+        MutantRunner runner = new MutantRunner(fixture.libraries, Arrays.asList(fixture.project, fixture.tests),
+                Collections.singletonList("p.CalcTest"), 1, 500);
+        assertTrue(runner.runOriginal().isEmpty());
+        System.setProperty(RunFixture.SPIN, "true");
+        try {
+            List<MutantResult> results = runner.run(overlays, Arrays.asList(1, 2));
+            assertEquals(1, results.size());
+            assertEquals(MutantResult.Status.TIMEOUT, results.get(0).getStatus());
+            assertEquals(1, runner.getNumAbandoned());
+        } finally {
+            System.clearProperty(RunFixture.SPIN);
+        }
+        // Once the timed out run stops, mutants run again
+        while (runner.getNumAbandoned() > 0) {
+            Thread.sleep(10);
+        }
+        assertEquals("2,KILLED,testAdd(p.CalcTest)",
+                runner.run(overlays.subList(1, 2), Collections.singletonList(2)).get(0).toString());
+    }
+
+    @Test
+    public void testResultLineEscapesKillingTests() throws Exception {
+        List<String> tests = Arrays.asList("testAdd(p.CalcTest)",
+                "java.lang.Error: no; really\\not\r\nloadable", "");
+        MutantResult result = new MutantResult(7, MutantResult.Status.KILLED, tests);
+        assertEquals("7,KILLED,testAdd(p.CalcTest);java.lang.Error: no\\; really\\\\not\\r\\nloadable;",
+                result.toString());
+        assertEquals(tests, MutantResult.parse(result.toString()).getKillingTests());
+        assertEquals(Collections.emptyList(), MutantResult.parse("8,SURVIVED,").getKillingTests());
+    }
+
+    @Test
+    public void testHotSwapRedefinesAndRestores() throws Exception {
+        Path overlay = fixture.mutant(1, "a - b");
+        List<Class<?>> redefined = new ArrayList<>();
+        List<byte[]> bytes = new ArrayList<>();
+        Instrumentation inst = recordingInstrumentation(redefined, bytes, false);
+
+        HotSwapRunner runner = new HotSwapRunner(inst, fixture.libraries,
+                Arrays.asList(fixture.project, fixture.tests), Collections.singletonList("p.CalcTest"), 1000);
+        runner.run(Collections.singletonList(overlay), Collections.singletonList(1));
+
+        // Swapped in, then swapped back
+        assertEquals(2, redefined.size());
+        assertEquals("p.Calc", redefined.get(0).getName());
+        assertSame(redefined.get(0), redefined.get(1));
+        assertArrayEquals(Files.readAllBytes(overlay.resolve("p/Calc.class")), bytes.get(0));
+        assertArrayEquals(Files.readAllBytes(fixture.project.resolve("p/Calc.class")), bytes.get(1));
+        assertEquals(0, runner.getNumFallbacks());
+    }
+
+    @Test
+    public void testHotSwapFallsBackToClassLoader() throws Exception {
+        Path overlay = fixture.mutant(1, "a - b");
+        Instrumentation inst = recordingInstrumentation(new ArrayList<>(), new ArrayList<>(), true);
+
+        HotSwapRunner runner = new HotSwapRunner(inst, fixture.libraries,
+                Arrays.asList(fixture.project, fixture.tests), Collections.singletonList("p.CalcTest"), 1000);
+        List<MutantResult> results = runner.run(Collections.singletonList(overlay), Collections.singletonList(1));
+        assertEquals("1,KILLED,testAdd(p.CalcTest)", results.get(0).toString());
+        assertEquals(1, runner.getNumFallbacks());
+    }
+
+    @Test
+    public void testHotSwapStopsAfterTimeout() throws Exception {
+        // Recorded redefinitions leave the shared loader's Calc in place, so
+        // it loops once the property is set
+        Path spinning = fixture.mutantSource(1, RunFixture.CALC_SPIN);
+        Path overlay = fixture.mutant(2, "a - b");
+        Instrumentation inst = recordingInstrumentation(new ArrayList<>(), new ArrayList<>(), false);
+
+        HotSwapRunner runner = new HotSwapRunner(inst, fixture.libraries, Arrays.asList(spinning, fixture.tests),
+                Collections.singletonList("p.CalcTest"), 500);
+        assertTrue(runner.runOriginal().isEmpty());
+        System.setProperty(RunFixture.SPIN, "true");
+        try {
+            assertEquals(MutantResult.Status.TIMEOUT, runner.runMutant(1, overlay).getStatus());
+            assertFalse(runner.isSwapping());
+            assertEquals("2,KILLED,testAdd(p.CalcTest)", runner.runMutant(2, overlay).toString());
+            assertEquals(1, runner.getNumFallbacks());
+        } finally {
+            System.clearProperty(RunFixture.SPIN);
+        }
+    }
+
+    /**
+     * An Instrumentation that records redefinitions without applying them,
+     * since the test JVM does not run with the agent
+     */
+    private static Instrumentation recordingInstrumentation(List<Class<?>> redefined, List<byte[]> bytes,
+            boolean unsupported) {
+        return (Instrumentation) Proxy.newProxyInstance(Instrumentation.class.getClassLoader(),
+                new Class<?>[] { Instrumentation.class }, (proxy, method, args) -> {
+                    if ("redefineClasses".equals(method.getName())) {
+                        if (unsupported) {
+                            throw new UnsupportedOperationException("class redefinition failed");
+                        }
+                        for (Object d : (Object[]) args[0]) {
+                            redefined.add(((ClassDefinition) d).getDefinitionClass());
+                            bytes.add(((ClassDefinition) d).getDefinitionClassFile());
+                        }
+                        return null;
+                    }
+                    if ("isRedefineClassesSupported".equals(method.getName())) {
+                        return true;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
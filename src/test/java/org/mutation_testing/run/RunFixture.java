@@ -0,0 +1,171 @@
+package org.mutation_testing.run;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mutation_testing.Source;
+import org.mutation_testing.mutate.CompactMutant;
+import org.mutation_testing.mutate.ConditionEvaluation;
+import org.mutation_testing.output.ProbeMutantWriter;
+
+/**
+ * A compiled project with one class, {@code p.Calc}, and its JUnit tests,
+ * for running mutants against
+ */
+public class RunFixture {
+    static final String CALC = "package p; public class Calc { public static int add(int a, int b) { return %s; } }";
+
+    static final String CALC_TEST = "package p;\n"
+            + "import org.junit.Test;\n"
+            + "import static org.junit.Assert.assertEquals;\n"
+            + "public class CalcTest {\n"
+            + "    @Test public void testAdd() { assertEquals(5, Calc.add(2, 3)); }\n"
+            + "    @Test public void testZero() { assertEquals(2, Calc.add(2, 0)); }\n"
+            + "}\n";
+
+    /**
+     * Loops until the runner gives up on it and interrupts it
+     */
+    static final String CALC_LOOP = "package p; public class Calc { public static int add(int a, int b) {"
+            + " while (!Thread.currentThread().isInterrupted()) { a += 0; } return a; } }";
+
+    /**
+     * Ignores interrupts and loops for as long as {@link #SPIN} is set
+     */
+    static final String CALC_SPIN = "package p; public class Calc { public static int add(int a, int b) {"
+            + " while (Boolean.getBoolean(\"msav.test.spin\")) { a += 0; } return a + b; } }";
+
+    static final String SPIN = "msav.test.spin";
+
+    /**
+     * Adds with a site whose method calls have side effects, so evaluating
+     * it twice throws; its probes overlay the project's Calc
+     */
+    static final String CALC_ITERATOR = "package p; public class Calc { public static int add(int a, int b) {"
+            + " java.util.Iterator<Integer> it = java.util.Arrays.asList(a, b).iterator();"
+            + " return it.next() + it.next(); } }";
+
+    /**
+     * Adds with a site that guards against a null, which its mutants'
+     * conditions do not; its probes overlay the project's Calc
+     */
+    static final String CALC_GUARDED = "package p; public class Calc { public static int add(int a, int b) {"
+            + " Integer boxed = b == 0 ? null : b;"
+            + " return boxed != null && boxed > 1 ? a + b : a + b; } }";
+
+    final TemporaryFolder tmp;
+    final List<Path> libraries;
+    final Path project;
+    final Path tests;
+    final Path classes;
+
+    RunFixture(TemporaryFolder tmp) throws IOException, URISyntaxException {
+        this.tmp = tmp;
+        libraries = Arrays.asList(location(Test.class), location(org.hamcrest.Matcher.class));
+        project = compile("project", String.format(CALC, "a + b"), new ArrayList<>());
+        List<Path> testClasspath = new ArrayList<>(libraries);
+        testClasspath.add(project);
+        tests = compile("tests", CALC_TEST, testClasspath);
+        classes = tmp.newFolder("classes").toPath();
+    }
+
+    /**
+     * Compile a mutant of Calc into the mutant's class overlay
+     *
+     * @param mid  the mutant id
+     * @param expr the mutated body of Calc.add's return statement
+     */
+    Path mutant(int mid, String expr) throws IOException {
+        return mutantSource(mid, String.format(CALC, expr));
+    }
+
+    Path mutantSource(int mid, String source) throws IOException {
+        Path overlay = classes.resolve(mid + "");
+        compileInto(overlay, source, new ArrayList<>());
+        return overlay;
+    }
+
+    /**
+     * Write and compile a probed Calc
+     *
+     * @param mutants mutants of Calc's source
+     * @return the class overlay of the probed program
+     */
+    Path probes(List<CompactMutant> mutants) throws IOException {
+        Path probesDir = tmp.newFolder("probes").toPath();
+        try (ProbeMutantWriter writer = new ProbeMutantWriter(probesDir)) {
+            writer.write(mutants);
+        }
+        Path probed = probesDir.resolve("sources").resolve("1").resolve("Calc.java");
+        Path probeClasses = probesDir.resolve("classes");
+        Files.createDirectories(probeClasses);
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, javac.run(null, null, null, "-d", probeClasses.toString(), probed.toString(),
+                probesDir.resolve("msav").resolve("Probes.java").toString()));
+        return probeClasses;
+    }
+
+    /**
+     * A mutant of the original Calc's {@code a + b}
+     */
+    static CompactMutant calcMutant(int mid, String condition, String infected) {
+        return siteMutant(String.format(CALC, "a + b"), "a + b", mid, condition, infected,
+                ConditionEvaluation.INLINE);
+    }
+
+    /**
+     * A mutant of the first occurrence of an expression in a Calc source
+     */
+    static CompactMutant siteMutant(String calc, String original, int mid, String condition, String infected,
+            ConditionEvaluation evaluation) {
+        int begin = calc.indexOf(original);
+        return new CompactMutant(mid, new Source("p/Calc.java", calc), begin, begin + original.length(), original,
+                "((" + condition + ") ? " + infected + " : (" + original + "))", condition, evaluation);
+    }
+
+    private Path compile(String name, String source, List<Path> classpath) throws IOException {
+        Path dir = tmp.newFolder(name).toPath();
+        compileInto(dir, source, classpath);
+        return dir;
+    }
+
+    private void compileInto(Path dir, String source, List<Path> classpath) throws IOException {
+        String className = source.contains("class CalcTest") ? "CalcTest" : "Calc";
+        Path src = tmp.getRoot().toPath().resolve("src-" + dir.getFileName()).resolve("p");
+        Files.createDirectories(src);
+        Path file = src.resolve(className + ".java");
+        Files.write(file, source.getBytes());
+        Files.createDirectories(dir);
+
+        List<String> args = new ArrayList<>(Arrays.asList("-d", dir.toString()));
+        if (!classpath.isEmpty()) {
+            List<String> entries = new ArrayList<>();
+            for (Path p : classpath) {
+                entries.add(p.toString());
+            }
+            args.add("-classpath");
+            args.add(String.join(File.pathSeparator, entries));
+        }
+        args.add(file.toString());
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, javac.run(null, null, null, args.toArray(new String[0])));
+    }
+
+    private static Path location(Class<?> c) throws URISyntaxException {
+        return Paths.get(c.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+}
@@ -0,0 +1,96 @@
+package org.mutation_testing.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SubsumptionTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testMinimalMutantsSubsumeTheRest() throws Exception {
+        List<String> lines = Arrays.asList(
+                "1,KILLED,a;b",
+                "2,KILLED,a",
+                "3,KILLED,b;c",
+                "4,KILLED,a",
+                "5,SURVIVED,",
+                "6,KILLED,a;b;c");
+        Path file = tmp.getRoot().toPath().resolve("results.msav");
+        Files.write(file, lines, Charset.defaultCharset());
+        Subsumption subsumption = Subsumption.read(file);
+
+        assertEquals(5, subsumption.getNumKilled());
+        // 4 is equivalent to 2, which is killed only by a
+        assertEquals(Arrays.asList(2, 3), subsumption.getMinimalMutants());
+        assertEquals(Collections.singletonList(2), subsumption.getSubsumers(1));
+        assertEquals(Collections.singletonList(2), subsumption.getSubsumers(4));
+        assertEquals(Arrays.asList(2, 3), subsumption.getSubsumers(6));
+        assertFalse(subsumption.isSubsumed(2));
+        assertFalse(subsumption.isSubsumed(3));
+        assertTrue(subsumption.isSubsumed(1));
+        assertTrue(subsumption.isSubsumed(4));
+        assertTrue(subsumption.isSubsumed(6));
+
+        // Survived and unknown mutants are neither minimal nor subsumed
+        assertFalse(subsumption.isSubsumed(5));
+        assertFalse(subsumption.isSubsumed(7));
+        assertTrue(subsumption.getSubsumers(5).isEmpty());
+    }
+
+    @Test
+    public void testNoKilledMutants() {
+        List<MutantResult> results = new ArrayList<>();
+        results.add(new MutantResult(1, MutantResult.Status.SURVIVED, new ArrayList<>()));
+        results.add(new MutantResult(2, MutantResult.Status.TIMEOUT, new ArrayList<>()));
+        Subsumption subsumption = new Subsumption(results);
+        assertTrue(subsumption.getMinimalMutants().isEmpty());
+        assertEquals(0, subsumption.getNumKilled());
+    }
+
+    @Test
+    public void testKillsBySubsumersAreNotKillSets() {
+        List<MutantResult> results = new ArrayList<>();
+        results.add(MutantResult.parse("1,KILLED,a;b"));
+        // Only a ran against 2, so 2 does not subsume 1
+        results.add(MutantResult.parse("2,KILLED_BY_SUBSUMER,a"));
+        assertTrue(results.get(1).isKilled());
+        Subsumption subsumption = new Subsumption(results);
+        assertEquals(1, subsumption.getNumKilled());
+        assertFalse(subsumption.isSubsumed(1));
+        assertFalse(subsumption.isSubsumed(2));
+    }
+
+    @Test
+    public void testStaticSubsumersFollowDynamicOnes() throws Exception {
+        Path results = tmp.getRoot().toPath().resolve("results.msav");
+        Files.write(results, Arrays.asList("1,KILLED,a", "2,KILLED,a;b", "3,SURVIVED,"), Charset.defaultCharset());
+        Path implied = tmp.getRoot().toPath().resolve("subsumption.msav");
+        Files.write(implied, Arrays.asList("2,4", "3,1;4"), Charset.defaultCharset());
+        Subsumption subsumption = Subsumption.read(results, implied);
+
+        assertEquals(Collections.singletonList(1), subsumption.getMinimalMutants());
+        assertEquals(Arrays.asList(1, 4), subsumption.getSubsumers(2));
+        // 3 survived, but the conditions of 1 and 4 imply its own
+        assertTrue(subsumption.isSubsumed(3));
+        assertEquals(Arrays.asList(1, 4), subsumption.getSubsumers(3));
+        assertFalse(subsumption.isSubsumed(4));
+
+        Subsumption staticOnly = Subsumption.read(null, implied);
+        assertEquals(0, staticOnly.getNumKilled());
+        assertEquals(Collections.singletonList(4), staticOnly.getSubsumers(2));
+    }
+}
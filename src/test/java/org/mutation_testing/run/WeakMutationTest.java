@@ -0,0 +1,97 @@
+package org.mutation_testing.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mutation_testing.mutate.ConditionEvaluation;
+
+public class WeakMutationTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    RunFixture fixture;
+
+    @Before
+    public void setUp() throws Exception {
+        fixture = new RunFixture(tmp);
+    }
+
+    @Test
+    public void testOneRunReportsEveryMutant() throws Exception {
+        Path probeClasses = fixture.probes(Arrays.asList(
+                RunFixture.calcMutant(1, "b == 0", "(a + b) + 97"),
+                RunFixture.calcMutant(2, "b == 0", "(a - b)"),
+                RunFixture.calcMutant(3, "a > 100", "(a + b) + 97")));
+
+        MutantRunner runner = new MutantRunner(fixture.libraries, Arrays.asList(fixture.project, fixture.tests),
+                Collections.singletonList("p.CalcTest"), 1, 1000);
+        WeakMutation weak = runner.runWeakMutation(probeClasses);
+        assertEquals(WeakMutation.Status.KILLED, weak.statusOf(1));
+        // a - 0 is a + 0
+        assertEquals(WeakMutation.Status.INFECTED, weak.statusOf(2));
+        assertEquals(WeakMutation.Status.REACHED, weak.statusOf(3));
+        assertEquals(WeakMutation.Status.NOT_REACHED, weak.statusOf(4));
+
+        Path report = tmp.getRoot().toPath().resolve("weak.msav");
+        Map<WeakMutation.Status, Integer> counts = weak.write(report, Arrays.asList(1, 2, 3, 4));
+        assertEquals(Arrays.asList("1,KILLED", "2,INFECTED", "3,REACHED", "4,NOT_REACHED"),
+                Files.readAllLines(report));
+        assertEquals(1, (int) counts.get(WeakMutation.Status.KILLED));
+    }
+
+    @Test
+    public void testImpureSiteIsEvaluatedOnce() throws Exception {
+        String site = "it.next() + it.next()";
+        Path probeClasses = fixture.probes(Arrays.asList(
+                RunFixture.siteMutant(RunFixture.CALC_ITERATOR, site, 1, "b == 0", "(" + site + ") + 97",
+                        ConditionEvaluation.INLINE),
+                RunFixture.siteMutant(RunFixture.CALC_ITERATOR, site, 2, "b == 0", "(a - b)",
+                        ConditionEvaluation.INLINE)));
+
+        // The probed program passes the tests, as the original does
+        MutantRunner probed = new MutantRunner(fixture.libraries,
+                Arrays.asList(probeClasses, fixture.project, fixture.tests),
+                Collections.singletonList("p.CalcTest"), 1, 1000);
+        assertTrue(probed.runOriginal().isEmpty());
+
+        MutantRunner runner = new MutantRunner(fixture.libraries, Arrays.asList(fixture.project, fixture.tests),
+                Collections.singletonList("p.CalcTest"), 1, 1000);
+        WeakMutation weak = runner.runWeakMutation(probeClasses);
+        assertEquals(WeakMutation.Status.KILLED, weak.statusOf(1));
+        assertEquals(WeakMutation.Status.INFECTED, weak.statusOf(2));
+    }
+
+    @Test
+    public void testThrowingConditionKillsWithoutChangingTheProgram() throws Exception {
+        String site = "boxed != null && boxed > 1";
+        Path probeClasses = fixture.probes(Arrays.asList(
+                // Unboxes a null in testZero, where the original does not
+                RunFixture.siteMutant(RunFixture.CALC_GUARDED, site, 1, "boxed > 5", "!(" + site + ")",
+                        ConditionEvaluation.DEFERRED),
+                RunFixture.siteMutant(RunFixture.CALC_GUARDED, site, 2, "boxed > 4", "!(" + site + ")",
+                        ConditionEvaluation.SKIPPED)));
+
+        // The probed program passes the tests, as the original does
+        MutantRunner probed = new MutantRunner(fixture.libraries,
+                Arrays.asList(probeClasses, fixture.project, fixture.tests),
+                Collections.singletonList("p.CalcTest"), 1, 1000);
+        assertTrue(probed.runOriginal().isEmpty());
+
+        MutantRunner runner = new MutantRunner(fixture.libraries, Arrays.asList(fixture.project, fixture.tests),
+                Collections.singletonList("p.CalcTest"), 1, 1000);
+        WeakMutation weak = runner.runWeakMutation(probeClasses);
+        assertEquals(WeakMutation.Status.KILLED, weak.statusOf(1));
+        // An unevaluated condition is infected but never weakly killed
+        assertEquals(WeakMutation.Status.INFECTED, weak.statusOf(2));
+    }
+}
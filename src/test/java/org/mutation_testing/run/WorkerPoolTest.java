@@ -0,0 +1,105 @@
+package org.mutation_testing.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WorkerPoolTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    RunFixture fixture;
+
+    @Before
+    public void setUp() throws Exception {
+        fixture = new RunFixture(tmp);
+    }
+
+    @Test
+    public void testWorkerProtocol() throws Exception {
+        Path killed = fixture.mutant(1, "a - b");
+        Path survived = fixture.mutant(2, "b + a");
+        MutantRunner runner = new MutantRunner(fixture.libraries, Arrays.asList(fixture.project, fixture.tests),
+                Collections.singletonList("p.CalcTest"), 1, 1000);
+
+        String jobs = "1\t" + killed + "\n2\t" + survived + "\n3\t" + survived + "\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new Worker(runner, 2).serve(new BufferedReader(new StringReader(jobs)), new PrintStream(out, true));
+
+        // The worker asks to be replaced after its second mutant and does not
+        // take the third
+        assertEquals("READY\t1000\nDONE\t1,KILLED,testAdd(p.CalcTest)\nLAST\t2,SURVIVED,\n",
+                out.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    public void testForkedWorkers() throws Exception {
+        List<Path> overlays = new ArrayList<>();
+        overlays.add(fixture.mutant(1, "a - b"));
+        overlays.add(fixture.mutant(2, "b + a"));
+        overlays.add(fixture.mutant(3, "a * b"));
+        // Mutant 4 takes its worker down with it
+        overlays.add(fixture.mutantSource(4, "package p; public class Calc {"
+                + " public static int add(int a, int b) { System.exit(3); return 0; } }"));
+
+        List<String> args = new ArrayList<>(Arrays.asList("--recycle", "2", "--timeout", "2000"));
+        for (Path library : fixture.libraries) {
+            args.addAll(Arrays.asList("--classpath", library.toString()));
+        }
+        args.addAll(Arrays.asList("--project", fixture.project.toString(), "--project", fixture.tests.toString(),
+                "--test", "p.CalcTest"));
+        WorkerPool pool = new WorkerPool(WorkerPool.workerCommand(new ArrayList<>(), args), 2,
+                tmp.getRoot().toPath().resolve("workers"));
+
+        List<MutantResult> results = pool.run(overlays, Arrays.asList(1, 2, 3, 4));
+        assertEquals("1,KILLED,testAdd(p.CalcTest)", results.get(0).toString());
+        assertEquals("2,SURVIVED,", results.get(1).toString());
+        assertEquals("3,KILLED,testAdd(p.CalcTest);testZero(p.CalcTest)", results.get(2).toString());
+        assertEquals("4,KILLED,worker exited with status 3", results.get(3).toString());
+        assertTrue(pool.getNumStarted() >= 2);
+    }
+
+    @Test
+    public void testUnresponsiveWorkerIsReplaced() throws Exception {
+        List<String> command = Arrays.asList(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), SilentWorker.class.getName());
+        WorkerPool pool = new WorkerPool(command, 1, tmp.getRoot().toPath().resolve("workers"));
+
+        Path overlay = fixture.mutant(1, "a - b");
+        List<MutantResult> results = pool.run(Arrays.asList(overlay, overlay), Arrays.asList(1, 2));
+        assertEquals("1,TIMEOUT,", results.get(0).toString());
+        assertEquals("2,TIMEOUT,", results.get(1).toString());
+        assertEquals(2, pool.getNumStarted());
+    }
+
+    /**
+     * A worker that starts but never answers a job
+     */
+    public static class SilentWorker {
+        public static void main(String[] args) throws Exception {
+            System.out.println(Worker.READY + "\t100");
+            System.out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()));
+            while (in.readLine() != null) {
+                // Take the job and never answer it
+            }
+        }
+    }
+}
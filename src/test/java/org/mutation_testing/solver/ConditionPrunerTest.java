@@ -0,0 +1,90 @@
+package org.mutation_testing.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mutation_testing.TestUtils;
+import org.mutation_testing.mutate.Mutant;
+import org.mutation_testing.mutate.MutationSession;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.resolution.types.ResolvedPrimitiveType;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+public class ConditionPrunerTest {
+    ConditionPruner pruner;
+
+    @Before
+    public void setUp() {
+        pruner = new ConditionPruner();
+    }
+
+    @After
+    public void tearDown() {
+        pruner.close();
+    }
+
+    @Test
+    public void testContradictionsAreUnsatisfiable() {
+        Map<String, ResolvedType> types = new HashMap<>();
+        types.put("x", ResolvedPrimitiveType.INT);
+        types.put("c", ResolvedPrimitiveType.CHAR);
+        types.put("b", ResolvedPrimitiveType.BOOLEAN);
+
+        assertFalse(sat("x == 1 && x == 2", types));
+        assertFalse(sat("x >= 3 && (x <= 1 || x == 2)", types));
+        assertFalse(sat("c <= -1", types));
+        assertFalse(sat("x >= 2147483648L", types));
+        assertFalse(sat("b && !b", types));
+        // Unknown calls are atoms: the same call is the same atom
+        assertFalse(sat("f(x) && !f(x)", types));
+
+        assertTrue(sat("x == 1 && c == 'a'", types));
+        assertTrue(sat("f(x) && !g(x)", types));
+        // Java arithmetic overflows, so it is not translated
+        assertTrue(sat("x + 1 < x", types));
+        assertEquals(9, pruner.getNumChecked());
+        assertEquals(6, pruner.getNumPruned());
+    }
+
+    @Test
+    public void testImpossibleValuesOfSmallTypesArePruned() {
+        MutationSession session = new MutationSession();
+        List<Mutant> all = session.mutate("A.java", TestUtils.makeClass("s == 40000", "short s"));
+        assertEquals(2, all.size());
+
+        session.setPruner(pruner);
+        List<Mutant> feasible = session.mutate("A.java", TestUtils.makeClass("s == 40000", "short s"));
+        assertEquals(1, feasible.size());
+        assertEquals("s != 40000", feasible.get(0).getMutationCondition().toString());
+    }
+
+    @Test
+    public void testStreamedConditionsArePrunedInChunks() {
+        Map<String, ResolvedType> types = new HashMap<>();
+        types.put("x", ResolvedPrimitiveType.INT);
+        List<Expression> conditions = new ArrayList<>();
+        for (int i = 0; i < ConditionPruner.CHUNK_SIZE + 10; i++) {
+            conditions.add(StaticJavaParser.parseExpression(i % 2 == 0 ? "x == " + i : "x == " + i + " && x < 0"));
+        }
+        List<Expression> feasible = pruner.prune(() -> conditions.iterator(), types, Collections.emptyList());
+        assertEquals(ConditionPruner.CHUNK_SIZE / 2 + 5, feasible.size());
+        assertEquals("x == 2", feasible.get(1).toString());
+        assertEquals(conditions.size(), pruner.getNumChecked());
+    }
+
+    private boolean sat(String condition, Map<String, ResolvedType> types) {
+        return pruner.isSatisfiable(StaticJavaParser.parseExpression(condition), types);
+    }
+}
@@ -0,0 +1,89 @@
+package org.mutation_testing.solver;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.resolution.types.ResolvedPrimitiveType;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+public class SolverServiceTest {
+    SolverService service;
+    Map<String, ResolvedType> types;
+
+    @Before
+    public void setUp() {
+        service = new SolverService();
+        types = new HashMap<>();
+        types.put("x", ResolvedPrimitiveType.INT);
+        types.put("c", ResolvedPrimitiveType.CHAR);
+    }
+
+    @After
+    public void tearDown() {
+        service.close();
+    }
+
+    @Test
+    public void testVerdictsAreMemoized() {
+        List<Expression> conditions = parse("x <= 4", "x == 5", "c <= -1");
+        List<Expression> guards = parse("x < 3");
+        List<SolverService.Verdict> expected = Arrays.asList(SolverService.Verdict.FEASIBLE,
+                SolverService.Verdict.INFEASIBLE_ON_PATH, SolverService.Verdict.INFEASIBLE);
+
+        assertEquals(expected, service.check(conditions, types, guards));
+        assertEquals(3, service.getNumSolved());
+        assertEquals(0, service.getNumCached());
+
+        assertEquals(expected, service.check(parse("x <= 4", "x == 5", "c <= -1"), types, parse("x < 3")));
+        assertEquals(3, service.getNumSolved());
+        assertEquals(3, service.getNumCached());
+
+        // Without the guard x == 5 is a different question
+        assertEquals(Collections.singletonList(SolverService.Verdict.FEASIBLE),
+                service.check(parse("x == 5"), types, Collections.emptyList()));
+        assertEquals(4, service.getNumSolved());
+    }
+
+    @Test
+    public void testThreadsCheckConcurrently() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<SolverService.Verdict>>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String bound = "" + (i % 10);
+                futures.add(threads.submit(() -> service.check(parse("x == " + bound, "x < " + bound),
+                        types, parse("x >= " + bound))));
+            }
+            for (Future<List<SolverService.Verdict>> future : futures) {
+                assertEquals(Arrays.asList(SolverService.Verdict.FEASIBLE, SolverService.Verdict.INFEASIBLE_ON_PATH),
+                        future.get());
+            }
+        } finally {
+            threads.shutdown();
+        }
+        assertEquals(80, service.getNumSolved() + service.getNumCached());
+    }
+
+    private static List<Expression> parse(String... expressions) {
+        List<Expression> parsed = new ArrayList<>();
+        for (String e : expressions) {
+            parsed.add(StaticJavaParser.parseExpression(e));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,161 @@
+package org.mutation_testing.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.expr.Expression;
+
+public class StateProductTest {
+    @Test
+    public void testProductOrderAndIndexing() {
+        StateProduct.Product product = product(Arrays.asList(Arrays.asList("x == 1", "x != 1"),
+                Arrays.asList("y <= 0", "y == 1", "y >= 2")));
+        assertEquals(6, product.size());
+        List<String> expected = Arrays.asList(
+                "x == 1 && y <= 0", "x != 1 && y <= 0",
+                "x == 1 && y == 1", "x != 1 && y == 1",
+                "x == 1 && y >= 2", "x != 1 && y >= 2");
+        assertEquals(expected, render(product.toList()));
+        assertEquals("x != 1 && y == 1", product.get(3).toString());
+
+        // Parallel streams split the index range and keep the order
+        assertEquals(expected, product.stream().parallel().map(Expression::toString).collect(Collectors.toList()));
+        assertTrue(product.spliterator().hasCharacteristics(Spliterator.SIZED));
+
+        assertEquals(0, product(Arrays.asList(Arrays.asList("x == 1"), Collections.emptyList())).size());
+        assertFalse(new StateProduct.Product(Collections.emptyList()).iterator().hasNext());
+    }
+
+    @Test
+    public void testLargeProductsAreLazy() {
+        List<List<String>> variables = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            variables.add(Arrays.asList("v" + i + " == 0", "v" + i + " != 0"));
+        }
+        StateProduct.Product product = product(variables);
+        assertEquals(Long.MAX_VALUE, product.boundedSize());
+        assertFalse(product.spliterator().hasCharacteristics(Spliterator.SIZED));
+        try {
+            product.size();
+            throw new AssertionError("2^64 conditions do not fit in a long");
+        } catch (ArithmeticException e) {
+            // expected
+        }
+
+        // Only the conditions that are pulled are built
+        Iterator<Expression> conditions = product.iterator();
+        assertTrue(conditions.next().toString().startsWith("v0 == 0 && v1 == 0"));
+        assertTrue(conditions.next().toString().startsWith("v0 != 0 && v1 == 0"));
+        assertTrue(product.get(1L << 40).toString().contains("v40 != 0 && v41 == 0"));
+    }
+
+    @Test
+    public void testCoveringArraysCoverEveryCombination() {
+        int[][] cases = { { 3, 3, 3, 3 }, { 2, 5, 3, 4, 2, 3 }, { 4, 1, 2 }, { 2, 2, 2, 2, 2, 2, 2, 2, 2, 2 } };
+        for (int[] sizes : cases) {
+            for (int t = 1; t <= 3; t++) {
+                List<int[]> rows = CoveringArray.build(sizes, t);
+                assertCovers(rows, sizes, t);
+                long full = 1;
+                for (int size : sizes) {
+                    full *= size;
+                }
+                assertTrue(rows.size() <= full);
+            }
+        }
+        // Four variables with three values each: 81 conditions, at least 9
+        // pairwise
+        assertTrue(CoveringArray.build(new int[] { 3, 3, 3, 3 }, 2).size() <= 10);
+        // Ten variables with two values each: 1024 conditions, at least 6
+        // pairwise
+        assertTrue(CoveringArray.build(new int[] { 2, 2, 2, 2, 2, 2, 2, 2, 2, 2 }, 2).size() <= 12);
+    }
+
+    @Test
+    public void testCoveringProductConditions() {
+        StateProduct.Product product = new StateProduct.Product(
+                Arrays.asList(parse("x == 1", "x != 1"), parse("y == 1", "y != 1"), parse("z == 1", "z != 1")),
+                CoveringArray.build(new int[] { 2, 2, 2 }, 2));
+        List<String> conditions = render(product.toList());
+        assertTrue(conditions.size() < 8);
+        for (String x : Arrays.asList("x == 1", "x != 1")) {
+            for (String z : Arrays.asList("z == 1", "z != 1")) {
+                assertTrue(conditions.stream().anyMatch(c -> c.startsWith(x) && c.endsWith(z)));
+            }
+        }
+    }
+
+    /**
+     * Check that every combination of values of every t variables is in some
+     * row
+     */
+    private static void assertCovers(List<int[]> rows, int[] sizes, int t) {
+        int n = sizes.length;
+        for (int mask = 0; mask < 1 << n; mask++) {
+            if (Integer.bitCount(mask) != Math.min(t, n)) {
+                continue;
+            }
+            List<Integer> vars = new ArrayList<>();
+            int combinations = 1;
+            for (int i = 0; i < n; i++) {
+                if ((mask & 1 << i) != 0) {
+                    vars.add(i);
+                    combinations *= sizes[i];
+                }
+            }
+            for (int c = 0; c < combinations; c++) {
+                int[] values = new int[vars.size()];
+                int rest = c;
+                for (int k = 0; k < vars.size(); k++) {
+                    values[k] = rest % sizes[vars.get(k)];
+                    rest /= sizes[vars.get(k)];
+                }
+                boolean covered = false;
+                for (int[] row : rows) {
+                    boolean matches = true;
+                    for (int k = 0; k < vars.size() && matches; k++) {
+                        matches = row[vars.get(k)] == values[k];
+                    }
+                    covered |= matches;
+                }
+                assertTrue("Uncovered " + vars + "=" + Arrays.toString(values) + " for t=" + t, covered);
+            }
+        }
+    }
+
+    private static List<Expression> parse(String... conditions) {
+        List<Expression> parsed = new ArrayList<>();
+        for (String condition : conditions) {
+            parsed.add(StaticJavaParser.parseExpression(condition));
+        }
+        return parsed;
+    }
+
+    private static StateProduct.Product product(List<List<String>> variables) {
+        List<List<Expression>> conditions = new ArrayList<>();
+        for (List<String> variable : variables) {
+            List<Expression> parsed = new ArrayList<>();
+            for (String condition : variable) {
+                parsed.add(StaticJavaParser.parseExpression(condition));
+            }
+            conditions.add(parsed);
+        }
+        return new StateProduct.Product(conditions);
+    }
+
+    private static List<String> render(List<Expression> conditions) {
+        return conditions.stream().map(Expression::toString).collect(Collectors.toList());
+    }
+}